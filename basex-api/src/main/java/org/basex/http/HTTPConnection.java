@@ -480,7 +480,7 @@ public final class HTTPConnection implements ClientInfo {
 
     } catch(final LoginException ex) {
       // delay users with wrong passwords
-      context.blocker.delay(token(getRemoteAddr()));
+      Performance.sleep(context.blocker.delay(token(getRemoteAddr())));
       throw ex;
     }
   }
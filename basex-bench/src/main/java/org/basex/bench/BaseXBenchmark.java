@@ -0,0 +1,104 @@
+package org.basex.bench;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Base class for all benchmarks. Creates a database context in a temporary directory and
+ * generates synthetic input documents, which allows for reproducible results.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public abstract class BaseXBenchmark {
+  /** Name of test database. */
+  protected static final String NAME = "bench";
+  /** Number of distinct words in generated texts. */
+  protected static final int WORDS = 5000;
+
+  /** Database context. */
+  protected Context context;
+  /** Temporary directory. */
+  private IOFile dir;
+
+  /**
+   * Creates the database context.
+   * @throws IOException I/O exception
+   */
+  @Setup(Level.Trial)
+  public void initContext() throws IOException {
+    dir = new IOFile(Prop.TEMPDIR, "basex-bench-" + System.nanoTime());
+    if(!dir.md()) throw new IOException("Directory could not be created: " + dir);
+    final StaticOptions sopts = new StaticOptions(false);
+    sopts.set(StaticOptions.DBPATH, new IOFile(dir, "data").path());
+    context = new Context(sopts);
+  }
+
+  /**
+   * Closes the database context and deletes all temporary files.
+   */
+  @TearDown(Level.Trial)
+  public void closeContext() {
+    context.close();
+    dir.delete();
+  }
+
+  /**
+   * Generates an input document with the specified number of items and returns its file.
+   * @param items number of items
+   * @return file
+   * @throws IOException I/O exception
+   */
+  protected final IOFile document(final int items) throws IOException {
+    final IOFile file = new IOFile(dir, "input" + items + IO.XMLSUFFIX);
+    if(!file.exists()) {
+      final Random rnd = new Random(items);
+      final TokenBuilder tb = new TokenBuilder().add("<site>");
+      for(int i = 1; i <= items; i++) {
+        tb.add("<item id='item").addInt(i).add("' category='c").addInt(i % 100).add("'>");
+        tb.add("<name>").add(word(rnd)).add(' ').add(word(rnd)).add("</name>");
+        tb.add("<price>").add(rnd.nextInt(100000) / 100.0).add("</price>");
+        tb.add("<date>20").addInt(10 + rnd.nextInt(10)).add("-0").addInt(1 + rnd.nextInt(9)).
+          add("-1").addInt(rnd.nextInt(10)).add("</date>");
+        tb.add("<description>");
+        for(int w = rnd.nextInt(40); w >= 0; w--) tb.add(word(rnd)).add(' ');
+        tb.add("</description>");
+        tb.add("</item>");
+      }
+      file.write(tb.add("</site>").finish());
+    }
+    return file;
+  }
+
+  /**
+   * Creates a database with the specified number of items and returns the opened instance.
+   * @param items number of items
+   * @return data reference
+   * @throws IOException I/O exception
+   */
+  protected final Data create(final int items) throws IOException {
+    new CreateDB(NAME, document(items).path()).execute(context);
+    return context.data();
+  }
+
+  /**
+   * Returns a word with a skewed distribution.
+   * @param rnd random generator
+   * @return word
+   */
+  protected static String word(final Random rnd) {
+    final double d = rnd.nextDouble();
+    return "w" + (int) (d * d * WORDS);
+  }
+}
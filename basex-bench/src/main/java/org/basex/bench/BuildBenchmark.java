@@ -0,0 +1,75 @@
+package org.basex.bench;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.basex.build.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for parsing XML documents and building databases.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BuildBenchmark extends BaseXBenchmark {
+  /** Number of items. */
+  @Param({ "10000", "100000" })
+  public int items;
+  /** Use internal XML parser ({@link XMLParser}) or SAX parser. */
+  @Param({ "true", "false" })
+  public boolean intparse;
+
+  /** Input document. */
+  private IO input;
+
+  /**
+   * Generates the input document.
+   * @throws IOException I/O exception
+   */
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    input = document(items);
+    context.options.set(MainOptions.INTPARSE, intparse);
+  }
+
+  /**
+   * Drops the database after each invocation.
+   */
+  @TearDown(Level.Invocation)
+  public void drop() {
+    DropDB.drop(NAME, context.soptions);
+  }
+
+  /**
+   * Creates a disk-based database.
+   * @return database size
+   * @throws IOException I/O exception
+   */
+  @Benchmark
+  public int disk() throws IOException {
+    final Parser parser = Parser.singleParser(input, context.options, "");
+    final Data data = new DiskBuilder(NAME, parser, context.soptions, context.options).build();
+    try {
+      return data.meta.size;
+    } finally {
+      data.close();
+    }
+  }
+
+  /**
+   * Creates a main-memory database.
+   * @return database size
+   * @throws IOException I/O exception
+   */
+  @Benchmark
+  public int memory() throws IOException {
+    return MemBuilder.build(NAME, Parser.singleParser(input, context.options, "")).meta.size;
+  }
+}
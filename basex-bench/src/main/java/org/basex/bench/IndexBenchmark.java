@@ -0,0 +1,101 @@
+package org.basex.bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.util.*;
+import org.basex.util.ft.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for index lookups.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IndexBenchmark extends BaseXBenchmark {
+  /** Number of lookups per invocation. */
+  private static final int LOOKUPS = 100;
+
+  /** Number of items. */
+  @Param({ "100000" })
+  public int items;
+
+  /** Data reference. */
+  private Data data;
+  /** Values to look up in the text index. */
+  private byte[][] texts;
+  /** Tokens to look up in the full-text index. */
+  private byte[][] words;
+
+  /**
+   * Creates the database and index structures.
+   * @throws IOException I/O exception
+   */
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    context.options.set(MainOptions.FTINDEX, true);
+    data = create(items);
+
+    final Random rnd = new Random(0);
+    texts = new byte[LOOKUPS][];
+    words = new byte[LOOKUPS][];
+    for(int l = 0; l < LOOKUPS; l++) {
+      texts[l] = Token.token("item" + (1 + rnd.nextInt(items)));
+      words[l] = Token.token(word(rnd));
+    }
+  }
+
+  /**
+   * Looks up attribute values.
+   * @return number of results
+   */
+  @Benchmark
+  public int attribute() {
+    int c = 0;
+    for(final byte[] text : texts) {
+      final IndexIterator iter = data.iter(new StringToken(IndexType.ATTRIBUTE, text));
+      while(iter.more()) c += iter.pre();
+    }
+    return c;
+  }
+
+  /**
+   * Looks up a range of text values.
+   * @return number of results
+   */
+  @Benchmark
+  public int range() {
+    int c = 0;
+    for(int r = 0; r < LOOKUPS; r++) {
+      final IndexIterator iter = data.iter(new NumericRange(IndexType.TEXT, r * 10, r * 10 + 1));
+      while(iter.more()) c += iter.pre();
+    }
+    return c;
+  }
+
+  /**
+   * Looks up full-text tokens.
+   * @return number of results
+   */
+  @Benchmark
+  public int fulltext() {
+    final FTLexer lexer = new FTLexer(new FTOpt().assign(data.meta));
+    int c = 0;
+    for(final byte[] word : words) {
+      lexer.init(word);
+      lexer.nextToken();
+      final IndexIterator iter = data.iter(lexer);
+      while(iter.more()) c += iter.pre();
+    }
+    return c;
+  }
+}
@@ -0,0 +1,76 @@
+package org.basex.bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.item.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+/**
+ * Benchmarks for representative XQuery workloads. Each query is parsed, compiled and evaluated
+ * per invocation, and all result items are consumed.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QueryBenchmark extends BaseXBenchmark {
+  /** Queries. */
+  private static final Map<String, String> QUERIES = new HashMap<>();
+
+  static {
+    final String db = "db:get('" + NAME + "')";
+    QUERIES.put("path", "count(" + db + "/site/item[name/text() = 'w1 w1']/description)");
+    QUERIES.put("descendant", "count(" + db + "//*[@category = 'c42'])");
+    QUERIES.put("predicate", db + "//item[price > 999][date = '2012-01-10']/@id ! string()");
+    QUERIES.put("group-by", "for $item in " + db + "//item " +
+        "group by $c := $item/@category " +
+        "return <group category='{ $c }' count='{ count($item) }'>{ sum($item/price) }</group>");
+    QUERIES.put("order-by", "(for $item in " + db + "//item " +
+        "order by xs:double($item/price) descending, $item/name " +
+        "return $item/@id ! string())[position() <= 20]");
+    QUERIES.put("join", "for $a in " + db + "//item[@category = 'c1'] " +
+        "for $b in " + db + "//item[@category = 'c2'] " +
+        "where $a/name = $b/name return $a/@id || ':' || $b/@id");
+    QUERIES.put("map", "let $map := map:merge(" + db + "//item ! map { string(@id): number(price) }) " +
+        "return sum(for $i in 1 to 10000 return $map('item' || $i))");
+    QUERIES.put("array", "let $array := array { " + db + "//item/price ! number() } " +
+        "return sum(for $i in 1 to array:size($array) return $array($i))");
+    QUERIES.put("words", "sort(distinct-values(" + db + "//description ! tokenize(.)))[1]");
+  }
+
+  /** Number of items. */
+  @Param({ "10000" })
+  public int items;
+  /** Query. */
+  @Param({ "path", "descendant", "predicate", "group-by", "order-by", "join", "map", "array",
+    "words" })
+  public String query;
+
+  /**
+   * Creates the database.
+   * @throws IOException I/O exception
+   */
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    create(items);
+  }
+
+  /**
+   * Evaluates a query.
+   * @param bh black hole
+   * @throws QueryException query exception
+   */
+  @Benchmark
+  public void query(final Blackhole bh) throws QueryException {
+    try(QueryProcessor qp = new QueryProcessor(QUERIES.get(query), context)) {
+      final Iter iter = qp.iter();
+      for(Item item; (item = iter.next()) != null;) bh.consume(item);
+    }
+  }
+}
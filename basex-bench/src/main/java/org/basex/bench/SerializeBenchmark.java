@@ -0,0 +1,54 @@
+package org.basex.bench;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.basex.data.*;
+import org.basex.io.serial.*;
+import org.basex.query.value.node.*;
+import org.basex.util.options.Options.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for serializing database nodes.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializeBenchmark extends BaseXBenchmark {
+  /** Number of items. */
+  @Param({ "100000" })
+  public int items;
+  /** Indent results. */
+  @Param({ "false", "true" })
+  public boolean indent;
+
+  /** Data reference. */
+  private Data data;
+  /** Serialization parameters. */
+  private SerializerOptions sopts;
+
+  /**
+   * Creates the database.
+   * @throws IOException I/O exception
+   */
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    data = create(items);
+    sopts = new SerializerOptions();
+    sopts.set(SerializerOptions.INDENT, indent ? YesNo.YES : YesNo.NO);
+  }
+
+  /**
+   * Serializes the document.
+   * @throws IOException I/O exception
+   */
+  @Benchmark
+  public void xml() throws IOException {
+    try(Serializer ser = Serializer.get(OutputStream.nullOutputStream(), sopts)) {
+      ser.serialize(new DBNode(data, 0));
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package org.basex.bench;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for random reads on the database table.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TableBenchmark extends BaseXBenchmark {
+  /** Number of nodes to be accessed per invocation. */
+  private static final int NODES = 1000;
+
+  /** Number of items. */
+  @Param({ "100000" })
+  public int items;
+  /** Read table via memory mapping. */
+  @Param({ "false", "true" })
+  public boolean maptable;
+
+  /** Data reference. */
+  private Data data;
+
+  /**
+   * Creates the database.
+   * @throws IOException I/O exception
+   */
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    context.options.set(MainOptions.MAPTABLE, maptable);
+    data = create(items);
+  }
+
+  /**
+   * Reads random table entries.
+   * @return checksum
+   */
+  @Benchmark
+  public long read() {
+    return read(data);
+  }
+
+  /**
+   * Reads random table entries in parallel.
+   * @return checksum
+   */
+  @Benchmark
+  @Threads(4)
+  public long readParallel() {
+    return read(data);
+  }
+
+  /**
+   * Reads random table entries.
+   * @param data data reference
+   * @return checksum
+   */
+  private static long read(final Data data) {
+    final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    final int size = data.meta.size;
+    long sum = 0;
+    for(int n = 0; n < NODES; n++) {
+      final int pre = rnd.nextInt(size), kind = data.kind(pre);
+      sum += data.parent(pre, kind) + data.size(pre, kind) + data.textRef(pre);
+    }
+    return sum;
+  }
+}
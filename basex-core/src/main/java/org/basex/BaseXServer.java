@@ -4,8 +4,10 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 import java.util.Map.*;
+import java.util.concurrent.*;
 
 import org.basex.api.client.*;
 import org.basex.core.*;
@@ -19,6 +21,15 @@ import org.basex.util.*;
  * This is the starter class for running the database server. It handles
  * concurrent requests from multiple users.
  *
+ * Client connections are multiplexed by a single selector thread, which buffers incoming bytes
+ * without blocking. Complete requests are dispatched to a bounded pool of worker threads, so
+ * idle sessions and clients that send incomplete requests do not occupy any threads.
+ * A worker thread is occupied until a request has been completely processed. This includes
+ * the evaluation of long-running queries and the transfer of streamed results, which waits
+ * for the acknowledgements of the client. If {@link StaticOptions#SERVERTHREADS} such requests
+ * are processed at the same time, further requests will be queued. If
+ * {@link StaticOptions#VIRTUALTHREADS} is enabled, each request is run on its own thread.
+ *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
  * @author Andreas Weiler
@@ -26,12 +37,20 @@ import org.basex.util.*;
 public final class BaseXServer extends CLI implements Runnable {
   /** New sessions. */
   private final HashSet<ClientListener> authorizing = new HashSet<>();
+  /** Sessions waiting to be registered for new requests. */
+  private final Queue<ClientListener> pending = new ConcurrentLinkedQueue<>();
+  /** Sessions to be dispatched after a delay, and the times when they are due. */
+  private final Map<ClientListener, Long> delayed = new ConcurrentHashMap<>();
   /** Indicates if server is running. */
   private volatile boolean running;
   /** Indicates if server is to be stopped. */
   private volatile boolean stop;
-  /** Server socket. */
-  private ServerSocket socket;
+  /** Server socket channel. */
+  private ServerSocketChannel socket;
+  /** Selector for incoming connections and requests. */
+  private Selector selector;
+  /** Worker threads for processing client requests. */
+  private ExecutorService workers;
   /** Start as service. */
   private boolean service;
   /** Daemon flag. */
@@ -102,9 +121,12 @@ public final class BaseXServer extends CLI implements Runnable {
     }
 
     try {
-      socket = new ServerSocket();
-      socket.setReuseAddress(true);
+      socket = ServerSocketChannel.open();
+      socket.socket().setReuseAddress(true);
       socket.bind(new InetSocketAddress(addr, port));
+      socket.configureBlocking(false);
+      selector = Selector.open();
+      socket.register(selector, SelectionKey.OP_ACCEPT);
       stopFile = stopFile(getClass(), port);
     } catch(final BindException ex) {
       context.log.writeServer(LogType.ERROR, Util.message(ex));
@@ -118,6 +140,8 @@ public final class BaseXServer extends CLI implements Runnable {
       throw new BaseXException(ex.getLocalizedMessage());
     }
 
+    workers = Threads.executor(sopts.get(StaticOptions.SERVERTHREADS),
+        sopts.get(StaticOptions.VIRTUALTHREADS));
     new Thread(this).start();
 
     // show info that server has been started
@@ -137,39 +161,47 @@ public final class BaseXServer extends CLI implements Runnable {
   @Override
   public void run() {
     running = true;
+    final ArrayList<ClientListener> ready = new ArrayList<>();
     while(running) {
       try {
-        final Socket s = socket.accept();
-        s.setTcpNoDelay(true);
-        if(stopFile.exists()) {
-          close();
-        } else {
-          // drop inactive connections
-          final long ka = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
-          if(ka > 0) {
-            final long ms = System.currentTimeMillis();
-            for(final ClientListener cl : context.sessions) {
-              if(ms - cl.last > ka) cl.close();
-            }
+        selector.select(dispatch());
+        // register sessions that wait for new requests
+        for(ClientListener cl; (cl = pending.poll()) != null;) {
+          try {
+            cl.channel().register(selector, SelectionKey.OP_READ, cl);
+          } catch(final ClosedChannelException ex) {
+            Util.debug(ex);
           }
-          // create client listener, stop authentication after timeout
-          final ClientListener cl = new ClientListener(s, context, this);
-          if(ka > 0) {
-            cl.timeout.schedule(new TimerTask() {
-              @Override
-              public void run() {
-                cl.close();
-              }
-            }, ka);
-            authorizing.add(cl);
+        }
+
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while(keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+          if(!key.isValid()) continue;
+          if(key.isAcceptable()) {
+            accept();
+          } else if(key.isReadable()) {
+            final ClientListener cl = (ClientListener) key.attachment();
+            if(cl.receive()) {
+              // deregister channel: requests will be processed in blocking mode
+              key.cancel();
+              ready.add(cl);
+            }
           }
-          cl.start();
         }
-      } catch(final SocketException ex) {
+        if(!ready.isEmpty()) {
+          selector.selectNow();
+          for(final ClientListener cl : ready) workers.execute(cl);
+          ready.clear();
+        }
+        expire();
+      } catch(final ClosedSelectorException | SocketException ex) {
         Util.debug(ex);
         break;
       } catch(final Throwable ex) {
         // socket may have been unexpectedly closed
+        if(!running) break;
         Util.errln(ex);
         context.log.writeServer(LogType.ERROR, Util.message(ex));
         break;
@@ -177,6 +209,107 @@ public final class BaseXServer extends CLI implements Runnable {
     }
   }
 
+  /**
+   * Accepts a new connection.
+   * @throws IOException I/O exception
+   */
+  private void accept() throws IOException {
+    final SocketChannel sc = socket.accept();
+    if(sc == null) return;
+
+    sc.socket().setTcpNoDelay(true);
+    if(stopFile.exists()) {
+      sc.close();
+      close();
+    } else {
+      // drop inactive connections
+      final long ka = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
+      if(ka > 0) {
+        final long ms = System.currentTimeMillis();
+        for(final ClientListener cl : context.sessions) {
+          if(ms - cl.last > ka) close(cl);
+        }
+      }
+      // create client listener, stop authentication after timeout (see expire())
+      final ClientListener cl = new ClientListener(sc, context, this);
+      if(ka > 0) {
+        synchronized(authorizing) {
+          authorizing.add(cl);
+        }
+      }
+      workers.execute(cl);
+    }
+  }
+
+  /**
+   * Closes connections that have not been authenticated before the keep alive time.
+   */
+  private void expire() {
+    final long ka = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
+    if(ka <= 0) return;
+
+    final ArrayList<ClientListener> expired = new ArrayList<>();
+    final long ms = System.currentTimeMillis();
+    synchronized(authorizing) {
+      for(final ClientListener cl : authorizing) {
+        if(ms - cl.last > ka) expired.add(cl);
+      }
+      authorizing.removeAll(expired);
+    }
+    for(final ClientListener cl : expired) close(cl);
+  }
+
+  /**
+   * Dispatches delayed sessions that are due.
+   * @return time until the next session will be due (at most one second)
+   */
+  private long dispatch() {
+    long wait = 1000;
+    if(!delayed.isEmpty()) {
+      final long ms = System.currentTimeMillis();
+      final Iterator<Entry<ClientListener, Long>> iter = delayed.entrySet().iterator();
+      while(iter.hasNext()) {
+        final Entry<ClientListener, Long> entry = iter.next();
+        final long due = entry.getValue() - ms;
+        if(due > 0) {
+          wait = Math.min(wait, due);
+        } else {
+          iter.remove();
+          workers.execute(entry.getKey());
+        }
+      }
+    }
+    return wait;
+  }
+
+  /**
+   * Closes a session. Sessions are closed by a worker thread, as running commands
+   * need to be stopped, and opened databases need to be closed.
+   * @param client client session
+   */
+  private void close(final ClientListener client) {
+    workers.execute(client::close);
+  }
+
+  /**
+   * Registers a client session for new requests.
+   * @param client client session
+   */
+  public void register(final ClientListener client) {
+    pending.add(client);
+    selector.wakeup();
+  }
+
+  /**
+   * Dispatches a client session to a worker thread after the specified delay.
+   * @param client client session
+   * @param ms delay in milliseconds
+   */
+  public void delay(final ClientListener client, final long ms) {
+    delayed.put(client, System.currentTimeMillis() + ms);
+    selector.wakeup();
+  }
+
   /**
    * Stops the server.
    * @throws IOException I/O exception
@@ -194,15 +327,21 @@ public final class BaseXServer extends CLI implements Runnable {
   private synchronized void close() {
     if(!running) return;
 
-    for(final ClientListener cl : authorizing) {
-      remove(cl);
-      cl.close();
+    final ArrayList<ClientListener> clients;
+    synchronized(authorizing) {
+      clients = new ArrayList<>(authorizing);
+      authorizing.clear();
     }
+    clients.addAll(delayed.keySet());
+    delayed.clear();
+    for(final ClientListener cl : clients) cl.close();
     context.sessions.close();
+    workers.shutdown();
 
     try {
       // close interactive input if server was stopped by another process
       socket.close();
+      selector.close();
     } catch(final IOException ex) {
       Util.errln(ex);
       context.log.writeServer(LogType.ERROR, Util.message(ex));
@@ -349,7 +488,6 @@ public final class BaseXServer extends CLI implements Runnable {
    */
   public void remove(final ClientListener client) {
     synchronized(authorizing) {
-      client.timeout.cancel();
       authorizing.remove(client);
     }
   }
@@ -27,6 +27,11 @@ public class ClientQuery extends Query {
   /** Query id. */
   final String id;
 
+  /** Number of items per streamed chunk ({@code 0}: no streaming). */
+  private int chunk;
+  /** Input of the currently streamed result ({@code null} if no result is streamed). */
+  private BufferInput stream;
+
   /**
    * Standard constructor.
    * @param query query to be run
@@ -41,23 +46,39 @@ public class ClientQuery extends Query {
     id = session.exec(ServerCmd.QUERY, query, null);
   }
 
+  /**
+   * Enables or disables streaming. If enabled, results that are requested via {@link #more()}
+   * and {@link #next()} will be transferred in chunks of the specified size: while the client
+   * processes the current chunk, the server will already send the next one. As long as a result
+   * is streamed, the session must not be used for other requests; the transfer will be cancelled
+   * if another method of this query is called.
+   * @param size number of items per chunk ({@code 0}: disable streaming)
+   */
+  public void chunk(final int size) {
+    chunk = Math.max(0, size);
+  }
+
   @Override
   public String info() throws IOException {
+    cancel();
     return cs.exec(ServerCmd.INFO, id, null);
   }
 
   @Override
   public String options() throws IOException {
+    cancel();
     return cs.exec(ServerCmd.OPTIONS, id, null);
   }
 
   @Override
   public boolean updating() throws IOException {
+    cancel();
     return Boolean.parseBoolean(cs.exec(ServerCmd.UPDATING, id, null));
   }
 
   @Override
   public void bind(final String name, final Object value, final String type) throws IOException {
+    cancel();
     cache = null;
 
     final Object vl = value instanceof BXNode ? ((BXNode) value).getNode() : value;
@@ -99,22 +120,83 @@ public class ClientQuery extends Query {
 
   @Override
   public String execute() throws IOException {
+    cancel();
     return cs.exec(ServerCmd.EXEC, id, out);
   }
 
   @Override
   public void close() throws IOException {
+    cancel();
     cs.exec(ServerCmd.CLOSE, id, null);
   }
 
   @Override
   public void cache(final boolean full) throws IOException {
-    cs.sout.write((full ? ServerCmd.FULL : ServerCmd.RESULTS).code);
+    cancel();
+    final boolean streaming = chunk > 0 && !full;
+    cs.sout.write((streaming ? ServerCmd.STREAM : full ? ServerCmd.FULL : ServerCmd.RESULTS).code);
     cs.send(id);
+    if(streaming) cs.send(Integer.toString(chunk));
     cs.sout.flush();
 
     final BufferInput bi = BufferInput.get(cs.sin);
-    cache(bi, full);
-    if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+    if(streaming) {
+      stream = bi;
+      receive();
+    } else {
+      cache(bi, full);
+      if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+    }
+  }
+
+  @Override
+  boolean fetch() throws IOException {
+    if(stream == null) return false;
+    receive();
+    return !cache.isEmpty();
+  }
+
+  /**
+   * Receives the next chunk of a streamed result.
+   * @throws IOException I/O exception
+   */
+  private void receive() throws IOException {
+    final BufferInput bi = stream;
+    final boolean more = cache(bi, false);
+    // acknowledge chunk before its results are processed, or confirm end of result
+    answer(1);
+    if(!more) {
+      stream = null;
+      if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+    }
+  }
+
+  /**
+   * Cancels the transfer of a streamed result and skips the remaining chunks.
+   * The cancel flag answers the next marker. All subsequent markers are answered as well,
+   * including the end marker, after which the server sends the status of the request.
+   * @throws IOException I/O exception
+   */
+  private void cancel() throws IOException {
+    final BufferInput bi = stream;
+    if(bi == null) return;
+    stream = null;
+    answer(0);
+    for(boolean more = cache(bi, false); more;) {
+      more = cache(bi, false);
+      answer(0);
+    }
+    cache = null;
+    if(!ClientSession.ok(bi)) Util.debug(bi.readString());
+  }
+
+  /**
+   * Answers a marker of a streamed result.
+   * @param flag flag ({@code 1}: continue, {@code 0}: cancel)
+   * @throws IOException I/O exception
+   */
+  private void answer(final int flag) throws IOException {
+    cs.sout.write(flag);
+    cs.sout.flush();
   }
 }
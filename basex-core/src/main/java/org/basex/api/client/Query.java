@@ -5,6 +5,7 @@ import java.io.*;
 import org.basex.io.in.*;
 import org.basex.query.value.type.*;
 import org.basex.query.value.type.Type.ID;
+import org.basex.server.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -73,7 +74,7 @@ public abstract class Query implements Closeable {
    */
   public boolean more() throws IOException {
     if(cache == null) cache(false);
-    if(pos < cache.size()) return true;
+    if(pos < cache.size() || fetch()) return true;
     cache = null;
     types = null;
     return false;
@@ -86,6 +87,15 @@ public abstract class Query implements Closeable {
    */
   public abstract void cache(boolean full) throws IOException;
 
+  /**
+   * Fetches the next chunk of results if the results are streamed.
+   * @return {@code true} if new results have been cached
+   * @throws IOException I/O exception
+   */
+  boolean fetch() throws IOException {
+    return false;
+  }
+
   /**
    * Returns the next item of the query as string.
    * @return string or {@code null}
@@ -113,13 +123,15 @@ public abstract class Query implements Closeable {
    * Caches the incoming input.
    * @param input input stream
    * @param full retrieve full type information
+   * @return {@code true} if the input ended with a chunk marker
    * @throws IOException I/O exception
    */
-  void cache(final InputStream input, final boolean full) throws IOException {
+  boolean cache(final InputStream input, final boolean full) throws IOException {
     cache = new TokenList();
     types = new ByteList();
     final ByteList bl = new ByteList();
-    for(int t; (t = input.read()) > 0;) {
+    int t;
+    while((t = input.read()) > 0 && t != ServerQuery.CHUNK) {
       // skip type information
       if(full) {
         final ID id = ID.get(t);
@@ -134,6 +146,7 @@ public abstract class Query implements Closeable {
       types.add(t);
     }
     pos = 0;
+    return t == ServerQuery.CHUNK;
   }
 
   /**
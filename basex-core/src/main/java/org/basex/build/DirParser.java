@@ -4,13 +4,17 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
 import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.MainOptions.MainParser;
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
+import org.basex.io.serial.*;
+import org.basex.query.value.node.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -18,6 +22,10 @@ import org.basex.util.list.*;
  * This class recursively scans files and directories and parses all
  * relevant files.
  *
+ * If {@link MainOptions#CREATEPARALLEL} is greater than 1, XML resources are parsed
+ * concurrently into main-memory instances, which are then passed on to the builder in the
+ * original order.
+ *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
  */
@@ -45,6 +53,12 @@ public final class DirParser extends Parser {
   private final boolean binaryParser;
   /** Archive name. */
   private final boolean archiveName;
+  /** Number of parallel parsers. */
+  private final int parallel;
+  /** Resources that are currently parsed in parallel. */
+  private final ArrayDeque<Resource> pending = new ArrayDeque<>();
+  /** Thread pool for parallel parsing (can be {@code null}). */
+  private ExecutorService pool;
 
   /** Last source. */
   private IO lastSrc;
@@ -75,6 +89,7 @@ public final class DirParser extends Parser {
     addBinary = options.get(MainOptions.ADDRAW);
     dtd = options.get(MainOptions.DTD);
     binaryParser = options.get(MainOptions.PARSER) == MainParser.RAW;
+    parallel = options.get(MainOptions.CREATEPARALLEL);
     filter = !isDir && !source.isArchive() ? null :
       Pattern.compile(IOFile.regex(options.get(MainOptions.CREATEFILTER)));
   }
@@ -83,7 +98,19 @@ public final class DirParser extends Parser {
   public void parse(final Builder build) throws IOException {
     build.meta.inputsize = 0;
     build.meta.original = original;
-    parse(build, source);
+    if(parallel > 1) {
+      pool = Executors.newFixedThreadPool(parallel);
+      try {
+        parse(build, source);
+        while(!pending.isEmpty()) merge(build);
+      } finally {
+        pool.shutdownNow();
+        pool = null;
+        pending.clear();
+      }
+    } else {
+      parse(build, source);
+    }
   }
 
   /**
@@ -179,6 +206,16 @@ public final class DirParser extends Parser {
     if(include ? binaryParser : addBinary) {
       // store input in binary format if binary parser was chosen, or if file was included otherwise
       builder.binary(targ + name, source);
+    } else if(include && pool != null) {
+      // parse input in parallel; cache streamed contents, as they are only available once
+      IO in = source;
+      if(!(source instanceof IOFile || source instanceof IOContent)) {
+        in = new IOContent(source.read());
+        in.name(name);
+      }
+      final Parser prsr = Parser.singleParser(in, options, targ);
+      pending.add(new Resource(source.path(), pool.submit(() -> MemBuilder.build("", prsr))));
+      if(pending.size() > parallel << 1) merge(builder);
     } else if(include) {
       // store input as XML
       boolean ok = true;
@@ -216,6 +253,31 @@ public final class DirParser extends Parser {
     if(Prop.debug && (++resources & 0x3FF) == 0) Util.err(";");
   }
 
+  /**
+   * Waits until the first pending resource has been parsed and adds it to the builder.
+   * @param builder builder instance
+   * @throws IOException I/O exception
+   */
+  private void merge(final Builder builder) throws IOException {
+    final Resource resource = pending.poll();
+    final MemData data;
+    try {
+      data = resource.data.get();
+    } catch(final InterruptedException ex) {
+      throw new IOException(ex);
+    } catch(final ExecutionException ex) {
+      final Throwable cause = ex.getCause();
+      if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if(cause instanceof Error) throw (Error) cause;
+      if(!skipCorrupt) throw cause instanceof IOException ? (IOException) cause :
+        new IOException(cause);
+      Util.debug(cause);
+      skipped.add(resource.path);
+      return;
+    }
+    new BuilderSerializer(builder).serialize(new DBNode(data));
+  }
+
   @Override
   public String info() {
     final TokenBuilder tb = new TokenBuilder();
@@ -249,4 +311,22 @@ public final class DirParser extends Parser {
   public void close() throws IOException {
     if(parser != null) parser.close();
   }
+
+  /** Resource that is parsed in parallel. */
+  private static final class Resource {
+    /** Path to the original input. */
+    private final String path;
+    /** Parsed data. */
+    private final Future<MemData> data;
+
+    /**
+     * Constructor.
+     * @param path path to the original input
+     * @param data parsed data
+     */
+    Resource(final String path, final Future<MemData> data) {
+      this.path = path;
+      this.data = data;
+    }
+  }
 }
@@ -70,8 +70,13 @@ public final class DiskBuilder extends Builder {
     try {
       try {
         tout = new DataOutput(new TableOutput(meta, DATATBL));
-        xout = new DataOutput(meta.dbFile(DATATXT), bs);
-        vout = new DataOutput(meta.dbFile(DATAATV), bs);
+        if(meta.compresstexts) {
+          xout = new DataOutput(new BlockOutput(meta.dbFile(DATATXZ), bs));
+          vout = new DataOutput(new BlockOutput(meta.dbFile(DATAATZ), bs));
+        } else {
+          xout = new DataOutput(meta.dbFile(DATATXT), bs);
+          vout = new DataOutput(meta.dbFile(DATAATV), bs);
+        }
         sout = new DataOutput(meta.dbFile(DATATMP), bs);
         parse();
       } finally {
@@ -165,8 +170,8 @@ public final class DiskBuilder extends Builder {
     final long inlined = Inline.pack(value);
     if(inlined != 0) return inlined;
 
-    // store text to heap file
-    final byte[] packed = Compress.pack(value);
+    // store text to heap file (compressed blocks: skip compression of single texts)
+    final byte[] packed = meta.compresstexts ? value : Compress.pack(value);
     final DataOutput store = text ? xout : vout;
     final long offset = store.size();
     store.writeToken(packed);
@@ -71,6 +71,8 @@ public final class MainOptions extends Options {
 
   /** Cache new documents before adding them to a database. */
   public static final BooleanOption ADDCACHE = new BooleanOption("ADDCACHE", false);
+  /** Number of threads for parsing documents and building index structures. */
+  public static final NumberOption CREATEPARALLEL = new NumberOption("CREATEPARALLEL", 1);
 
   // Indexing
 
@@ -100,6 +102,10 @@ public final class MainOptions extends Options {
   public static final BooleanOption UPDINDEX = new BooleanOption("UPDINDEX", false);
   /** Flag for automatic index updates. */
   public static final BooleanOption AUTOOPTIMIZE = new BooleanOption("AUTOOPTIMIZE", false);
+  /** Flag for memory-mapped, unsynchronized reads of the database table and value indexes. */
+  public static final BooleanOption MAPTABLE = new BooleanOption("MAPTABLE", false);
+  /** Flag for storing texts and attribute values in compressed blocks. */
+  public static final BooleanOption COMPRESSTEXTS = new BooleanOption("COMPRESSTEXTS", false);
   /** Index split size. */
   public static final NumberOption SPLITSIZE = new NumberOption("SPLITSIZE", 0);
 
@@ -130,6 +136,14 @@ public final class MainOptions extends Options {
   public static final NumberOption UNROLLLIMIT = new NumberOption("UNROLLLIMIT", 5);
   /** Flag for tail-call optimization. */
   public static final NumberOption TAILCALLS = new NumberOption("TAILCALLS", 256);
+  /** Maximum number of items or tuples to be sorted in main memory (0: no limit). */
+  public static final NumberOption SORTLIMIT = new NumberOption("SORTLIMIT", 0);
+  /** Maximum number of groups to be kept in main memory (0: no limit). */
+  public static final NumberOption GROUPLIMIT = new NumberOption("GROUPLIMIT", 0);
+  /** Evaluate independent map, filter and for operations in parallel. */
+  public static final BooleanOption PARALLELEVAL = new BooleanOption("PARALLELEVAL", false);
+  /** Minimum number of items to be processed in parallel. */
+  public static final NumberOption PARALLELSIZE = new NumberOption("PARALLELSIZE", 10000);
   /** Look up documents in databases. */
   public static final BooleanOption WITHDB = new BooleanOption("WITHDB", true);
   /** Favor global database when opening resources. */
@@ -140,6 +154,9 @@ public final class MainOptions extends Options {
   public static final BooleanOption CHECKSTRINGS = new BooleanOption("CHECKSTRINGS", true);
   /** Levenshtein default error. */
   public static final NumberOption LSERROR = new NumberOption("LSERROR", 0);
+  /** Scoring model for full-text index results. */
+  public static final EnumOption<FTScoring> FTSCORING =
+      new EnumOption<>("FTSCORING", FTScoring.DEFAULT);
   /** Runs the query results, or only parses it. */
   public static final BooleanOption RUNQUERY = new BooleanOption("RUNQUERY", true);
   /** Number of query executions. */
@@ -172,6 +189,8 @@ public final class MainOptions extends Options {
 
   /** Flushes the database after each update. */
   public static final BooleanOption AUTOFLUSH = new BooleanOption("AUTOFLUSH", true);
+  /** Appends updates to a journal instead of flushing the database after each update. */
+  public static final BooleanOption JOURNAL = new BooleanOption("JOURNAL", false);
   /** Writes original files back after updates. */
   public static final BooleanOption WRITEBACK = new BooleanOption("WRITEBACK", false);
   /** Maximum number of index occurrences to print. */
@@ -182,14 +201,15 @@ public final class MainOptions extends Options {
   /** Indexing options. */
   public static final Option<?>[] INDEXING = { MAXCATS, MAXLEN, SPLITSIZE, LANGUAGE, STOPWORDS,
     TEXTINDEX, ATTRINDEX, TOKENINDEX, FTINDEX, TEXTINCLUDE, ATTRINCLUDE, TOKENINCLUDE, FTINCLUDE,
-    STEMMING, CASESENS, DIACRITICS, UPDINDEX, AUTOOPTIMIZE };
+    STEMMING, CASESENS, DIACRITICS, UPDINDEX, AUTOOPTIMIZE, MAPTABLE, COMPRESSTEXTS };
 
   /** XML Parsing options. */
   private static final Option<?>[] XMLPARSING = { INTPARSE, STRIPWS, STRIPNS, DTD, XINCLUDE,
       CATALOG };
   /** Extended parsing options. */
   public static final Option<?>[] EXTPARSING = { CREATEFILTER, ADDARCHIVES, ARCHIVENAME,
-      SKIPCORRUPT, ADDRAW, ADDCACHE, CSVPARSER, TEXTPARSER, JSONPARSER, HTMLPARSER, PARSER };
+      SKIPCORRUPT, ADDRAW, ADDCACHE, CREATEPARALLEL, CSVPARSER, TEXTPARSER, JSONPARSER,
+      HTMLPARSER, PARSER };
   /** All parsing options. */
   public static final Option<?>[] PARSING = Stream.concat(Stream.of(XMLPARSING),
       Stream.of(EXTPARSING)).toArray(Option<?>[]::new);
@@ -209,6 +229,17 @@ public final class MainOptions extends Options {
     }
   }
 
+  /** Full-text scoring model. */
+  public enum FTScoring {
+    /** Default. */ DEFAULT,
+    /** BM25.    */ BM25;
+
+    @Override
+    public String toString() {
+      return name().toLowerCase(Locale.ENGLISH);
+    }
+  }
+
   /** Java wrapper. */
   public enum WrapOptions {
     /** INSTANCE. */ INSTANCE,
@@ -32,6 +32,10 @@ public final class StaticOptions extends Options {
   public static final BooleanOption FAIRLOCK = new BooleanOption("FAIRLOCK", false);
   /** Timeout (seconds) for remembering result of asynchronous queries. */
   public static final NumberOption CACHETIMEOUT = new NumberOption("CACHETIMEOUT", 3600);
+  /** Maximum size of the buffers of all opened database files (MB). */
+  public static final NumberOption BUFFERPOOL = new NumberOption("BUFFERPOOL", 64);
+  /** Maximum number of parsed queries to be cached (0: disabled). */
+  public static final NumberOption QUERYCACHE = new NumberOption("QUERYCACHE", 0);
 
   /** Comment: written to the options file. */
   public static final Comment C_CLIENT = new Comment("Client/Server Architecture");
@@ -63,6 +67,12 @@ public final class StaticOptions extends Options {
   public static final NumberOption KEEPALIVE = new NumberOption("KEEPALIVE", 600);
   /** Defines the number of parallel readers. */
   public static final NumberOption PARALLEL = new NumberOption("PARALLEL", 8);
+  /** Server: maximum number of threads for processing client requests (including streaming). */
+  public static final NumberOption SERVERTHREADS = new NumberOption("SERVERTHREADS", 64);
+  /** Run client sessions, scheduled jobs and forked tasks on virtual threads (Java 21+). */
+  public static final BooleanOption VIRTUALTHREADS = new BooleanOption("VIRTUALTHREADS", false);
+  /** Number of threads for evaluating queries in parallel (0: number of processors). */
+  public static final NumberOption FORKJOINTHREADS = new NumberOption("FORKJOINTHREADS", 0);
   /** Logging flag. */
   public static final BooleanOption LOG = new BooleanOption("LOG", true);
   /** Log message cut-off. */
@@ -303,6 +303,8 @@ public interface Text {
   String TRY_MORE_X = lang("try_more_%", "'help'");
   /** Version information. */
   String VERSINFO = lang("version");
+  /** Fork/join pool. */
+  String FORKJOIN_POOL = lang("forkjoin_pool");
 
   /** Goodbye information. */
   String[] BYE = { lang("bye1"), lang("bye2"), lang("bye3"), lang("bye4") };
@@ -113,7 +113,7 @@ public final class CreateDB extends ACreate {
       }
 
       if(!update(data, () -> {
-        CreateIndex.create(data, CreateDB.this);
+        CreateIndex.create(data, options, CreateDB.this);
         return info(parser.info() + DB_CREATED_X_X, name, jc().performance);
       })) return false;
 
@@ -180,7 +180,7 @@ public final class CreateDB extends ACreate {
       data = Open.open(name, ctx, options);
     }
 
-    CreateIndex.create(data, null);
+    CreateIndex.create(data, options, null);
     return data;
   }
 
@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -60,6 +62,7 @@ public final class CreateIndex extends ACreate {
     }
     data.meta.names(type, options);
     data.meta.splitsize = options.get(MainOptions.SPLITSIZE);
+    data.meta.parallel = options.get(MainOptions.CREATEPARALLEL);
 
     return update(data, () -> {
       create(type, data, CreateIndex.this);
@@ -74,15 +77,58 @@ public final class CreateIndex extends ACreate {
 
   /**
    * Builds the index structures.
+   * If {@link MainOptions#CREATEPARALLEL} is greater than 1, the structures will be built
+   * concurrently.
    * @param data data reference
+   * @param options main options
    * @param cmd calling command
    * @throws IOException I/O exception
    */
-  static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+  static void create(final Data data, final MainOptions options, final ACreate cmd)
+      throws IOException {
+
+    final ArrayList<IndexType> types = new ArrayList<>(4);
+    if(data.meta.createtext) types.add(IndexType.TEXT);
+    if(data.meta.createattr) types.add(IndexType.ATTRIBUTE);
+    if(data.meta.createtoken) types.add(IndexType.TOKEN);
+    if(data.meta.createft) types.add(IndexType.FULLTEXT);
+
+    final int parallel = Math.min(options.get(MainOptions.CREATEPARALLEL), types.size());
+    if(parallel < 2) {
+      for(final IndexType type : types) create(type, data, cmd);
+      return;
+    }
+
+    // share memory budget between the builders
+    data.meta.builders = parallel;
+    final ExecutorService pool = Executors.newFixedThreadPool(parallel);
+    try {
+      final ArrayList<Future<?>> futures = new ArrayList<>(types.size());
+      for(final IndexType type : types) {
+        futures.add(pool.submit(() -> {
+          create(type, data, cmd);
+          return null;
+        }));
+      }
+      // wait for all builders, even if one of them failed
+      Throwable error = null;
+      for(final Future<?> future : futures) {
+        try {
+          future.get();
+        } catch(final InterruptedException ex) {
+          if(error == null) error = ex;
+        } catch(final ExecutionException ex) {
+          if(error == null) error = ex.getCause();
+        }
+      }
+      if(error instanceof IOException) throw (IOException) error;
+      if(error instanceof RuntimeException) throw (RuntimeException) error;
+      if(error instanceof Error) throw (Error) error;
+      if(error != null) throw new IOException(error);
+    } finally {
+      pool.shutdownNow();
+      data.meta.builders = 1;
+    }
   }
 
   /**
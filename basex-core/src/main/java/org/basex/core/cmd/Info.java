@@ -46,6 +46,7 @@ public final class Info extends AInfo {
 
     final User user = context.user();
     info(tb, USED_MEM, Performance.getMemory());
+    info(tb, FORKJOIN_POOL, context.jobs.forkJoinInfo());
 
     if(user.has(Perm.ADMIN)) {
       final StaticOptions sopts = context.soptions;
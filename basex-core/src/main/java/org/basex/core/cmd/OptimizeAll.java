@@ -134,7 +134,7 @@ public final class OptimizeAll extends ACreate {
     nmeta.time = ometa.time;
     nmeta.dirty = true;
     try {
-      CreateIndex.create(ndata, cmd);
+      CreateIndex.create(ndata, options, cmd);
     } catch(final Throwable th) {
       // index creation failed: delete temporary database
       DropDB.drop(tmpName, sopts);
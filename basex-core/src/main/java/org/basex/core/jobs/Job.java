@@ -66,7 +66,9 @@ public abstract class Job {
    * @return job
    */
   public final Job active() {
-    return children.isEmpty() ? this : children.get(0).active();
+    synchronized(children) {
+      return children.isEmpty() ? this : children.get(0).active();
+    }
   }
 
   /**
@@ -88,6 +90,14 @@ public abstract class Job {
     children.remove(children.size() - 1);
   }
 
+  /**
+   * Removes the specified job. Called if child jobs are run concurrently.
+   * @param job child job
+   */
+  public final void popJob(final Job job) {
+    children.remove(job);
+  }
+
   /**
    * Stops a job or sub job.
    */
@@ -30,6 +30,10 @@ public final class JobPool {
   final Timer timer = new Timer(true);
   /** Timeout (ms). */
   private final long timeout;
+  /** Number of threads of the fork/join pool. */
+  private final int threads;
+  /** Fork/join pool for evaluating queries in parallel (created on demand). */
+  private ForkJoinPool forkJoin;
 
   /**
    * Constructor.
@@ -37,6 +41,28 @@ public final class JobPool {
    */
   public JobPool(final StaticOptions sopts) {
     timeout = sopts.get(StaticOptions.CACHETIMEOUT) * 1000L;
+    final int fj = sopts.get(StaticOptions.FORKJOINTHREADS);
+    threads = fj > 0 ? Math.min(0x7FFF, fj) : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns the fork/join pool, which is shared by all queries that are evaluated in parallel.
+   * @return pool
+   */
+  public synchronized ForkJoinPool forkJoin() {
+    if(forkJoin == null) forkJoin = new ForkJoinPool(threads);
+    return forkJoin;
+  }
+
+  /**
+   * Returns information on the fork/join pool.
+   * @return info string
+   */
+  public synchronized String forkJoinInfo() {
+    final int active = forkJoin != null ? forkJoin.getActiveThreadCount() : 0;
+    final long queued = forkJoin != null ? forkJoin.getQueuedSubmissionCount() +
+        forkJoin.getQueuedTaskCount() : 0;
+    return Util.info("% threads, % active, % queued", threads, active, queued);
   }
 
   /**
@@ -64,6 +90,7 @@ public final class JobPool {
     timer.cancel();
     for(final Job job : active.values()) job.stop();
     while(!active.isEmpty()) Performance.sleep(1);
+    if(forkJoin != null) forkJoin.shutdownNow();
   }
 
   /**
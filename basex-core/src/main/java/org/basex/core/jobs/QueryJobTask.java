@@ -2,6 +2,9 @@ package org.basex.core.jobs;
 
 import java.util.*;
 
+import org.basex.core.*;
+import org.basex.util.*;
+
 /**
  * Scheduled job.
  *
@@ -49,6 +52,8 @@ public final class QueryJobTask extends TimerTask {
       cancel();
     }
     // skip execution if same job is still running
-    if(!jobs.active.containsKey(job.jc().id())) new Thread(job).start();
+    if(!jobs.active.containsKey(job.jc().id())) {
+      Threads.start(job, job.jc().context.soptions.get(StaticOptions.VIRTUALTHREADS));
+    }
   }
 }
@@ -21,26 +21,36 @@ final class FairLockQueue extends LockQueue {
   }
 
   @Override
-  synchronized void acquire(final Long id, final boolean read, final boolean write)
+  void acquire(final Long id, final boolean read, final boolean write)
       throws InterruptedException {
 
-    // add job id to queue and wait
-    if(jobs >= parallel) {
-      queue.add(id);
-
-      // loop until job is placed first
-      do {
-        wait();
-      } while(!id.equals(queue.peek()));
-
-      // remove job from queue
-      queue.remove(id);
+    lock.lock();
+    try {
+      // add job id to queue and wait
+      if(jobs >= parallel) {
+        queue.add(id);
+
+        // loop until job is placed first
+        do {
+          released.await();
+        } while(!id.equals(queue.peek()));
+
+        // remove job from queue
+        queue.remove(id);
+      }
+      jobs++;
+    } finally {
+      lock.unlock();
     }
-    jobs++;
   }
 
   @Override
-  public synchronized String toString() {
-    return "Jobs: " + jobs + ", queue: " + queue;
+  public String toString() {
+    lock.lock();
+    try {
+      return "Jobs: " + jobs + ", queue: " + queue;
+    } finally {
+      lock.unlock();
+    }
   }
 }
@@ -1,5 +1,7 @@
 package org.basex.core.locks;
 
+import java.util.concurrent.locks.*;
+
 /**
  * Lock queue.
  *
@@ -9,6 +11,10 @@ package org.basex.core.locks;
 abstract class LockQueue {
   /** Maximum number of parallel jobs. */
   protected final int parallel;
+  /** Lock for accessing the queue (monitors would pin virtual threads while waiting). */
+  protected final ReentrantLock lock = new ReentrantLock();
+  /** Condition for signaling completed jobs. */
+  protected final Condition released = lock.newCondition();
   /** Number of currently running jobs. */
   protected int jobs;
 
@@ -32,8 +38,13 @@ abstract class LockQueue {
   /**
    * Notifies other jobs that a job has been completed.
    */
-  synchronized void release() {
-    notifyAll();
-    jobs--;
+  final void release() {
+    lock.lock();
+    try {
+      released.signalAll();
+      jobs--;
+    } finally {
+      lock.unlock();
+    }
   }
 }
@@ -3,7 +3,6 @@ package org.basex.core.locks;
 import static org.basex.util.Prop.*;
 import static org.basex.util.Token.*;
 
-import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.locks.*;
 
@@ -23,6 +22,10 @@ import org.basex.util.list.*;
  *
  * Locks can only be released by the same thread which acquired it.
  *
+ * Waiting threads are suspended via {@link java.util.concurrent.locks} primitives instead of
+ * monitors. As a result, virtual threads will not be pinned to their carrier threads while
+ * waiting for locks (see {@link StaticOptions#VIRTUALTHREADS}).
+ *
  * Locking methods are not synchronized to each other. The user must make sure not to call them in
  * parallel by the same thread (it is fine to call arbitrary locking methods by different threads at
  * the same time).
@@ -56,9 +59,12 @@ public final class Locking {
   /** Global lock: exclusive lock for global writes, shared lock otherwise. */
   private final ReentrantReadWriteLock globalLocks;
   /** Stores one lock for each lock string. */
-  private final Map<String, LocalReadWriteLock> localLocks = new HashMap<>();
-  /** Lock object for queuing local writes and global reads. */
-  private final Object globalLock = new Object();
+  private final ConcurrentMap<String, LocalReadWriteLock> localLocks =
+      new ConcurrentHashMap<>();
+  /** Lock for queuing local writes and global reads. */
+  private final ReentrantLock globalLock = new ReentrantLock();
+  /** Condition for signaling changes of local writers and global readers. */
+  private final Condition globalChange = globalLock.newCondition();
 
   /** Number of running local writers. */
   private int localWriters;
@@ -112,17 +118,20 @@ public final class Locking {
     // apply exclusive lock (global write), or shared lock otherwise
     if(lock) (writes.global() ? globalLocks.writeLock() : globalLocks.readLock()).lock();
 
-    synchronized(globalLock) {
+    globalLock.lock();
+    try {
       // local write locks: wait for completion of global readers
       if(writes.local()) {
-        while(globalReaders > 0) globalLock.wait();
+        while(globalReaders > 0) globalChange.await();
         localWriters++;
       }
       // global read lock: wait for completion of local writers (excluding the current job)
       if(reads.global()) {
-        while(localWriters > 1 || localWriters == 1 && !writes.local()) globalLock.wait();
+        while(localWriters > 1 || localWriters == 1 && !writes.local()) globalChange.await();
         globalReaders++;
       }
+    } finally {
+      globalLock.unlock();
     }
 
     // assign locks in sorted order (to ensure that write locks will be assigned first)
@@ -150,19 +159,15 @@ public final class Locking {
     for(final String string : reads) unpin(string).readLock().unlock();
     for(final String string : writes) unpin(string).writeLock().unlock();
 
-    // allow next global reader to resume
-    synchronized(globalLock) {
-      if(reads.global()) {
-        globalReaders--;
-        globalLock.notifyAll();
-      }
-    }
-
-    // allow next local writer to resume
-    synchronized(globalLock) {
-      if(writes.local()) {
-        localWriters--;
-        globalLock.notifyAll();
+    // allow next global reader and local writer to resume
+    if(reads.global() || writes.local()) {
+      globalLock.lock();
+      try {
+        if(reads.global()) globalReaders--;
+        if(writes.local()) localWriters--;
+        globalChange.signalAll();
+      } finally {
+        globalLock.unlock();
       }
     }
 
@@ -179,12 +184,11 @@ public final class Locking {
    * @return lock
    */
   private LocalReadWriteLock pin(final String string) {
-    synchronized(localLocks) {
-      final LocalReadWriteLock lock = localLocks.computeIfAbsent(string,
-          k -> new LocalReadWriteLock(fair));
+    return localLocks.compute(string, (k, v) -> {
+      final LocalReadWriteLock lock = v != null ? v : new LocalReadWriteLock(fair);
       lock.pin();
       return lock;
-    }
+    });
   }
 
   /**
@@ -193,11 +197,9 @@ public final class Locking {
    * @return lock
    */
   private LocalReadWriteLock unpin(final String string) {
-    synchronized(localLocks) {
-      final LocalReadWriteLock lock = localLocks.get(string);
-      if(lock.unpin()) localLocks.remove(string);
-      return lock;
-    }
+    final LocalReadWriteLock lock = localLocks.get(string);
+    localLocks.computeIfPresent(string, (k, v) -> v.unpin() ? null : v);
+    return lock;
   }
 
   /**
@@ -220,10 +222,8 @@ public final class Locking {
     final String in = "| ";
     sb.append(in).append(queue).append(NL);
     sb.append(in).append("Held locks by object:").append(NL);
-    synchronized(localLocks) {
-      localLocks.forEach((key, value) ->
-        sb.append(in).append(in).append(key).append(" -> ").append(value).append(NL));
-    }
+    localLocks.forEach((key, value) ->
+      sb.append(in).append(in).append(key).append(" -> ").append(value).append(NL));
     sb.append(in).append("Held locks by job:").append(NL);
     locked.forEach((key, value) ->
       sb.append(in).append(in).append(key).append(" -> ").append(value).append(NL));
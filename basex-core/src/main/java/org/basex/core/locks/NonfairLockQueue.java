@@ -23,28 +23,38 @@ final class NonfairLockQueue extends LockQueue {
   }
 
   @Override
-  public synchronized void acquire(final Long id, final boolean read, final boolean write)
+  public void acquire(final Long id, final boolean read, final boolean write)
       throws InterruptedException {
 
-    // only wait if job is locking
-    if(jobs >= parallel && (read || write)) {
-      // add job id to queue and wait
-      final Queue<Long> queue = write ? writers : readers;
-      queue.add(id);
-
-      // loop until job is placed first (prefer readers)
-      do {
-        wait();
-      } while(jobs >= parallel || write && !readers.isEmpty() || !id.equals(queue.peek()));
-
-      // remove job from queue
-      queue.remove(id);
+    lock.lock();
+    try {
+      // only wait if job is locking
+      if(jobs >= parallel && (read || write)) {
+        // add job id to queue and wait
+        final Queue<Long> queue = write ? writers : readers;
+        queue.add(id);
+
+        // loop until job is placed first (prefer readers)
+        do {
+          released.await();
+        } while(jobs >= parallel || write && !readers.isEmpty() || !id.equals(queue.peek()));
+
+        // remove job from queue
+        queue.remove(id);
+      }
+      jobs++;
+    } finally {
+      lock.unlock();
     }
-    jobs++;
   }
 
   @Override
-  public synchronized String toString() {
-    return "Jobs: " + jobs + ", queued readers: " + readers + ", queued writers: " + writers;
+  public String toString() {
+    lock.lock();
+    try {
+      return "Jobs: " + jobs + ", queued readers: " + readers + ", queued writers: " + writers;
+    } finally {
+      lock.unlock();
+    }
   }
 }
@@ -34,6 +34,10 @@ public interface DataText {
   String DBUPDIDX = "UPDINDEX";
   /** Automatic optimization. */
   String DBAUTOOPT = "AUTOOPT";
+  /** Memory-mapped table. */
+  String DBMAPTBL = "MAPTABLE";
+  /** Compressed texts. */
+  String DBCMPTXT = "COMPRESSTEXTS";
   /** Text index. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute index. */
@@ -50,6 +54,12 @@ public interface DataText {
   String DBTOKINC = "TOKINC";
   /** Full-text index: names. */
   String DBFTXINC = "FTXINC";
+  /** Full-text index: number of indexed texts. */
+  String DBFTXTEXTS = "FTXTEXTS";
+  /** Full-text index: total length of indexed texts. */
+  String DBFTXLEN = "FTXLEN";
+  /** Full-text index: posting lists with skip pointers. */
+  String DBFTXBLK = "FTXBLOCKS";
   /** Full-text stemming. */
   String DBFTST = "FTSTEM";
   /** Full-text language. */
@@ -102,6 +112,10 @@ public interface DataText {
   String DATATXT = "txt";
   /** Database - Attribute value index. */
   String DATAATV = "atv";
+  /** Database - Compressed texts. */
+  String DATATXZ = "txz";
+  /** Database - Compressed attribute values. */
+  String DATAATZ = "atz";
   /** Database - Token index. */
   String DATATOK = "tok";
   /** Database - Full-text index. */
@@ -114,6 +128,8 @@ public interface DataText {
   String DATAPTH = "pth";
   /** Database - ID-PRE mapping. */
   String DATAIDP = "idp";
+  /** Database - Journal. */
+  String DATAJNL = "jnl";
 
   // XML SERIALIZATION ============================================================================
 
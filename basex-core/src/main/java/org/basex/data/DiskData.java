@@ -16,6 +16,7 @@ import org.basex.index.path.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
@@ -47,15 +48,20 @@ import org.basex.util.*;
  *   - NOT COMPRESSED: return external text unchanged
  * </pre>
  *
+ * If {@link MetaData#compresstexts} is enabled, the external texts of the initial database
+ * will be stored in compressed blocks (see {@link TextAccess}).
+ *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
  * @author Tim Petrowsky
  */
 public final class DiskData extends Data {
   /** Texts access file. */
-  private DataAccess texts;
+  private TextAccess texts;
   /** Values access file. */
-  private DataAccess values;
+  private TextAccess values;
+  /** Journal ({@code null} if no updates have been journaled since the last checkpoint). */
+  private Journal journal;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -65,6 +71,12 @@ public final class DiskData extends Data {
   public DiskData(final MetaData meta) throws IOException {
     super(meta);
 
+    // replay journaled updates (skipped if the database is opened by another process)
+    final IOFile jnl = meta.dbFile(DATAJNL);
+    if(jnl.exists() && !TableDiskAccess.locked(meta.dbFile(DATATBL))) {
+      Util.debug("%: % journal records replayed.", meta.name, Journal.replay(jnl));
+    }
+
     try(DataInput in = new DataInput(meta.dbFile(DATAINF))) {
       meta.read(in);
       while(true) {
@@ -123,8 +135,8 @@ public final class DiskData extends Data {
    */
   private void init() throws IOException {
     table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbFile(DATATXT));
-    values = new DataAccess(meta.dbFile(DATAATV));
+    texts = new TextAccess(meta.dbFile(DATATXT), meta.dbFile(DATATXZ), meta.buffers);
+    values = new TextAccess(meta.dbFile(DATAATV), meta.dbFile(DATAATZ), meta.buffers);
   }
 
   /**
@@ -135,23 +147,32 @@ public final class DiskData extends Data {
     if(!meta.dirty) return;
 
     try(DataOutput out = new DataOutput(meta.dbFile(DATAINF))) {
-      meta.write(out);
-      out.writeToken(token(DBTAGS));
-      elemNames.write(out);
-      out.writeToken(token(DBATTS));
-      attrNames.write(out);
-      out.writeToken(token(DBPATH));
-      paths.write(out);
-      out.writeToken(token(DBNS));
-      nspaces.write(out);
-      out.writeToken(token(DBDOCS));
-      resources.write(out);
-      out.write(0);
+      write(out);
     }
     if(meta.updindex) idmap.write(meta.dbFile(DATAIDP));
     meta.dirty = false;
   }
 
+  /**
+   * Writes the meta data, names, paths, namespaces and resources to the specified output.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out) throws IOException {
+    meta.write(out);
+    out.writeToken(token(DBTAGS));
+    elemNames.write(out);
+    out.writeToken(token(DBATTS));
+    attrNames.write(out);
+    out.writeToken(token(DBPATH));
+    paths.write(out);
+    out.writeToken(token(DBNS));
+    nspaces.write(out);
+    out.writeToken(token(DBDOCS));
+    resources.write(out);
+    out.write(0);
+  }
+
   @Override
   public synchronized void close() {
     if(closed) return;
@@ -165,6 +186,7 @@ public final class DiskData extends Data {
       close(IndexType.ATTRIBUTE);
       close(IndexType.TOKEN);
       close(IndexType.FULLTEXT);
+      if(journal != null) journal.reset();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -197,7 +219,7 @@ public final class DiskData extends Data {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
   }
 
@@ -239,15 +261,20 @@ public final class DiskData extends Data {
     // OPTIMIZE ALL will close the database before this function is called
     if(closed) return;
 
-    // remove updating file
+    // journal updates before removing the updating file
     final boolean auto = opts.get(MainOptions.AUTOFLUSH);
+    final boolean jnl = auto && opts.get(MainOptions.JOURNAL);
+    if(jnl) journal();
+
+    // remove updating file
     if(auto) {
       final IOFile upd = meta.updateFile();
       if(!upd.exists()) throw Util.notExpected("%: lock file does not exist.", meta.name);
       if(!upd.delete()) throw Util.notExpected("%: could not delete lock file.", meta.name);
     }
 
-    flush(auto);
+    // journaling has been turned off: write journaled updates to the database files
+    if(!jnl) flush(auto || journal != null);
     if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
   }
 
@@ -261,7 +288,43 @@ public final class DiskData extends Data {
         values.flush();
         if(textIndex != null) textIndex.flush();
         if(attrIndex != null) attrIndex.flush();
+        if(ftIndex != null) ftIndex.flush();
+        // all journaled updates have been written to the database files
+        if(journal != null) {
+          journal.reset();
+          journal = null;
+          table.journal(null);
+        }
+      }
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Appends the modified table pages and meta data to the journal. Texts and indexes are
+   * written in place. If the journal gets too large, all updates are flushed (checkpoint).
+   */
+  private void journal() {
+    try {
+      texts.flush();
+      values.flush();
+      if(textIndex != null) textIndex.flush();
+      if(attrIndex != null) attrIndex.flush();
+      if(ftIndex != null) ftIndex.flush();
+
+      if(journal == null) journal = new Journal(meta.dbFile(DATAJNL));
+      table.journal(journal);
+      if(meta.dirty) {
+        final ArrayOutput ao = new ArrayOutput();
+        try(DataOutput out = new DataOutput(ao)) {
+          write(out);
+        }
+        journal.add(meta.dbFile(DATAINF), -1, ao.finish());
+        if(meta.updindex) idmap.write(meta.dbFile(DATAIDP));
       }
+      journal.commit();
+      if(journal.size() > Journal.MAX) flush(true);
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -290,10 +353,11 @@ public final class DiskData extends Data {
     final long value = textRef(pre);
     if(Inline.inlined(value)) return Inline.unpackLength(value);
 
-    final DataAccess da = text ? texts : values;
-    final int l = da.readNum(value & Compress.COMPRESS - 1);
+    final TextAccess ta = text ? texts : values;
+    final long pos = value & Compress.COMPRESS - 1;
+    final int l = ta.readNum(pos);
     // if text is compressed, read number of compressed bytes
-    return Compress.compressed(value) ? da.readNum() : l;
+    return Compress.compressed(value) ? ta.readNum(pos + Num.length(l)) : l;
   }
 
   /**
@@ -328,7 +392,7 @@ public final class DiskData extends Data {
     indexDelete(pre, -1, 1);
 
     // reference to heap file
-    final DataAccess store = kind == ATTR ? values : texts;
+    final TextAccess store = kind == ATTR ? values : texts;
     // old entry (offset or value)
     final long oldRef = textRef(pre);
 
@@ -370,7 +434,7 @@ public final class DiskData extends Data {
 
     // store text in heap file
     final byte[] packed = Compress.pack(value);
-    final DataAccess store = text ? texts : values;
+    final TextAccess store = text ? texts : values;
     final long offset = store.length();
     store.writeToken(offset, packed);
     return packed == value ? offset : Compress.COMPRESS | offset;
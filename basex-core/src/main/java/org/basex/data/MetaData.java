@@ -14,6 +14,7 @@ import org.basex.index.resource.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.ft.*;
 import org.basex.util.list.*;
@@ -50,6 +51,10 @@ public final class MetaData {
   public boolean updindex;
   /** Flag for automatic index updating. */
   public boolean autooptimize;
+  /** Flag for reading the table via memory mapping. */
+  public boolean maptable;
+  /** Flag for storing texts in compressed blocks. */
+  public boolean compresstexts;
 
   /** Indicates if the text index is to be recreated. */
   public boolean createtext;
@@ -67,6 +72,12 @@ public final class MetaData {
   public String tokeninclude;
   /** Full-text index: names to include. */
   public String ftinclude;
+  /** Full-text index: number of indexed texts (used for scoring). */
+  public int fttexts;
+  /** Full-text index: total length of indexed texts (used for scoring). */
+  public long ftlength;
+  /** Full-text index: posting lists are stored in blocks with skip pointers. */
+  public boolean ftblocks;
 
   /** Flag for full-text stemming. */
   public boolean stemming;
@@ -83,6 +94,10 @@ public final class MetaData {
   public int maxlen;
   /** Split size for creating indexes. */
   public int splitsize;
+  /** Number of threads for creating indexes (not stored in the database). */
+  public int parallel;
+  /** Number of index structures that are built concurrently (not stored in the database). */
+  public int builders = 1;
 
   /** Language of full-text search index. */
   public Language language;
@@ -99,6 +114,9 @@ public final class MetaData {
   /** Last (highest) id assigned to a node. Can be {@code -1} if database is empty. */
   public int lastid = -1;
 
+  /** Buffer statistics. */
+  public final BufferStats buffers = new BufferStats();
+
   /** Database directory. Set to {@code null} if database is in main memory. */
   private final IOFile dir;
   /** Flag for out-of-date indexes. */
@@ -140,6 +158,8 @@ public final class MetaData {
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    maptable = options.get(MainOptions.MAPTABLE);
+    compresstexts = options.get(MainOptions.COMPRESSTEXTS);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
@@ -149,6 +169,7 @@ public final class MetaData {
     tokeninclude = options.get(MainOptions.TOKENINCLUDE);
     ftinclude = options.get(MainOptions.FTINCLUDE);
     splitsize = options.get(MainOptions.SPLITSIZE);
+    parallel = options.get(MainOptions.CREATEPARALLEL);
   }
 
   // STATIC METHODS ===============================================================================
@@ -407,6 +428,8 @@ public final class MetaData {
         case DBFTDC:     diacritics = toBoolean(v); break;
         case DBUPDIDX:   updindex = toBoolean(v); break;
         case DBAUTOOPT:  autooptimize = toBoolean(v); break;
+        case DBMAPTBL:   maptable = toBoolean(v); break;
+        case DBCMPTXT:   compresstexts = toBoolean(v); break;
         case DBTXTIDX:   textindex = toBoolean(v); break;
         case DBATVIDX:   attrindex = toBoolean(v); break;
         case DBTOKIDX:   tokenindex = toBoolean(v); break;
@@ -415,6 +438,9 @@ public final class MetaData {
         case DBATVINC:   attrinclude = v; break;
         case DBTOKINC:   tokeninclude = v; break;
         case DBFTXINC:   ftinclude = v; break;
+        case DBFTXTEXTS: fttexts = toInt(v); break;
+        case DBFTXLEN:   ftlength = toLong(v); break;
+        case DBFTXBLK:   ftblocks = toBoolean(v); break;
         case DBSPLITS:   splitsize = toInt(v); break;
         case DBCRTTXT:   createtext = toBoolean(v); break;
         case DBCRTATV:   createattr = toBoolean(v); break;
@@ -450,6 +476,8 @@ public final class MetaData {
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBUPDIDX,   updindex);
     writeInfo(out, DBAUTOOPT,  autooptimize);
+    writeInfo(out, DBMAPTBL,   maptable);
+    writeInfo(out, DBCMPTXT,   compresstexts);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBTOKIDX,   tokenindex);
@@ -458,6 +486,9 @@ public final class MetaData {
     writeInfo(out, DBATVINC,   attrinclude);
     writeInfo(out, DBTOKINC,   tokeninclude);
     writeInfo(out, DBFTXINC,   ftinclude);
+    writeInfo(out, DBFTXTEXTS, fttexts);
+    writeInfo(out, DBFTXLEN,   ftlength);
+    writeInfo(out, DBFTXBLK,   ftblocks);
     writeInfo(out, DBSPLITS,   splitsize);
     writeInfo(out, DBCRTTXT,   createtext);
     writeInfo(out, DBCRTATV,   createattr);
@@ -487,8 +518,8 @@ public final class MetaData {
       textindex = false;
       attrindex = false;
       tokenindex = false;
+      ftindex = false;
     }
-    ftindex = false;
   }
 
   /**
@@ -60,6 +60,16 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.uptodate; }
   },
   /** Property. */
+  BUFFERHITS(false) {
+    @Override
+    public Long value(final MetaData meta) { return meta.buffers.hits(); }
+  },
+  /** Property. */
+  BUFFERMISSES(false) {
+    @Override
+    public Long value(final MetaData meta) { return meta.buffers.misses(); }
+  },
+  /** Property. */
   INPUTPATH(false) {
     @Override
     public String value(final MetaData meta) { return meta.original; }
@@ -151,6 +161,16 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.autooptimize; }
   },
   /** Property. */
+  MAPTABLE(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.maptable; }
+  },
+  /** Property. */
+  COMPRESSTEXTS(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.compresstexts; }
+  },
+  /** Property. */
   MAXCATS(true) {
     @Override
     public Integer value(final MetaData meta) { return meta.maxcats; }
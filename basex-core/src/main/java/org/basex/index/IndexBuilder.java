@@ -55,7 +55,9 @@ public abstract class IndexBuilder extends Job {
   protected IndexBuilder(final Data data, final IndexType type) {
     this.data = data;
     this.type = type;
-    splitSize = (int) Math.min(Integer.MAX_VALUE, (long) data.meta.splitsize * splitFactor());
+    // the split size is divided by the number of index structures that are built concurrently
+    splitSize = (int) Math.min(Integer.MAX_VALUE,
+        (long) data.meta.splitsize * splitFactor() / data.meta.builders);
     size = data.meta.size;
     includeNames = new IndexNames(type, data);
     text = type == IndexType.TEXT || type == IndexType.FULLTEXT;
@@ -86,7 +88,16 @@ public abstract class IndexBuilder extends Job {
    * @return result of check
    */
   protected final boolean indexEntry() {
-    return data.kind(pre) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pre, text);
+    return indexEntry(pre);
+  }
+
+  /**
+   * Checks if the entry with the specified pre value should be indexed.
+   * @param p pre value
+   * @return result of check
+   */
+  protected final boolean indexEntry(final int p) {
+    return data.kind(p) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(p, text);
   }
 
   /**
@@ -117,6 +128,31 @@ public abstract class IndexBuilder extends Job {
     return split;
   }
 
+  /**
+   * Decides whether the in-memory temporary index structure of a partition is so large
+   * that it must be flushed to disk. Called by builders that index partitions in parallel.
+   * @param cnt number of index operations since the structure was last flushed
+   * @param checks number of checks since the structure was last flushed
+   *   ({@code -1}: structure has not been flushed yet)
+   * @param parts number of partitions
+   * @return true if the structure shall be flushed to disk
+   * @throws IOException I/O Exception
+   */
+  protected final boolean splitRequired(final long cnt, final int checks, final int parts)
+      throws IOException {
+    final boolean split;
+    if(splitSize > 0) {
+      split = cnt >= Math.max(1, splitSize / parts);
+    } else {
+      split = cnt > 0 && Performance.memory() >= maxMem;
+      // stop operation if index splitting degenerates
+      if(split && checks >= 0 && checks <= 30)
+        throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
+    }
+    if(split && Prop.debug) Util.err("|");
+    return split;
+  }
+
   /**
    * Performs memory cleanup after writing partial memory if necessary.
    */
@@ -158,9 +194,17 @@ public abstract class IndexBuilder extends Job {
     return CREATING_INDEXES;
   }
 
+  /**
+   * Returns the number of processed nodes.
+   * @return number of processed nodes
+   */
+  protected int processed() {
+    return pre;
+  }
+
   @Override
   public final double progressInfo() {
-    return pre / (size + (splits > 0 ? size / 50.0d : 0.0d));
+    return processed() / (size + (splits > 0 ? size / 50.0d : 0.0d));
   }
 
   @Override
@@ -3,12 +3,11 @@ package org.basex.index;
 import static org.basex.util.Token.*;
 
 import java.lang.ref.*;
-import java.util.concurrent.locks.*;
-
-import org.basex.util.*;
+import java.util.concurrent.*;
 
 /**
  * This class caches sizes and offsets from index results.
+ * Entries are softly referenced, and lookups can be performed without locking.
  *
  * @author BaseX Team 2005-23, BSD License
  * @author Dimitar Popov
@@ -16,12 +15,8 @@ import org.basex.util.*;
 public final class IndexCache {
   /** Queue used to collect unused keys. */
   private final ReferenceQueue<IndexEntry> queue = new ReferenceQueue<>();
-  /** Read-write lock. */
-  private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock(true);
-  /** Hash table buckets. */
-  private BucketEntry[] buckets = new BucketEntry[Array.INITIAL_CAPACITY];
-  /** Number of entries in the cache. */
-  private int size;
+  /** Cached entries. */
+  private final ConcurrentHashMap<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
 
   /**
    * Gets cached entry for the specified key.
@@ -29,21 +24,8 @@ public final class IndexCache {
    * @return cached entry or {@code null} if the entry is stale
    */
   public IndexEntry get(final byte[] key) {
-    final int hash = hash(key);
-    rwl.readLock().lock();
-
-    try {
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry e = buckets[i];
-      while(e != null) {
-        final IndexEntry entry = e.get();
-        if(entry != null && e.hash == hash && eq(entry.key, key)) return entry;
-        e = e.next;
-      }
-    } finally {
-      rwl.readLock().unlock();
-    }
-    return null;
+    final CacheEntry e = entries.get(new CacheKey(key));
+    return e != null ? e.get() : null;
   }
 
   /**
@@ -55,32 +37,23 @@ public final class IndexCache {
    * @return cache entry
    */
   public IndexEntry add(final byte[] key, final int count, final long offset) {
-    final int hash = hash(key);
-    rwl.writeLock().lock();
-
-    try {
-      purge();
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry current = buckets[i], prev = current;
-      while(current != null) {
-        final BucketEntry next = current.next;
-        final IndexEntry entry = current.get();
-        if(entry == null) {
-          delete(i, current, prev, next);
-        } else if(current.hash == hash && eq(entry.key, key)) {
-          update(entry, count, offset);
-          return entry;
-        }
-        prev = current;
-        current = next;
+    purge();
+    // strong reference to the returned entry, which may otherwise be reclaimed
+    final IndexEntry[] added = { null };
+    entries.compute(new CacheKey(key), (k, e) -> {
+      IndexEntry entry = e != null ? e.get() : null;
+      CacheEntry ce = e;
+      if(entry != null) {
+        entry.size = count;
+        entry.offset = offset;
+      } else {
+        entry = new IndexEntry(key, count, offset);
+        ce = new CacheEntry(k, entry, queue);
       }
-
-      final IndexEntry entry = new IndexEntry(key, count, offset);
-      add(i, hash, entry);
-      return entry;
-    } finally {
-      rwl.writeLock().unlock();
-    }
+      added[0] = entry;
+      return ce;
+    });
+    return added[0];
   }
 
   /**
@@ -88,28 +61,8 @@ public final class IndexCache {
    * @param key key
    */
   public void delete(final byte[] key) {
-    final int hash = hash(key);
-    rwl.writeLock().lock();
-
-    try {
-      purge();
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry e = buckets[i], prev = e;
-      while(e != null) {
-        final BucketEntry next = e.next;
-        final IndexEntry entry = e.get();
-        if(entry == null) {
-          delete(i, e, prev, next);
-        } else if(e.hash == hash && eq(entry.key, key)) {
-          delete(i, e, prev, next);
-          break;
-        }
-        prev = e;
-        e = next;
-      }
-    } finally {
-      rwl.writeLock().unlock();
-    }
+    purge();
+    entries.remove(new CacheKey(key));
   }
 
   /**
@@ -117,113 +70,56 @@ public final class IndexCache {
    */
   private void purge() {
     for(Object x; (x = queue.poll()) != null;) {
-      final BucketEntry e = (BucketEntry) x;
-      final int i = indexFor(e.hash, buckets.length);
-      BucketEntry prev = buckets[i], p = prev;
-      while(p != null) {
-        final BucketEntry next = p.next;
-        if(p == e) {
-          delete(i, e, prev, next);
-          break;
-        }
-        prev = p;
-        p = next;
-      }
+      final CacheEntry e = (CacheEntry) x;
+      entries.remove(e.key, e);
     }
   }
 
   /**
-   * Add a new index entry to the bucket with the specified index.
-   * @param i bucket index
-   * @param hash hash of the new index key
-   * @param entry index entry
+   * Key of a cache entry.
    */
-  private void add(final int i, final int hash, final IndexEntry entry) {
-    buckets[i] = new BucketEntry(hash, buckets[i], entry, queue);
-    if(++size == buckets.length) rehash();
-  }
-
-  /**
-   * Update an existing index entry.
-   * @param entry index entry to update
-   * @param size new size
-   * @param offset new offset
-   */
-  private static void update(final IndexEntry entry, final int size, final long offset) {
-    entry.size = size;
-    entry.offset = offset;
-  }
-
-  /**
-   * Deletes a cached entry from the buckets with the specified index.
-   * @param i buckets index
-   * @param e cached entry to delete
-   * @param p previous cache entry
-   * @param n next cache entry
-   */
-  private void delete(final int i, final BucketEntry e, final BucketEntry p, final BucketEntry n) {
-    if(p == e) buckets[i] = n;
-    else p.next = n;
-    e.next = null;
-    --size;
-  }
-
-  /**
-   * Resizes the hash table.
-   */
-  private void rehash() {
-    purge();
+  private static final class CacheKey {
+    /** Key. */
+    final byte[] key;
+    /** Hash code of the key. */
+    final int hash;
 
-    final int newSize = size << 1;
-    final BucketEntry[] tmp = new BucketEntry[newSize];
+    /**
+     * Constructor.
+     * @param key key
+     */
+    CacheKey(final byte[] key) {
+      this.key = key;
+      hash = hash(key);
+    }
 
-    final int l = buckets.length;
-    for(int i = 0; i < l; ++i) {
-      BucketEntry e = buckets[i];
-      buckets[i] = null;
-      while(e != null) {
-        final BucketEntry next = e.next;
-        final int p = indexFor(e.hash, tmp.length);
-        e.next = tmp[p];
-        tmp[p] = e;
-        e = next;
-      }
+    @Override
+    public int hashCode() {
+      return hash;
     }
-    buckets = tmp;
-  }
 
-  /**
-   * Returns buckets index for a hash code.
-   * @param h hash code
-   * @param n number of available buckets
-   * @return index of a buckets
-   */
-  private static int indexFor(final int h, final int n) {
-    return h & n - 1;
+    @Override
+    public boolean equals(final Object obj) {
+      return this == obj || obj instanceof CacheKey && eq(key, ((CacheKey) obj).key);
+    }
   }
 
   /**
-   * Cache buckets entry. Used to implement a linked list of cache entries for each bucket.
-   * It also stores the hash of the current entry for better performance.
+   * Cache entry. It also stores its key for removing the entry once it has been reclaimed.
    */
-  private static class BucketEntry extends SoftReference<IndexEntry> {
-    /** Hash code of the stored cache entry key. */
-    final int hash;
-    /** Next bucket entry or {@code null} if the last one for this bucket. */
-    BucketEntry next;
+  private static final class CacheEntry extends SoftReference<IndexEntry> {
+    /** Key of the stored cache entry. */
+    final CacheKey key;
 
     /**
      * Constructor.
-     * @param h hash code of the cache entry key
-     * @param n next buckets entry or {@code null} if the last one
+     * @param k key of the cache entry
      * @param v stored cache entry
      * @param rq reference queue
      */
-    BucketEntry(final int h, final BucketEntry n, final IndexEntry v,
-        final ReferenceQueue<IndexEntry> rq) {
+    CacheEntry(final CacheKey k, final IndexEntry v, final ReferenceQueue<IndexEntry> rq) {
       super(v, rq);
-      hash = h;
-      next = n;
+      key = k;
     }
   }
 }
@@ -9,6 +9,7 @@ import java.io.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.io.*;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 import org.basex.util.ft.*;
@@ -35,22 +36,32 @@ public final class FTBuilder extends IndexBuilder {
    */
   public FTBuilder(final Data data) throws IOException {
     super(data, IndexType.FULLTEXT);
-    final MetaData meta = data.meta;
     tree = new FTIndexTrees(data.meta.maxlen);
+    lexer = lexer(data, new StopWords(data, data.meta.stopwords));
+  }
 
+  /**
+   * Returns a lexer for the tokens of the full-text index.
+   * @param data data reference
+   * @param sw stop words
+   * @return lexer
+   * @throws BaseXException database exception
+   */
+  static FTLexer lexer(final Data data, final StopWords sw) throws BaseXException {
+    final MetaData meta = data.meta;
     final FTOpt fto = new FTOpt();
     fto.set(FTFlag.DC, meta.diacritics);
     fto.set(FTFlag.ST, meta.stemming);
     fto.cs = meta.casesens ? FTCase.SENSITIVE : FTCase.INSENSITIVE;
-    fto.sw = new StopWords(data, meta.stopwords);
-    fto.ln = data.meta.language;
+    fto.sw = sw;
+    fto.ln = meta.language;
 
     if(!Tokenizer.supportFor(fto.ln))
       throw new BaseXException(NO_TOKENIZER_X, fto.ln);
     if(meta.stemming && !Stemmer.supportFor(fto.ln))
       throw new BaseXException(NO_STEMMER_X, fto.ln);
 
-    lexer = new FTLexer(fto);
+    return new FTLexer(fto);
   }
 
   @Override
@@ -58,6 +69,13 @@ public final class FTBuilder extends IndexBuilder {
     Util.debug(detailedInfo());
 
     try {
+      // updatable index: store ids instead of pre values
+      final boolean updindex = data.meta.updindex;
+      // static index: store posting lists in blocks with skip pointers
+      data.meta.ftblocks = !updindex;
+      // statistics for scoring: number and total length of texts with indexed tokens
+      int texts = 0;
+      long length = 0;
       for(pre = 0; pre < size; ++pre) {
         if((pre & 0x0FFF) == 0) check();
         if(!indexEntry()) continue;
@@ -66,6 +84,7 @@ public final class FTBuilder extends IndexBuilder {
         final StopWords sw = lexer.ftOpt().sw;
         lexer.init(data.text(pre, true));
         int pos = -1;
+        boolean indexed = false;
         while(lexer.hasNext()) {
           final byte[] token = lexer.nextToken();
           ++pos;
@@ -76,14 +95,25 @@ public final class FTBuilder extends IndexBuilder {
               writeIndex(true);
               clean();
             }
-            tree.index(token, pre, pos, splits);
+            tree.index(token, updindex ? data.id(pre) : pre, pos, splits);
             count++;
+            indexed = true;
           }
         }
+        if(indexed) {
+          texts++;
+          length += data.textLen(pre, true);
+        }
       }
+      data.meta.fttexts = texts;
+      data.meta.ftlength = length;
 
       // finalize partial or all index structures
       write(splits > 0);
+      // create empty delta for updatable index, or delete obsolete delta
+      final IOFile delta = data.meta.dbFile(DATAFTX + 'd');
+      if(updindex) new FTDelta().write(delta);
+      else delta.delete();
 
       finishIndex();
       return new FTIndex(data);
@@ -144,7 +174,7 @@ public final class FTBuilder extends IndexBuilder {
         // pointer on full-text data
         outY.write5(outZ.size());
         // merge and write data size
-        outY.write4(merge(outZ, il, v));
+        outY.write4(merge(outZ, il, v, data.meta.ftblocks));
       }
       writeInd(outX, ind, ind.get(ind.size() - 2) + 1, (int) outY.size());
     }
@@ -158,7 +188,7 @@ public final class FTBuilder extends IndexBuilder {
    * @param lp last offset
    * @throws IOException I/O exception
    */
-  private static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
+  static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
       throws IOException {
 
     final int is = il.size();
@@ -203,7 +233,7 @@ public final class FTBuilder extends IndexBuilder {
         // write full-text data size (number of pre values)
         outY.write4(t.nextNumPre());
         // write compressed pre and pos arrays
-        writeFTData(outZ, t.nextPres(), t.nextPoss());
+        writeFTData(outZ, t.nextPres(), t.nextPoss(), !partial && data.meta.ftblocks);
 
         dr = outZ.size();
         tr = (int) outY.size();
@@ -221,11 +251,12 @@ public final class FTBuilder extends IndexBuilder {
    * @param out full-text data
    * @param il array mapping
    * @param list full-text list
+   * @param blocks write posting list in blocks
    * @return written size
    * @throws IOException I/O exception
    */
-  private static int merge(final DataOutput out, final IntList il, final FTList[] list)
-      throws IOException {
+  private static int merge(final DataOutput out, final IntList il, final FTList[] list,
+      final boolean blocks) throws IOException {
 
     final ByteList tbp = new ByteList().add(new byte[4]), tbo = new ByteList().add(new byte[4]);
     // merge full-text data of all sorted lists with the same token
@@ -245,23 +276,34 @@ public final class FTBuilder extends IndexBuilder {
     Num.size(po, po.length);
 
     // write full-text data
-    writeFTData(out, pr, po);
+    writeFTData(out, pr, po, blocks);
     return s;
   }
 
   /**
    * Writes full-text data for a single token to disk.
-   * Format: {@code score? pre1 pos1 pre2 pos2 ... (0 score)? pre...}
+   * Format: {@code score? pre1 pos1 pre2 pos2 ... (0 score)? pre...},
+   * or blocks with skip pointers (see {@link FTPostings}).
    * @param out DataOutput for disk access
    * @param vpre compressed pre values
    * @param vpos compressed pos values
+   * @param blocks write posting list in blocks
    * @throws IOException IOException
    */
-  private static void writeFTData(final DataOutput out, final byte[] vpre, final byte[] vpos)
-      throws IOException {
+  private static void writeFTData(final DataOutput out, final byte[] vpre, final byte[] vpos,
+      final boolean blocks) throws IOException {
 
     int np = 4, pp = 4;
     final int ns = Num.size(vpre);
+    if(blocks) {
+      final IntList pr = new IntList(), ps = new IntList();
+      for(; np < ns; np += Num.length(vpre, np), pp += Num.length(vpos, pp)) {
+        pr.add(Num.get(vpre, np));
+        ps.add(Num.get(vpos, pp));
+      }
+      FTPostings.write(out, pr, ps);
+      return;
+    }
     while(np < ns) {
       // full-text data is stored here, with -scoreU, pre1, pos1, ...,
       // -scoreU, preU, posU
@@ -0,0 +1,162 @@
+package org.basex.index.ft;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * Changes of an updatable full-text index that have not been merged with the index files yet.
+ * New entries are stored as lists of id/pos pairs, and the ids of deleted or updated text
+ * nodes are stored as tombstones, which hide the entries of these nodes in the index files.
+ * The delta is stored in the index file with the suffix {@code d}:
+ *
+ * <ul>
+ * <li>{@code [n, t0, s0, id0, pos0, ..., m, id0, id1, ...]}: {@code n} is the number of tokens,
+ *   {@code t} is the token, {@code s} is the number of id/pos pairs, {@code m} is the number of
+ *   tombstones.</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+final class FTDelta {
+  /** New entries: tokens and id/pos pairs (lists of deleted entries may be empty). */
+  final TokenObjMap<IntList> entries = new TokenObjMap<>();
+  /** Ids of text nodes whose entries in the index files are obsolete. */
+  final IntSet deleted = new IntSet();
+  /** Number of id/pos pairs. */
+  int size;
+  /** Indicates if the delta has been modified since it was read or written. */
+  boolean dirty;
+
+  /**
+   * Default constructor.
+   */
+  FTDelta() { }
+
+  /**
+   * Constructor, reading the delta from disk.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  FTDelta(final IOFile file) throws IOException {
+    try(DataInput in = new DataInput(file)) {
+      for(int t = in.readNum(); t > 0; t--) {
+        final byte[] token = in.readToken();
+        final int s = in.readNum() << 1;
+        final IntList list = new IntList(s);
+        for(int i = 0; i < s; i++) list.add(in.readNum());
+        entries.put(token, list);
+        size += s >> 1;
+      }
+      for(int d = in.readNum(); d > 0; d--) deleted.add(in.readNum());
+    }
+  }
+
+  /**
+   * Writes the delta to disk.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  void write(final IOFile file) throws IOException {
+    final TokenList tokens = tokens(EMPTY);
+    try(DataOutput out = new DataOutput(file)) {
+      out.writeNum(tokens.size());
+      for(final byte[] token : tokens) {
+        final IntList list = entries.get(token);
+        final int s = list.size();
+        out.writeToken(token);
+        out.writeNum(s >> 1);
+        for(int i = 0; i < s; i++) out.writeNum(list.get(i));
+      }
+      out.writeNum(deleted.size());
+      for(final int id : deleted.toArray()) out.writeNum(id);
+    }
+    dirty = false;
+  }
+
+  /**
+   * Adds an entry.
+   * @param token token
+   * @param id id of the text node
+   * @param pos position of the token
+   */
+  void add(final byte[] token, final int id, final int pos) {
+    entries.computeIfAbsent(token, () -> new IntList(2)).add(id).add(pos);
+    size++;
+    dirty = true;
+  }
+
+  /**
+   * Deletes an entry. The entries of the node in the index files are marked as obsolete.
+   * @param token token
+   * @param id id of the text node
+   * @param pos position of the token
+   */
+  void delete(final byte[] token, final int id, final int pos) {
+    deleted.add(id);
+    dirty = true;
+
+    final IntList list = entries.get(token);
+    if(list == null) return;
+    final int s = list.size();
+    for(int i = 0; i < s; i += 2) {
+      if(list.get(i) == id && list.get(i + 1) == pos) {
+        // replace entry with last entry
+        list.set(i, list.get(s - 2));
+        list.set(i + 1, list.get(s - 1));
+        list.size(s - 2);
+        size--;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of changes.
+   * @return number of new entries and tombstones
+   */
+  int changes() {
+    return size + deleted.size();
+  }
+
+  /**
+   * Returns the number of new entries for the specified token.
+   * @param token token
+   * @return number of entries
+   */
+  int size(final byte[] token) {
+    final IntList list = entries.get(token);
+    return list != null ? list.size() >> 1 : 0;
+  }
+
+  /**
+   * Returns the sorted tokens of the new entries (by length, then lexicographically).
+   * @param prefix prefix of the returned tokens
+   * @return tokens
+   */
+  TokenList tokens(final byte[] prefix) {
+    final TokenList list = new TokenList();
+    for(final byte[] token : entries) {
+      if(!entries.get(token).isEmpty() && startsWith(token, prefix)) list.add(token);
+    }
+    return list.sort(FTDelta::compare, true);
+  }
+
+  /**
+   * Compares two tokens in the order of the index files.
+   * @param token1 first token
+   * @param token2 second token
+   * @return result of comparison
+   */
+  static int compare(final byte[] token1, final byte[] token2) {
+    final int d = token1.length - token2.length;
+    return d != 0 ? d : diff(token1, token2);
+  }
+}
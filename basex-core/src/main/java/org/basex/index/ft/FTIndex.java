@@ -14,6 +14,8 @@ import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.index.value.*;
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.util.ft.*;
@@ -45,15 +47,24 @@ import org.basex.util.similarity.*;
  * </li>
  * <li>File <b>z</b> contains the {@code id/pos} references.
  *   The values are ordered, but not distinct:
- *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
+ *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}].
+ *   If {@link MetaData#ftblocks} is enabled, the references are stored in blocks with
+ *   skip pointers (see {@link FTPostings}).</li>
  * </ul>
  *
+ * <p>If {@link MetaData#updindex} is enabled, the index is updatable: the files reference node
+ * ids instead of pre values, and updates are recorded in a delta (see {@link FTDelta}), which is
+ * consulted by all lookups. If the number of changes gets too large, the delta is merged with
+ * the index files.</p>
+ *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
  */
 public final class FTIndex extends ValueIndex {
   /** Minimum fixed size for each token entry. */
   private static final int ENTRY = 9;
+  /** Minimum number of changes that will trigger a merge. */
+  private static final int MERGE = 1 << 16;
 
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
   private final IntObjMap<byte[]> ctext = new IntObjMap<>();
@@ -62,16 +73,23 @@ public final class FTIndex extends ValueIndex {
 
   /** Index storing each unique token length and pointer
    * on the first token with this length. */
-  private final DataAccess dataX;
+  private DataAccess dataX;
   /** Index storing each token, its data size and pointer on the data. */
-  private final DataAccess dataY;
+  private DataAccess dataY;
   /** Storing pre and pos values for each token. */
-  private final DataAccess dataZ;
+  private DataAccess dataZ;
 
   /** Cache for number of hits and data reference per token. */
-  private final IndexCache cache = new IndexCache();
+  private IndexCache cache;
   /** Token positions. */
-  private final int[] positions;
+  private int[] positions;
+
+  /** Changes that have not been merged yet ({@code null} if the index is not updatable). */
+  private FTDelta delta;
+  /** Indicates if posting lists are stored in blocks with skip pointers. */
+  private final boolean blocks;
+  /** Lexer for updated texts (created on demand). */
+  private FTLexer lexer;
 
   /**
    * Constructor, initializing the index structure.
@@ -80,10 +98,24 @@ public final class FTIndex extends ValueIndex {
    */
   public FTIndex(final Data data) throws IOException {
     super(data, IndexType.FULLTEXT);
+    // indexes without delta reference pre values
+    final IOFile file = data.meta.dbFile(DATAFTX + 'd');
+    if(data.meta.updindex && file.exists()) delta = new FTDelta(file);
+    blocks = delta == null && data.meta.ftblocks;
+    open();
+  }
+
+  /**
+   * Opens the index files.
+   * @throws IOException I/O Exception
+   */
+  private void open() throws IOException {
     // cache token length index
-    dataX = new DataAccess(data.meta.dbFile(DATAFTX + 'x'));
-    dataY = new DataAccess(data.meta.dbFile(DATAFTX + 'y'));
-    dataZ = new DataAccess(data.meta.dbFile(DATAFTX + 'z'));
+    dataX = new DataAccess(data.meta.dbFile(DATAFTX + 'x'), data.meta.buffers);
+    dataY = new DataAccess(data.meta.dbFile(DATAFTX + 'y'), data.meta.buffers);
+    dataZ = new DataAccess(data.meta.dbFile(DATAFTX + 'z'), data.meta.buffers);
+    cache = new IndexCache();
+    ctext.clear();
     positions = new int[data.meta.maxlen + 3];
     final int pl = positions.length;
     for(int p = 0; p < pl; p++) positions[p] = -1;
@@ -102,7 +134,7 @@ public final class FTIndex extends ValueIndex {
     // estimate costs for queries which stretch over multiple index entries
     final FTOpt opt = ((FTLexer) search).ftOpt();
     return IndexCosts.get(opt.is(FZ) || opt.is(WC) ? Math.max(1, data.meta.size >> 4) :
-      entry(token).size);
+      entry(token).size + (delta != null ? delta.size(token) : 0));
   }
 
   @Override
@@ -126,12 +158,14 @@ public final class FTIndex extends ValueIndex {
 
     // return cached or new result
     final IndexEntry entry = entry(token);
-    if(entry.size > 0) {
-      return iter(entry.offset, entry.size, dataZ, token);
+    if(blocks) {
+      return entry.size == 0 ? FTIndexIterator.FTEMPTY :
+        new FTPostings(dataZ, entry.offset, entry.size, token);
     }
-
-    // no results
-    return FTIndexIterator.FTEMPTY;
+    final IntList pr = new IntList(), ps = new IntList();
+    read(entry.offset, entry.size, pr, ps);
+    if(delta != null) delta(token, pr, ps);
+    return pr.isEmpty() ? FTIndexIterator.FTEMPTY : iter(new FTCache(pr, ps), token);
   }
 
   /**
@@ -151,7 +185,48 @@ public final class FTIndex extends ValueIndex {
   @Override
   public EntryIterator entries(final IndexEntries entries) {
     final byte[] token = entries.token();
+    final EntryIterator iter = entries(token);
+    if(delta == null) return iter;
+
+    // merge entries of index files and delta, skip tokens without remaining entries
+    final TokenList tokens = delta.tokens(token);
+    return new EntryIterator() {
+      byte[] next = iter.next();
+      int nextCount = iter.count(), t, nr;
+
+      @Override
+      public byte[] next() {
+        synchronized(FTIndex.this) {
+          while(true) {
+            final byte[] tok = t < tokens.size() ? tokens.get(t) : null;
+            if(next == null && tok == null) return null;
+            final int c = next == null ? 1 : tok == null ? -1 : FTDelta.compare(next, tok);
+            final byte[] entry = c <= 0 ? next : tok;
+            nr = 0;
+            if(c <= 0) {
+              nr = nextCount;
+              next = iter.next();
+              nextCount = iter.count();
+            }
+            if(c >= 0) nr += delta.size(tokens.get(t++));
+            if(nr > 0) return entry;
+          }
+        }
+      }
 
+      @Override
+      public int count() {
+        return nr;
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator for the entries of the index files.
+   * @param token prefix of the returned tokens
+   * @return iterator
+   */
+  private EntryIterator entries(final byte[] token) {
     return new EntryIterator() {
       int p = token.length - 1, start, end, nr;
       boolean inner;
@@ -166,6 +241,7 @@ public final class FTIndex extends ValueIndex {
               final long poi = dataY.read5();
               nr = dataY.read4();
               if(token.length != 0) cache.add(entry, nr, poi);
+              if(delta != null && !delta.deleted.isEmpty()) nr = live(poi, nr);
               start += p + ENTRY;
               return entry;
             }
@@ -240,6 +316,12 @@ public final class FTIndex extends ValueIndex {
 
     final IndexStats stats = new IndexStats(options.get(MainOptions.MAXSTAT));
     addOccs(stats);
+    if(delta != null) {
+      for(final byte[] token : delta.tokens(EMPTY)) {
+        final int oc = delta.size(token);
+        if(token(token) == -1 && stats.adding(oc)) stats.add(token, oc);
+      }
+    }
     stats.print(tb);
     return tb.finish();
   }
@@ -251,15 +333,21 @@ public final class FTIndex extends ValueIndex {
 
   @Override
   public synchronized void close() {
+    flush();
     dataX.close();
     dataY.close();
     dataZ.close();
   }
 
   @Override
-  public int size() {
+  public synchronized int size() {
     final int pl = positions.length;
     int size = 0, t = pl - 1;
+    if(delta != null) {
+      for(final byte[] token : delta.tokens(EMPTY)) {
+        if(token(token) == -1) size++;
+      }
+    }
     while(true) {
       final int e = t;
       while(positions[--t] == -1) {
@@ -342,6 +430,8 @@ public final class FTIndex extends ValueIndex {
 
   /**
    * Performs a fuzzy search for the specified token with a maximum number of errors.
+   * The sorted tokens of each length are traversed like a trie: if no token with a given prefix
+   * can be similar to the search token, all tokens with this prefix are skipped.
    * @param token token to look for
    * @param k number of errors allowed
    * @return iterator
@@ -356,10 +446,27 @@ public final class FTIndex extends ValueIndex {
       int t = s + 1, r = -1;
       while(t < pl && r == -1) r = positions[t++];
       while(p < r) {
-        if(ls.similar(dataY.readBytes(p, s), token, k)) {
-          iters.add(iter(pointer(p, s), size(p, s), dataZ, token));
+        final byte[] tok = dataY.readBytes(p, s);
+        final int m = ls.mismatch(tok, token, k);
+        if(m == -1 && blocks) {
+          iters.add(new FTPostings(dataZ, pointer(p, s), size(p, s), token));
+        } else if(m == -1) {
+          final IntList pr = new IntList(), ps = new IntList();
+          read(pointer(p, s), size(p, s), pr, ps);
+          if(delta != null) delta(tok, pr, ps);
+          if(!pr.isEmpty()) iters.add(iter(new FTCache(pr, ps), token));
+        }
+        p = skip(tok, m, p, r, s);
+      }
+    }
+    // add tokens that only exist in the delta
+    if(delta != null) {
+      for(final byte[] tok : delta.tokens(EMPTY)) {
+        if(ls.similar(tok, token, k) && token(tok) == -1) {
+          final IntList pr = new IntList(), ps = new IntList();
+          delta(tok, pr, ps);
+          iters.add(iter(new FTCache(pr, ps), token));
         }
-        p += s + ENTRY;
       }
     }
     return iters.isEmpty() ? FTIndexIterator.FTEMPTY :
@@ -368,6 +475,7 @@ public final class FTIndex extends ValueIndex {
 
   /**
    * Performs a wildcard search for the specified token.
+   * Tokens with prefixes that cannot be extended to a match are skipped.
    * @param wc wildcard matcher
    * @param full support full range of Unicode characters
    * @param token original search token
@@ -387,37 +495,102 @@ public final class FTIndex extends ValueIndex {
       while(start < end) {
         final byte[] t = dataY.readBytes(start, p);
         if(!startsWith(t, prefix)) break;
-        if(wc.match(t)) {
-          dataZ.cursor(pointer(start, p));
-          final int s = size(start, p);
-          for(int d = 0; d < s; d++) {
-            pr.add(dataZ.readNum());
-            ps.add(dataZ.readNum());
-          }
-        }
-        start += p + ENTRY;
+        final int m = wc.mismatch(t);
+        if(m == -1) read(pointer(start, p), size(start, p), pr, ps);
+        start = skip(t, m, start, end, p);
+      }
+    }
+    if(delta != null) {
+      for(final byte[] t : delta.tokens(prefix)) {
+        if(t.length <= l && wc.match(t)) delta(t, pr, ps);
       }
     }
     return iter(new FTCache(pr, ps), token);
   }
 
   /**
-   * Returns an iterator for an index entry.
+   * Returns the position of the next token that does not start with the specified prefix.
+   * @param token current token
+   * @param pl length of the prefix ({@code -1} or length of the token: return next token)
+   * @param start position of the current token
+   * @param end position after the last token
+   * @param ti token length
+   * @return position of the next token
+   */
+  private int skip(final byte[] token, final int pl, final int start, final int end,
+      final int ti) {
+    final int tl = ti + ENTRY;
+    if(pl == -1 || pl == ti) return start + tl;
+
+    // binary search: find first token with a greater prefix
+    final byte[] prefix = Arrays.copyOf(token, pl);
+    int s = 1, e = (end - start) / tl;
+    while(s < e) {
+      final int m = s + e >>> 1;
+      if(diff(dataY.readBytes(start + m * tl, pl), prefix) <= 0) s = m + 1;
+      else e = m;
+    }
+    return start + s * tl;
+  }
+
+  /**
+   * Reads the pre and pos values of an index entry.
+   * If the index is updatable, ids of deleted nodes are skipped, and ids are converted to pres.
    * @param off offset on entries
    * @param size number of id/pos entries
-   * @param da data source
-   * @param token index token
-   * @return iterator
+   * @param pr pre values
+   * @param ps pos values
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
-      final byte[] token) {
-    da.cursor(off);
-    final IntList pr = new IntList(size), ps = new IntList(size);
+  private void read(final long off, final int size, final IntList pr, final IntList ps) {
+    if(size == 0) return;
+    if(blocks) {
+      FTPostings.read(dataZ, off, size, pr, ps);
+      return;
+    }
+    dataZ.cursor(off);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      final int id = dataZ.readNum(), pos = dataZ.readNum();
+      if(delta == null) {
+        pr.add(id);
+        ps.add(pos);
+      } else if(!delta.deleted.contains(id)) {
+        pr.add(data.pre(id));
+        ps.add(pos);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries in the index files that have not been deleted.
+   * @param off offset
+   * @param size number of entries
+   * @return number of remaining entries
+   */
+  private int live(final long off, final int size) {
+    if(size == 0) return 0;
+    dataZ.cursor(off);
+    int nr = 0;
+    for(int c = 0; c < size; c++) {
+      if(!delta.deleted.contains(dataZ.readNum())) nr++;
+      dataZ.readNum();
+    }
+    return nr;
+  }
+
+  /**
+   * Adds the pre and pos values of a token in the delta.
+   * @param token token
+   * @param pr pre values
+   * @param ps pos values
+   */
+  private void delta(final byte[] token, final IntList pr, final IntList ps) {
+    final IntList list = delta.entries.get(token);
+    if(list == null) return;
+    final int ls = list.size();
+    for(int l = 0; l < ls; l += 2) {
+      pr.add(data.pre(list.get(l)));
+      ps.add(list.get(l + 1));
     }
-    return iter(new FTCache(pr, ps), token);
   }
 
   /**
@@ -468,6 +641,11 @@ public final class FTIndex extends ValueIndex {
         return size;
       }
 
+      @Override
+      public int nodes() {
+        return ftc.nodes;
+      }
+
       @Override
       public String toString() {
         return Strings.concat(token, '(', size, "x)");
@@ -485,6 +663,8 @@ public final class FTIndex extends ValueIndex {
     private final IntList pre;
     /** Pos values. */
     private final IntList pos;
+    /** Number of distinct pre values. */
+    private int nodes;
 
     /**
      * Constructor.
@@ -498,19 +678,189 @@ public final class FTIndex extends ValueIndex {
       order = Array.createOrder(v, true);
       pre = pr;
       pos = ps;
+      for(int i = 0; i < s; i++) {
+        if(i == 0 || v[i] >>> 32 != v[i - 1] >>> 32) nodes++;
+      }
+    }
+  }
+
+  /**
+   * Returns a lexer for tokenizing the texts of updated nodes.
+   * @return lexer, or {@code null} if the index is not updatable
+   */
+  public synchronized FTLexer lexer() {
+    if(delta != null && lexer == null) {
+      final StopWords sw = new StopWords();
+      sw.compile(data);
+      try {
+        lexer = FTBuilder.lexer(data, sw);
+      } catch(final BaseXException ex) {
+        throw Util.notExpected(ex);
+      }
     }
+    return lexer;
   }
 
   @Override
-  public void add(final ValueCache values) {
-    throw Util.notExpected();
+  public synchronized void add(final ValueCache values) {
+    if(delta == null) {
+      // index references pre values: invalidate index
+      data.meta.ftindex = false;
+      return;
+    }
+    for(final byte[] token : values) {
+      final IntList ids = values.ids(token), pos = values.pos(token);
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) delta.add(token, ids.get(i), pos.get(i));
+    }
+    stats(values, 1);
   }
 
   @Override
-  public void delete(final ValueCache values) {
-    throw Util.notExpected();
+  public synchronized void delete(final ValueCache values) {
+    if(delta == null) {
+      data.meta.ftindex = false;
+      return;
+    }
+    for(final byte[] token : values) {
+      final IntList ids = values.ids(token), pos = values.pos(token);
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) delta.delete(token, ids.get(i), pos.get(i));
+    }
+    stats(values, -1);
+  }
+
+  /**
+   * Updates the statistics on the indexed texts.
+   * @param values index values
+   * @param sign {@code 1} for added and {@code -1} for deleted texts
+   */
+  private void stats(final ValueCache values, final int sign) {
+    final IntSet ids = new IntSet();
+    for(final byte[] token : values) {
+      final IntList list = values.ids(token);
+      final int ls = list.size();
+      for(int l = 0; l < ls; l++) {
+        final int id = list.get(l);
+        if(ids.add(id)) {
+          data.meta.fttexts += sign;
+          data.meta.ftlength += sign * data.textLen(data.pre(id), true);
+        }
+      }
+    }
   }
 
   @Override
-  public void flush() { }
+  public synchronized void flush() {
+    if(delta == null || !delta.dirty) return;
+    try {
+      if(delta.changes() > Math.max(MERGE, dataZ.length() >> 4)) merge();
+      else delta.write(data.meta.dbFile(DATAFTX + 'd'));
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Merges the delta with the index files. New index files are created from the valid entries
+   * of the existing files and the new entries of the delta. Afterwards, they replace the
+   * existing files, and an empty delta is written.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    final MetaData meta = data.meta;
+    final String name = DATAFTX + 'm';
+    try(DataOutput outX = new DataOutput(meta.dbFile(name + 'x'));
+        DataOutput outY = new DataOutput(meta.dbFile(name + 'y'));
+        DataOutput outZ = new DataOutput(meta.dbFile(name + 'z'))) {
+
+      final IntList ind = new IntList();
+      final TokenList tokens = delta.tokens(EMPTY);
+      final int tl = tokens.size(), pl = positions.length;
+      int t = 0;
+      for(int s = 0; s < pl - 1; s++) {
+        final int start = positions[s];
+        if(start == -1) continue;
+        int c = s + 1, end;
+        do end = positions[c++]; while(end == -1);
+
+        for(int p = start; p < end; p += s + ENTRY) {
+          final byte[] token = dataY.readBytes(p, s);
+          // write new tokens that precede the current token
+          while(t < tl && FTDelta.compare(tokens.get(t), token) < 0) {
+            write(tokens.get(t++), 0, 0, ind, outY, outZ);
+          }
+          if(t < tl && eq(tokens.get(t), token)) t++;
+          write(token, pointer(p, s), size(p, s), ind, outY, outZ);
+        }
+      }
+      while(t < tl) write(tokens.get(t++), 0, 0, ind, outY, outZ);
+
+      final int is = ind.size();
+      FTBuilder.writeInd(outX, ind, is == 0 ? 1 : ind.get(is - 2) + 1, (int) outY.size());
+    }
+
+    // replace index files
+    dataX.close();
+    dataY.close();
+    dataZ.close();
+    for(final char c : new char[] { 'x', 'y', 'z' }) {
+      final IOFile file = meta.dbFile(DATAFTX + c);
+      if(!file.delete() || !meta.dbFile(name + c).rename(file)) {
+        throw new IOException("Full-text index could not be replaced: " + file);
+      }
+    }
+    delta = new FTDelta();
+    delta.write(meta.dbFile(DATAFTX + 'd'));
+    open();
+  }
+
+  /**
+   * Writes the valid entries of a token to the new index files.
+   * @param token token
+   * @param off offset on the entries in the existing files
+   * @param size number of entries in the existing files
+   * @param ind token lengths and offsets
+   * @param outY output for tokens
+   * @param outZ output for entries
+   * @throws IOException I/O exception
+   */
+  private void write(final byte[] token, final long off, final int size, final IntList ind,
+      final DataOutput outY, final DataOutput outZ) throws IOException {
+
+    final IntList ids = new IntList(), pos = new IntList();
+    if(size > 0) {
+      dataZ.cursor(off);
+      for(int c = 0; c < size; c++) {
+        final int id = dataZ.readNum(), ps = dataZ.readNum();
+        if(!delta.deleted.contains(id)) {
+          ids.add(id);
+          pos.add(ps);
+        }
+      }
+    }
+    final IntList list = delta.entries.get(token);
+    if(list != null) {
+      final int ls = list.size();
+      for(int l = 0; l < ls; l += 2) {
+        ids.add(list.get(l));
+        pos.add(list.get(l + 1));
+      }
+    }
+    final int is = ids.size();
+    if(is == 0) return;
+
+    final int tl = token.length;
+    if(ind.isEmpty() || ind.get(ind.size() - 2) < tl) {
+      ind.add(tl);
+      ind.add((int) outY.size());
+    }
+    outY.writeBytes(token);
+    outY.write5(outZ.size());
+    outY.write4(is);
+    for(int i = 0; i < is; i++) {
+      outZ.writeNum(ids.get(i));
+      outZ.writeNum(pos.get(i));
+    }
+  }
 }
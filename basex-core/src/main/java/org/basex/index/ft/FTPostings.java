@@ -0,0 +1,294 @@
+package org.basex.index.ft;
+
+import java.io.*;
+
+import org.basex.index.query.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.query.util.ft.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Iterator for a posting list of the full-text index, which is stored in blocks with skip
+ * pointers. The iterator decodes a single block at a time, and blocks that only contain
+ * smaller pre values are skipped by {@link #advance(int)}.
+ *
+ * <ul>
+ * <li>Posting list: {@code [n, d0, l0, ..., dk, lk, block0, ..., blockk]}. {@code n} is the
+ *   number of distinct pre values, {@code d} is the distance between the last pre value of a
+ *   block and the last pre value of the preceding block, and {@code l} is the byte length
+ *   of a block [{@link Num}].</li>
+ * <li>Block: {@code [wd, wp, deltas, positions]}. The pre values are stored as distances to
+ *   their predecessors (the first value of a block is stored as distance to the last pre value
+ *   of the preceding block). {@code wd} and {@code wp} are the number of bits that are needed
+ *   for the distances and the positions [byte], followed by the bit-packed values.</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+final class FTPostings extends FTIndexIterator {
+  /** Maximum number of entries per block. */
+  private static final int BLOCK = 128;
+
+  /** Full-text matches. */
+  private final FTMatches all = new FTMatches();
+  /** Pre values of the current block. */
+  private final int[] pres = new int[BLOCK];
+  /** Positions of the current block. */
+  private final int[] poss = new int[BLOCK];
+  /** Index entries. */
+  private final DataAccess da;
+  /** Index token. */
+  private final byte[] token;
+  /** Number of entries. */
+  private final int size;
+  /** Number of distinct pre values. */
+  private final int nodes;
+  /** Last pre values of the blocks. */
+  private final int[] lasts;
+  /** Offsets of the blocks. */
+  private final long[] offsets;
+
+  /** Index of the current block ({@code -1}: no block has been decoded yet). */
+  private int block = -1;
+  /** Number of entries in the current block. */
+  private int entries;
+  /** Index of the next entry in the current block. */
+  private int entry;
+  /** Current pre value. */
+  private int pre;
+  /** Position of the token in the query. */
+  private int pos;
+
+  /**
+   * Constructor.
+   * @param da index entries
+   * @param off offset of the posting list
+   * @param size number of entries
+   * @param token index token
+   */
+  FTPostings(final DataAccess da, final long off, final int size, final byte[] token) {
+    this.da = da;
+    this.size = size;
+    this.token = token;
+
+    final int bl = (size + BLOCK - 1) / BLOCK;
+    lasts = new int[bl];
+    offsets = new long[bl + 1];
+    long o = off;
+    nodes = da.readNum(o);
+    o += Num.length(nodes);
+    final int[] lengths = new int[bl];
+    for(int b = 0, last = 0; b < bl; b++) {
+      final int d = da.readNum(o);
+      o += Num.length(d);
+      last += d;
+      lasts[b] = last;
+      lengths[b] = da.readNum(o);
+      o += Num.length(lengths[b]);
+    }
+    for(int b = 0; b < bl; b++) {
+      offsets[b] = o;
+      o += lengths[b];
+    }
+    offsets[bl] = o;
+  }
+
+  @Override
+  public boolean more() {
+    if(entry == entries && !decode(block + 1)) return false;
+    pre = pres[entry];
+    all.reset(pos);
+    // add the positions of the current pre value (which may span several blocks)
+    do {
+      all.or(poss[entry++]);
+    } while((entry < entries || decode(block + 1)) && pres[entry] == pre);
+    return true;
+  }
+
+  @Override
+  public boolean advance(final int target) {
+    if(block == -1 || target > lasts[block]) {
+      // binary search: find first block with a last pre value that is not smaller than the target
+      final int bl = lasts.length;
+      int s = block + 1, e = bl;
+      while(s < e) {
+        final int m = s + e >>> 1;
+        if(lasts[m] < target) s = m + 1;
+        else e = m;
+      }
+      if(s == bl) {
+        block = bl - 1;
+        entries = 0;
+        entry = 0;
+        return false;
+      }
+      decode(s);
+    }
+    while(entry < entries && pres[entry] < target) entry++;
+    return more();
+  }
+
+  @Override
+  public FTMatches matches() {
+    return all;
+  }
+
+  @Override
+  public int pre() {
+    return pre;
+  }
+
+  @Override
+  public void pos(final int p) {
+    pos = p;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int nodes() {
+    return nodes;
+  }
+
+  @Override
+  public String toString() {
+    return Strings.concat(token, '(', size, "x)");
+  }
+
+  /**
+   * Decodes the specified block.
+   * @param b index of the block
+   * @return {@code true} if the block exists
+   */
+  private boolean decode(final int b) {
+    if(b >= lasts.length) return false;
+    final byte[] bytes = da.readBytes(offsets[b], (int) (offsets[b + 1] - offsets[b]));
+    entries = Math.min(BLOCK, size - b * BLOCK);
+    unpack(bytes, unpack(bytes, 2, bytes[0], pres, entries), bytes[1], poss, entries);
+    for(int e = 0, p = b == 0 ? 0 : lasts[b - 1]; e < entries; e++) {
+      p += pres[e];
+      pres[e] = p;
+    }
+    block = b;
+    entry = 0;
+    return true;
+  }
+
+  /**
+   * Adds the pre and pos values of a posting list to the specified lists.
+   * @param da index entries
+   * @param off offset of the posting list
+   * @param size number of entries
+   * @param pr pre values
+   * @param ps pos values
+   */
+  static void read(final DataAccess da, final long off, final int size, final IntList pr,
+      final IntList ps) {
+    final FTPostings postings = new FTPostings(da, off, size, null);
+    while(postings.decode(postings.block + 1)) {
+      for(int e = 0; e < postings.entries; e++) {
+        pr.add(postings.pres[e]);
+        ps.add(postings.poss[e]);
+      }
+    }
+  }
+
+  /**
+   * Writes a posting list.
+   * @param out output stream
+   * @param pr pre values (sorted)
+   * @param ps pos values
+   * @throws IOException I/O exception
+   */
+  static void write(final DataOutput out, final IntList pr, final IntList ps)
+      throws IOException {
+
+    final int size = pr.size();
+    final ByteList blocks = new ByteList();
+    final IntList header = new IntList();
+    final int[] deltas = new int[BLOCK];
+    int nodes = 0, last = 0;
+    for(int start = 0; start < size; start += BLOCK) {
+      final int es = Math.min(BLOCK, size - start), bs = blocks.size();
+      int p = last, md = 0, mp = 0;
+      for(int e = 0; e < es; e++) {
+        final int pre = pr.get(start + e), d = pre - p;
+        if(d != 0 || start + e == 0) nodes++;
+        deltas[e] = d;
+        md |= d;
+        mp |= ps.get(start + e);
+        p = pre;
+      }
+      final int wd = width(md), wp = width(mp);
+      blocks.add(wd).add(wp);
+      pack(blocks, deltas, es, wd);
+      for(int e = 0; e < es; e++) deltas[e] = ps.get(start + e);
+      pack(blocks, deltas, es, wp);
+      header.add(p - last).add(blocks.size() - bs);
+      last = p;
+    }
+    out.writeNum(nodes);
+    for(final int h : header.finish()) out.writeNum(h);
+    out.writeBytes(blocks.finish());
+  }
+
+  /**
+   * Returns the number of bits that are needed to store the specified values.
+   * @param values disjunction of all values
+   * @return number of bits
+   */
+  private static int width(final int values) {
+    return Integer.SIZE - Integer.numberOfLeadingZeros(values);
+  }
+
+  /**
+   * Bit-packs integers.
+   * @param bytes output bytes
+   * @param values values
+   * @param size number of values
+   * @param width number of bits per value
+   */
+  private static void pack(final ByteList bytes, final int[] values, final int size,
+      final int width) {
+    long buffer = 0;
+    int bits = 0;
+    for(int v = 0; v < size; v++) {
+      buffer |= (values[v] & 0xFFFFFFFFL) << bits;
+      bits += width;
+      for(; bits >= 8; bits -= 8) {
+        bytes.add((int) buffer);
+        buffer >>>= 8;
+      }
+    }
+    if(bits > 0) bytes.add((int) buffer);
+  }
+
+  /**
+   * Unpacks bit-packed integers.
+   * @param bytes input bytes
+   * @param offset offset to the first byte
+   * @param width number of bits per value
+   * @param values values
+   * @param size number of values
+   * @return offset after the last byte
+   */
+  private static int unpack(final byte[] bytes, final int offset, final int width,
+      final int[] values, final int size) {
+    final long mask = (1L << width) - 1;
+    long buffer = 0;
+    int bits = 0, o = offset;
+    for(int v = 0; v < size; v++) {
+      for(; bits < width; bits += 8) buffer |= (bytes[o++] & 0xFFL) << bits;
+      values[v] = (int) (buffer & mask);
+      buffer >>>= width;
+      bits -= width;
+    }
+    return o;
+  }
+}
@@ -36,6 +36,28 @@ public abstract class FTIndexIterator implements IndexIterator {
    */
   public abstract void pos(int p);
 
+  /**
+   * Skips all results with pre values that are smaller than the specified value, and moves to
+   * the next result. The value must be greater than the pre value of the current result.
+   * @param target minimum pre value
+   * @return {@code true} if another result was found
+   */
+  public boolean advance(final int target) {
+    while(more()) {
+      if(pre() >= target) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of nodes with results (document frequency).
+   * By default, the number of index entries is returned.
+   * @return number of nodes
+   */
+  public int nodes() {
+    return size();
+  }
+
   /**
    * Merges two index iterators for unions.
    * @param iters index iterators to merge
@@ -48,17 +70,38 @@ public abstract class FTIndexIterator implements IndexIterator {
 
       @Override
       public boolean more() {
+        return next(-1);
+      }
+
+      @Override
+      public boolean advance(final int target) {
+        return next(target);
+      }
+
+      /**
+       * Moves to the next result.
+       * @param target minimum pre value ({@code -1}: move to next result)
+       * @return {@code true} if another result was found
+       */
+      private boolean next(final int target) {
         final int il = iters.length;
         if(ir == null) {
           ir = new FTIndexIterator[il];
           for(int i = 0; i < il; i++) {
-            ir[i] = iters[i].more() ? iters[i] : null;
+            ir[i] = next(iters[i], target) ? iters[i] : null;
           }
         } else {
           final int cs = curr.size();
           for(int c = 0; c < cs; c++) {
             final int i = curr.get(c);
-            if(!ir[i].more()) ir[i] = null;
+            if(!next(ir[i], target)) ir[i] = null;
+          }
+          // skip results of the remaining iterators
+          if(target != -1) {
+            for(int i = 0; i < il; i++) {
+              if(ir[i] != null && ir[i].pre() < target && !curr.contains(i) &&
+                  !ir[i].advance(target)) ir[i] = null;
+            }
           }
         }
         int pre = Integer.MAX_VALUE;
@@ -75,6 +118,16 @@ public abstract class FTIndexIterator implements IndexIterator {
         return pre < Integer.MAX_VALUE;
       }
 
+      /**
+       * Moves the specified iterator to its next result.
+       * @param iter iterator
+       * @param target minimum pre value ({@code -1}: move to next result)
+       * @return {@code true} if another result was found
+       */
+      private boolean next(final FTIndexIterator iter, final int target) {
+        return target == -1 ? iter.more() : iter.advance(target);
+      }
+
       @Override
       public FTMatches matches() {
         final FTMatches all = ir[curr.get(0)].matches();
@@ -107,6 +160,13 @@ public abstract class FTIndexIterator implements IndexIterator {
         return c;
       }
 
+      @Override
+      public int nodes() {
+        int c = 0;
+        for(final FTIndexIterator iter : iters) c += iter.nodes();
+        return c;
+      }
+
       @Override
       public String toString() {
         final StringBuilder sb = new StringBuilder().append('(');
@@ -130,29 +190,49 @@ public abstract class FTIndexIterator implements IndexIterator {
       final int dis) {
 
     return new FTIndexIterator() {
-      private FTIndexIterator ii1, ii2;
       private FTMatches all;
 
       @Override
       public boolean more() {
-        int d = 0;
-        while(true) {
-          if(d <= 0) ii1 = i1.more() ? i1 : null;
-          if(d >= 0) ii2 = i2.more() ? i2 : null;
-          if(ii1 == null || ii2 == null) return false;
-          d = ii1.pre() - ii2.pre();
-          if(d != 0) continue;
-          all = ii1.matches();
-          final FTMatches all2 = ii2.matches();
-          if(dis == 0) {
-            for(final FTMatch m1 : all) {
-              for(final FTMatch m2 : all2) m1.add(m2);
+        return next(i1.more(), i2.more());
+      }
+
+      @Override
+      public boolean advance(final int target) {
+        return next(i1.advance(target), i2.advance(target));
+      }
+
+      /**
+       * Moves to the next common result. The iterator that is behind skips all results
+       * with smaller pre values.
+       * @param more1 first iterator has more results
+       * @param more2 second iterator has more results
+       * @return {@code true} if another result was found
+       */
+      private boolean next(final boolean more1, final boolean more2) {
+        boolean next1 = more1, next2 = more2;
+        while(next1 && next2) {
+          final int p1 = i1.pre(), p2 = i2.pre();
+          if(p1 < p2) {
+            next1 = i1.advance(p2);
+          } else if(p1 > p2) {
+            next2 = i2.advance(p1);
+          } else {
+            all = i1.matches();
+            final FTMatches all2 = i2.matches();
+            if(dis == 0) {
+              for(final FTMatch m1 : all) {
+                for(final FTMatch m2 : all2) m1.add(m2);
+              }
+              return true;
+            } else if(all.phrase(all2, dis)) {
+              return true;
             }
-            return true;
-          } else if(all.phrase(all2, dis)) {
-            return true;
+            next1 = i1.more();
+            next2 = i2.more();
           }
         }
+        return false;
       }
 
       @Override
@@ -162,7 +242,7 @@ public abstract class FTIndexIterator implements IndexIterator {
 
       @Override
       public int pre() {
-        return ii1.pre();
+        return i1.pre();
       }
 
       @Override
@@ -176,6 +256,11 @@ public abstract class FTIndexIterator implements IndexIterator {
         return Math.min(i1.size(), i2.size());
       }
 
+      @Override
+      public int nodes() {
+        return Math.min(i1.nodes(), i2.nodes());
+      }
+
       @Override
       public String toString() {
         return "(" + i1 + " & " + i2 + ')';
@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
@@ -15,13 +16,16 @@ import org.basex.index.stats.*;
 import org.basex.io.random.*;
 import org.basex.query.util.index.*;
 import org.basex.util.*;
-import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
 /**
  * This class provides access to attribute values and text contents stored on disk.
  * The data structure is described in the {@link DiskValuesBuilder} class.
  *
+ * All read operations are positional. If {@link MetaData#maptable} is enabled, the files of
+ * non-updatable indexes are accessed via memory-mapped snapshots, and concurrent reads will not
+ * be synchronized. Otherwise, reads of the same file will be serialized.
+ *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
  */
@@ -33,13 +37,10 @@ public class DiskValues extends ValueIndex {
   /** Cached index entries: mapping between keys and index entries. */
   final IndexCache cache = new IndexCache();
   /** Cached texts: mapping between key positions in the reference file, and the indexed texts. */
-  final IntObjMap<byte[]> ctext = new IntObjMap<>();
+  final ConcurrentHashMap<Integer, byte[]> ctext = new ConcurrentHashMap<>();
   /** Number of current index entries. */
   final AtomicInteger size = new AtomicInteger();
 
-  /** Synchronization object. */
-  private final Object monitor = new Object();
-
   /**
    * Constructor, initializing the index structure.
    * @param data data reference
@@ -48,6 +49,10 @@ public class DiskValues extends ValueIndex {
    */
   public DiskValues(final Data data, final IndexType type) throws IOException {
     this(data, type, fileSuffix(type));
+    if(data.meta.maptable) {
+      idxl.map();
+      idxr.map();
+    }
   }
 
   /**
@@ -59,8 +64,8 @@ public class DiskValues extends ValueIndex {
    */
   DiskValues(final Data data, final IndexType type, final String pref) throws IOException {
     super(data, type);
-    idxl = new DataAccess(data.meta.dbFile(pref + 'l'));
-    idxr = new DataAccess(data.meta.dbFile(pref + 'r'));
+    idxl = new DataAccess(data.meta.dbFile(pref + 'l'), data.meta.buffers);
+    idxr = new DataAccess(data.meta.dbFile(pref + 'r'), data.meta.buffers);
     size.set(idxl.read4());
   }
 
@@ -71,15 +76,13 @@ public class DiskValues extends ValueIndex {
     tb.add(LI_NAMES).add(data.meta.names(type)).add(NL);
 
     final IndexStats stats = new IndexStats(options.get(MainOptions.MAXSTAT));
-    synchronized(monitor) {
-      final long l = idxl.length() + idxr.length();
-      tb.add(LI_SIZE).add(Performance.format(l)).add(NL);
-      final int entries = size();
-      for(int index = 0; index < entries; index++) {
-        final long pos = idxr.read5(index * 5L);
-        final int count = idxl.readNum(pos);
-        if(stats.adding(count)) stats.add(key(idxl.readNum()), count);
-      }
+    final long l = idxl.length() + idxr.length();
+    tb.add(LI_SIZE).add(Performance.format(l)).add(NL);
+    final int entries = size();
+    for(int index = 0; index < entries; index++) {
+      final long pos = idxr.read5(index * 5L);
+      final int count = idxl.readNum(pos);
+      if(stats.adding(count)) stats.add(key(pos + Num.length(count)), count);
     }
     stats.print(tb);
     return tb.finish();
@@ -138,10 +141,8 @@ public class DiskValues extends ValueIndex {
 
   @Override
   public final void close() {
-    synchronized(monitor) {
-      idxl.close();
-      idxr.close();
-    }
+    idxl.close();
+    idxr.close();
   }
 
   @Override
@@ -200,15 +201,13 @@ public class DiskValues extends ValueIndex {
    */
   protected final int get(final byte[] key, final int first, final int last) {
     int l = first, h = last - 1;
-    synchronized(monitor) {
-      while(l <= h) {
-        final int m = l + h >>> 1;
-        final byte[] txt = indexEntry(m).key;
-        final int d = diff(txt, key);
-        if(d == 0) return m;
-        if(d < 0) l = m + 1;
-        else h = m - 1;
-      }
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      final byte[] txt = indexEntry(m).key;
+      final int d = diff(txt, key);
+      if(d == 0) return m;
+      if(d < 0) l = m + 1;
+      else h = m - 1;
     }
     return -(l + 1);
   }
@@ -228,17 +227,10 @@ public class DiskValues extends ValueIndex {
     final long index = get(token);
     if(index < 0) return new IndexEntry(token, 0, 0);
 
-    final int count;
-    final long offset;
-
-    synchronized(monitor) {
-      // get position in heap file
-      final long pos = idxr.read5(index * 5L);
-      count = idxl.readNum(pos);
-      offset = idxl.cursor();
-    }
-
-    return cache.add(token, count, offset);
+    // get position in heap file
+    final long pos = idxr.read5(index * 5L);
+    final int count = idxl.readNum(pos);
+    return cache.add(token, count, pos + Num.length(count));
   }
 
   /**
@@ -256,10 +248,8 @@ public class DiskValues extends ValueIndex {
       @Override
       public byte[] next() {
         if(c < sz) {
-          synchronized(monitor) {
-            entry = indexEntry(c++);
-            if(startsWith(entry.key, prefix)) return entry.key;
-          }
+          entry = indexEntry(c++);
+          if(startsWith(entry.key, prefix)) return entry.key;
         }
         return null;
       }
@@ -296,10 +286,8 @@ public class DiskValues extends ValueIndex {
 
       @Override
       public byte[] get(final int i) {
-        synchronized(monitor) {
-          entry = indexEntry(reverse ? last - i - 1 : first + i);
-          return entry.key;
-        }
+        entry = indexEntry(reverse ? last - i - 1 : first + i);
+        return entry.key;
       }
 
       @Override
@@ -311,7 +299,7 @@ public class DiskValues extends ValueIndex {
 
   /**
    * Read a key at the given position.
-   * <p><em>Important:</em> This method is NOT thread-safe, since it is used in loops.</p>
+   * <p><em>Important:</em> This method is thread-safe.</p>
    * @param index key position
    * @return index entry
    */
@@ -326,11 +314,12 @@ public class DiskValues extends ValueIndex {
     // read text and cache result
     final long pos = idxr.read5(index * 5L);
     final int count = idxl.readNum(pos);
+    final long offset = pos + Num.length(count);
     if(key == null) {
-      key = key(idxl.readNum());
+      key = key(offset);
       ctext.put(index, key);
     }
-    return cache.add(key, count, pos + Num.length(count));
+    return cache.add(key, count, offset);
   }
 
   /**
@@ -341,15 +330,26 @@ public class DiskValues extends ValueIndex {
    * @return sorted pre values
    */
   protected IntList pres(final int sz, final long offset) {
-    final IntList pres = new IntList(sz);
-    synchronized(monitor) {
-      idxl.cursor(offset);
-      for(int i = 0, id = 0; i < sz; i++) {
-        id += idxl.readNum();
-        // token index: skip position
-        if(type == IndexType.TOKEN) idxl.readNum();
-        pres.add(pre(id));
-      }
+    return pres(sz, offset, new IntList(sz));
+  }
+
+  /**
+   * Adds the pre values of an id list to the specified list.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param sz number of values
+   * @param offset offset
+   * @param pres pre values
+   * @return pre values
+   */
+  private IntList pres(final int sz, final long offset, final IntList pres) {
+    long pos = offset;
+    for(int i = 0, id = 0; i < sz; i++) {
+      final int diff = idxl.readNum(pos);
+      pos += Num.length(diff);
+      id += diff;
+      // token index: skip position
+      if(type == IndexType.TOKEN) pos += Num.length(idxl.readNum(pos));
+      pres.add(pre(id));
     }
     return pres;
   }
@@ -363,21 +363,17 @@ public class DiskValues extends ValueIndex {
   private IntList idRange(final StringRange tok) {
     // check if min and max are positive integers with the same number of digits
     final IntList pres = new IntList();
-    synchronized(monitor) {
-      final int i = get(tok.min);
-      final int entries = size();
-      for(int index = i < 0 ? -i - 1 : tok.mni ? i : i + 1; index < entries; index++) {
-        final int count = idxl.readNum(idxr.read5(index * 5L));
-        int id = idxl.readNum();
-        // skip traversal if value is too large
-        final int diff = diff(key(id), tok.max);
-        if(diff > 0 || !tok.mxi && diff == 0) break;
-        // add pre values
-        for(int c = 0; c < count; c++) {
-          pres.add(pre(id));
-          id += idxl.readNum();
-        }
-      }
+    final int i = get(tok.min);
+    final int entries = size();
+    for(int index = i < 0 ? -i - 1 : tok.mni ? i : i + 1; index < entries; index++) {
+      final long pos = idxr.read5(index * 5L);
+      final int count = idxl.readNum(pos);
+      final long offset = pos + Num.length(count);
+      // skip traversal if value is too large
+      final int diff = diff(key(offset), tok.max);
+      if(diff > 0 || !tok.mxi && diff == 0) break;
+      // add pre values
+      pres(count, offset, pres);
     }
     return pres.sort();
   }
@@ -395,40 +391,38 @@ public class DiskValues extends ValueIndex {
     final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
 
     final IntList pres = new IntList();
-    synchronized(monitor) {
-      final int entries = size();
-      final boolean text = type == IndexType.TEXT;
-      for(int index = 0; index < entries; ++index) {
-        final int count = idxl.readNum(idxr.read5(index * 5L));
-        int id = idxl.readNum();
-        final int pre = pre(id);
-
-        final double v = data.textDbl(pre, text);
-        if(v >= min && v <= max) {
-          // value is in range
-          for(int c = 0; c < count; c++) {
-            pres.add(pre(id));
-            id += idxl.readNum();
-          }
-        } else if(simple && v > max && data.textLen(pre, text) == len) {
-          // if limits are integers, if min, max and current value have the same
-          // string length, and if current value is larger than max, test can be
-          // skipped, as all remaining values will be bigger
-          break;
-        }
+    final int entries = size();
+    final boolean text = type == IndexType.TEXT;
+    for(int index = 0; index < entries; ++index) {
+      final long pos = idxr.read5(index * 5L);
+      final int count = idxl.readNum(pos);
+      final long offset = pos + Num.length(count);
+      final int pre = pre(idxl.readNum(offset));
+
+      final double v = data.textDbl(pre, text);
+      if(v >= min && v <= max) {
+        // value is in range
+        pres(count, offset, pres);
+      } else if(simple && v > max && data.textLen(pre, text) == len) {
+        // if limits are integers, if min, max and current value have the same
+        // string length, and if current value is larger than max, test can be
+        // skipped, as all remaining values will be bigger
+        break;
       }
     }
     return pres.sort();
   }
 
   /**
-   * Returns the specified key, considering tokenization.
-   * @param id id of key
+   * Returns the key of an id list, considering tokenization.
+   * @param offset offset to the id list
    * @return key token
    */
-  private byte[] key(final int id) {
+  private byte[] key(final long offset) {
+    final int id = idxl.readNum(offset);
     final byte[] text = data.text(pre(id), type == IndexType.TEXT);
-    return type == IndexType.TOKEN ? distinctTokens(text)[idxl.readNum()] : text;
+    return type == IndexType.TOKEN ? distinctTokens(text)[idxl.readNum(offset + Num.length(id))] :
+      text;
   }
 
   /**
@@ -444,16 +438,20 @@ public class DiskValues extends ValueIndex {
     for(int index = 0; index < entries; index++) {
       final long pos = idxr.read5(index * 5L);
       final int count = idxl.readNum(pos);
-      int id = idxl.readNum();
+      final long offset = pos + Num.length(count);
+      int id = idxl.readNum(offset);
+      long p = offset + Num.length(id);
       tb.add("  ").addInt(index).add(". offset: ").addLong(pos);
       if(all) {
-        tb.add(", key: \"").add(key(id)).add('"');
+        tb.add(", key: \"").add(key(offset)).add('"');
         tb.add(", ids").add("/pres").add(": ").addInt(id).add('/').addInt(pre(id));
       } else {
         tb.add(", ids").add(": ").addInt(id);
       }
       for(int c = 1; c < count; c++) {
-        id += idxl.readNum();
+        final int diff = idxl.readNum(p);
+        p += Num.length(diff);
+        id += diff;
         tb.add(",").addInt(id);
         if(all) tb.add('/').addInt(pre(id));
       }
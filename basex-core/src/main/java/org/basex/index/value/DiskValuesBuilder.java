@@ -3,6 +3,9 @@ package org.basex.index.value;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
@@ -28,12 +31,26 @@ import org.basex.util.list.*;
  * </li>
  * </ul>
  *
+ * <p>If {@link MetaData#parallel} is greater than 1, large databases are split into
+ * partitions, which are indexed in parallel and written to temporary runs. The runs are
+ * then combined via a k-way merge. If there are more than {@link #FANIN} runs, they are
+ * merged in several passes.</p>
+ *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
  */
 public final class DiskValuesBuilder extends ValuesBuilder {
+  /** Minimum number of nodes per partition. */
+  private static final int PARTITION = 1 << 16;
+  /** Maximum number of runs that are merged at once. */
+  private static final int FANIN = 64;
+
   /** Temporary value tree. */
   private IndexTree index;
+  /** Indicates if the indexing of a partition failed. */
+  private volatile boolean failed;
+  /** Number of nodes that have been indexed by partitions. */
+  private final AtomicInteger nodes = new AtomicInteger();
 
   /**
    * Constructor.
@@ -50,33 +67,29 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     Util.debug(detailedInfo());
 
     try {
-      final boolean updindex = data.meta.updindex;
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(indexEntry()) {
-          final int id = updindex ? data.id(pre) : pre;
-          if(tokenize) {
-            int pos = 0;
-            for(final byte[] token : distinctTokens(data.text(pre, text))) {
-              index.add(token, id, pos++);
-              count++;
-            }
-          } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-            index.add(data.text(pre, text), id, 0);
-            count++;
-          }
-        }
-      }
-
-      writeIndex(splits > 0);
-      if(splits > 1) {
+      final int parts = Math.min(data.meta.parallel, size / PARTITION);
+      if(parts > 1) {
         index = null;
+        partitions(parts);
         clean();
         merge();
+      } else {
+        final boolean updindex = data.meta.updindex;
+        for(pre = 0; pre < size; ++pre) {
+          if((pre & 0x0FFF) == 0) check();
+          if(indexEntry()) count += add(index, pre, updindex);
+        }
+
+        writeIndex(splits > 0);
+        if(splits > 1) {
+          index = null;
+          clean();
+          merge();
+        }
       }
 
       finishIndex();
-      return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
+      return data.meta.updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
 
     } catch(final Throwable th) {
       // drop index files
@@ -96,61 +109,165 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     }
   }
 
+  /**
+   * Adds the index entries of the specified node to an index tree.
+   * @param tree index tree
+   * @param p pre value
+   * @param updindex updatable index
+   * @return number of added entries
+   */
+  private int add(final IndexTree tree, final int p, final boolean updindex) {
+    final int id = updindex ? data.id(p) : p;
+    int c = 0;
+    if(tokenize) {
+      for(final byte[] token : distinctTokens(data.text(p, text))) tree.add(token, id, c++);
+    } else if(data.textLen(p, text) <= data.meta.maxlen) {
+      tree.add(data.text(p, text), id, 0);
+      c++;
+    }
+    return c;
+  }
+
+  /**
+   * Indexes partitions of the database in parallel and writes them to temporary runs.
+   * @param parts number of partitions
+   * @throws IOException I/O exception
+   */
+  private void partitions(final int parts) throws IOException {
+    final AtomicInteger runs = new AtomicInteger();
+    final ExecutorService pool = Executors.newFixedThreadPool(parts);
+    try {
+      final ArrayList<Future<Long>> futures = new ArrayList<>(parts);
+      for(int p = 0; p < parts; p++) {
+        final int start = (int) ((long) size * p / parts);
+        final int end = (int) ((long) size * (p + 1) / parts);
+        futures.add(pool.submit(() -> {
+          try {
+            return partition(start, end, parts, runs);
+          } catch(final Throwable th) {
+            // stop indexing of other partitions
+            failed = true;
+            throw th;
+          }
+        }));
+      }
+      // wait for all partitions, even if one of them failed
+      Throwable error = null;
+      for(final Future<Long> future : futures) {
+        try {
+          count += future.get();
+        } catch(final InterruptedException ex) {
+          failed = true;
+          if(error == null) error = ex;
+        } catch(final ExecutionException ex) {
+          if(error == null) error = ex.getCause();
+        }
+      }
+      if(error instanceof IOException) throw (IOException) error;
+      if(error instanceof RuntimeException) throw (RuntimeException) error;
+      if(error instanceof Error) throw (Error) error;
+      if(error != null) throw new IOException(error);
+    } finally {
+      pool.shutdown();
+    }
+    splits = runs.get();
+    pre = size;
+  }
+
+  /**
+   * Indexes a partition of the database and writes it to one or more temporary runs.
+   * @param start first pre value
+   * @param end pre value after the last node
+   * @param parts number of partitions
+   * @param runs run counter
+   * @return number of index operations
+   * @throws IOException I/O exception
+   */
+  private long partition(final int start, final int end, final int parts,
+      final AtomicInteger runs) throws IOException {
+
+    final boolean updindex = data.meta.updindex;
+    IndexTree tree = new IndexTree(type);
+    long total = 0, cnt = 0;
+    int checks = -1, last = start;
+    for(int p = start; p < end; p++) {
+      if((p & 0x0FFF) == 0) {
+        checkStop();
+        if(failed) return total;
+        // progress information
+        nodes.addAndGet(p - last);
+        last = p;
+        if(checks >= 0) checks++;
+        if(splitRequired(cnt, checks, parts)) {
+          writeIndex(tree, runs.getAndIncrement());
+          tree = new IndexTree(type);
+          cnt = 0;
+          checks = 0;
+          clean();
+        }
+      }
+      if(indexEntry(p)) {
+        final int c = add(tree, p, updindex);
+        cnt += c;
+        total += c;
+      }
+    }
+    if(tree.size() > 0) writeIndex(tree, runs.getAndIncrement());
+    nodes.addAndGet(end - last);
+    return total;
+  }
+
+  @Override
+  protected int processed() {
+    return Math.max(pre, nodes.get());
+  }
+
   /**
    * Merges cached index files.
    * @throws IOException I/O exception
    */
   private void merge() throws IOException {
+    // limit the number of simultaneously opened files
+    int first = 0;
+    while(splits - first > FANIN) {
+      merge(first, first + FANIN, splits++);
+      first += FANIN;
+    }
+
     final String f = DiskValues.fileSuffix(type);
     int entries = 0;
     try(DataOutput outL = new DataOutput(data.meta.dbFile(f + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbFile(f + 'r'))) {
       outL.write4(0);
 
-      // initialize cached index iterators
-      final IntList ml = new IntList();
+      // parse through all values, cache and sort id values of identical keys
+      final MinHeap<byte[], DiskValuesMerger> heap = heap(first, splits);
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
-      final DiskValuesMerger[] vm = new DiskValuesMerger[splits];
-      for(int i = 0; i < splits; ++i) vm[i] = new DiskValuesMerger(data, type, i);
-
-      // parse through all values
-      while(true) {
+      byte[] key = null;
+      while(!heap.isEmpty()) {
         checkStop();
 
-        // find first index which has not completely been parsed yet
-        int min = -1;
-        while(++min < splits && vm[min].values.length == 0);
-        if(min == splits) break;
-
-        // find index entry with the smallest key
-        ml.reset();
-        for(int i = min; i < splits; ++i) {
-          if(vm[i].values.length == 0) continue;
-          final int d = diff(vm[min].key, vm[i].key);
-          if(d < 0) continue;
-          if(d > 0) {
-            min = i;
-            ml.reset();
-          }
-          ml.add(i);
+        final DiskValuesMerger vm = heap.removeMin();
+        if(key != null && !eq(key, vm.key)) {
+          // write final structure to disk
+          write(outL, outR, id, pos);
+          ++entries;
         }
+        key = vm.key;
 
-        // parse through all values, cache and sort id values
-        final int ms = ml.size();
-        for(int m = 0; m < ms; ++m) {
-          final DiskValuesMerger t = vm[ml.get(m)];
-          final byte[] values = t.values;
-          final int vl = values.length;
-          for(int l = 4; l < vl; l += Num.length(values, l)) {
-            id.add(Num.get(values, l));
-            if(pos != null) {
-              l += Num.length(values, l);
-              pos.add(Num.get(values, l));
-            }
+        final byte[] values = vm.values;
+        final int vl = values.length;
+        for(int l = 4; l < vl; l += Num.length(values, l)) {
+          id.add(Num.get(values, l));
+          if(pos != null) {
+            l += Num.length(values, l);
+            pos.add(Num.get(values, l));
           }
-          t.next();
         }
-        // write final structure to disk
+        vm.next();
+        if(vm.values.length != 0) heap.insert(vm.key, vm);
+      }
+      if(key != null) {
         write(outL, outR, id, pos);
         ++entries;
       }
@@ -162,22 +279,96 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     }
   }
 
+  /**
+   * Merges the specified temporary runs and writes the entries to a new run.
+   * @param start first run
+   * @param end run after the last run to be merged
+   * @param run number of the new run
+   * @throws IOException I/O exception
+   */
+  private void merge(final int start, final int end, final int run) throws IOException {
+    final String name = DiskValues.fileSuffix(type) + run;
+    int entries = 0;
+    try(DataOutput outL = new DataOutput(data.meta.dbFile(name + 'l'));
+        DataOutput outR = new DataOutput(data.meta.dbFile(name + 'r'));
+        DataOutput outT = new DataOutput(data.meta.dbFile(name + 't'))) {
+      outL.write4(0);
+
+      // concatenate the values of identical keys
+      final MinHeap<byte[], DiskValuesMerger> heap = heap(start, end);
+      final ByteList values = new ByteList();
+      byte[] key = null;
+      while(!heap.isEmpty()) {
+        checkStop();
+
+        final DiskValuesMerger vm = heap.removeMin();
+        if(key != null && !eq(key, vm.key)) {
+          write(outL, outR, outT, key, values);
+          ++entries;
+        }
+        key = vm.key;
+        values.add(vm.values, 4, vm.values.length);
+        vm.next();
+        if(vm.values.length != 0) heap.insert(vm.key, vm);
+      }
+      if(key != null) {
+        write(outL, outR, outT, key, values);
+        ++entries;
+      }
+    }
+
+    // write number of entries to first position
+    try(DataAccess da = new DataAccess(data.meta.dbFile(name + 'l'))) {
+      da.write4(entries);
+    }
+  }
+
+  /**
+   * Opens the specified temporary runs.
+   * @param start first run
+   * @param end run after the last run to be opened
+   * @return cached index iterators, ordered by their current keys
+   * @throws IOException I/O exception
+   */
+  private MinHeap<byte[], DiskValuesMerger> heap(final int start, final int end)
+      throws IOException {
+    final MinHeap<byte[], DiskValuesMerger> heap = new MinHeap<>(Token::diff);
+    for(int i = start; i < end; ++i) {
+      final DiskValuesMerger vm = new DiskValuesMerger(data, type, i);
+      if(vm.values.length != 0) heap.insert(vm.key, vm);
+    }
+    return heap;
+  }
+
   /**
    * Writes the current index tree to disk.
    * @param partial partial flag
    * @throws IOException I/O exception
    */
   private void writeIndex(final boolean partial) throws IOException {
+    writeIndex(index, partial ? splits : -1);
+    // increase split counter
+    splits++;
+  }
+
+  /**
+   * Writes an index tree to disk.
+   * @param tree index tree
+   * @param run number of the temporary run ({@code -1}: write final structure)
+   * @throws IOException I/O exception
+   */
+  private void writeIndex(final IndexTree tree, final int run) throws IOException {
     // write id arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final boolean partial = run != -1;
+    final String name = DiskValues.fileSuffix(type) + (partial ? run : "");
     try(DataOutput outL = new DataOutput(data.meta.dbFile(name + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbFile(name + 'r'))) {
-      outL.write4(index.size());
+      outL.write4(tree.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
-      index.init();
-      while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+      tree.init();
+      while(tree.more()) {
+        final byte[] values = tree.ids.get(tree.next());
         final int vs = Num.size(values);
 
         if(partial) {
@@ -202,12 +393,28 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     // temporarily write texts
     if(partial) {
       try(DataOutput outT = new DataOutput(data.meta.dbFile(name + 't'))) {
-        index.init();
-        while(index.more()) outT.writeToken(index.keys.get(index.next()));
+        tree.init();
+        while(tree.more()) outT.writeToken(tree.keys.get(tree.next()));
       }
     }
-    // increase split counter
-    splits++;
+  }
+
+  /**
+   * Writes a temporary entry to disk.
+   * @param outL index values
+   * @param outR references
+   * @param outT keys
+   * @param key key
+   * @param values compressed values without size header
+   * @throws IOException I/O exception
+   */
+  private static void write(final DataOutput outL, final DataOutput outR, final DataOutput outT,
+      final byte[] key, final ByteList values) throws IOException {
+    outR.write5(outL.size());
+    outL.write4(values.size() + 4);
+    outL.write(values.toArray());
+    outT.writeToken(key);
+    values.reset();
   }
 
   /**
@@ -6,6 +6,8 @@ import java.util.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.ft.*;
+import org.basex.util.ft.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
@@ -51,10 +53,14 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param data data reference
    */
   public ValueCache(final IntList pres, final IndexType type, final Data data) {
-    pos = type == IndexType.TOKEN ? new ArrayList<>() : null;
+    final boolean ft = type == IndexType.FULLTEXT;
+    pos = type == IndexType.TOKEN || ft ? new ArrayList<>() : null;
+    // full-text lexer (null if the full-text index is not updatable)
+    final FTLexer lexer = ft ? ((FTIndex) data.ftIndex).lexer() : null;
+    if(ft && lexer == null) return;
 
     final IndexNames in = new IndexNames(type, data);
-    final boolean text = type == IndexType.TEXT;
+    final boolean text = type == IndexType.TEXT || ft;
     final int pl = pres.size(), kind = text ? Data.TEXT : Data.ATTR;
     for(int p = 0; p < pl; p++) {
       final int pre = pres.get(p);
@@ -64,6 +70,14 @@ public final class ValueCache implements Iterable<byte[]> {
           for(final byte[] token : distinctTokens(data.text(pre, false))) {
             addId(token, pre, ps++, data);
           }
+        } else if(ft) {
+          // index all tokens, skip too long and stopword tokens
+          final StopWords sw = lexer.ftOpt().sw;
+          lexer.init(data.text(pre, true));
+          for(int ps = 0; lexer.hasNext(); ps++) {
+            final byte[] token = lexer.nextToken();
+            if(token.length <= data.meta.maxlen && !sw.contains(token)) addId(token, pre, ps, data);
+          }
         } else if(data.textLen(pre, text) <= data.meta.maxlen) {
           addId(data.text(pre, text), pre, 0, data);
         }
@@ -129,7 +143,7 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param key key
    * @return id list
    */
-  IntList ids(final byte[] key) {
+  public IntList ids(final byte[] key) {
     return ids.get(keys.id(key) - 1);
   }
 
@@ -138,7 +152,7 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param key key
    * @return id list or {@code null}
    */
-  IntList pos(final byte[] key) {
+  public IntList pos(final byte[] key) {
     return pos != null ? pos.get(keys.id(key) - 1) : null;
   }
 }
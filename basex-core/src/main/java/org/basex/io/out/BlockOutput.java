@@ -0,0 +1,72 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class writes data in compressed blocks. The file layout is described in
+ * {@link BlockAccess}.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockOutput extends OutputStream {
+  /** Buffer. */
+  private final byte[] buffer = new byte[BlockAccess.BLOCKSIZE];
+  /** Buffer for compressed blocks. */
+  private final byte[] packed = new byte[LZ4.maxLength(BlockAccess.BLOCKSIZE)];
+  /** Offsets of the compressed blocks. */
+  private final LongList offsets = new LongList();
+
+  /** The underlying output stream. */
+  private final DataOutput out;
+  /** Current buffer position. */
+  private int pos;
+  /** Number of written bytes. */
+  private long size;
+
+  /**
+   * Constructor.
+   * @param file file to be written to
+   * @param bufsize size of the output buffer
+   * @throws IOException I/O exception
+   */
+  public BlockOutput(final IOFile file, final int bufsize) throws IOException {
+    out = new DataOutput(file, bufsize);
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if(pos == BlockAccess.BLOCKSIZE) writeBuffer();
+    buffer[pos++] = (byte) b;
+    size++;
+  }
+
+  /**
+   * Compresses the current block and writes it to disk.
+   * @throws IOException I/O exception
+   */
+  private void writeBuffer() throws IOException {
+    offsets.add(out.size());
+    out.write(packed, 0, LZ4.compress(buffer, pos, packed));
+    pos = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if(pos > 0) writeBuffer();
+      // write block offsets, number of uncompressed bytes and number of blocks
+      final long[] offs = offsets.finish();
+      for(final long offset : offs) out.write5(offset);
+      out.write5(size);
+      out.write4(offs.length);
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides positional read access to a file with compressed blocks.
+ * All read operations can be called by multiple threads without synchronization.
+ *
+ * The file is written by {@link org.basex.io.out.BlockOutput}. It has the following layout:
+ * <pre>
+ * - blocks: data, split into blocks of {@link #BLOCKSIZE} bytes and compressed with {@link LZ4}
+ * - offsets: file offsets of all blocks (5 bytes each)
+ * - length: total number of uncompressed bytes (5 bytes)
+ * - blocks: number of blocks (4 bytes)
+ * </pre>
+ *
+ * Decompressed blocks are cached.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockAccess implements Closeable {
+  /** Power of block size. */
+  public static final int BLOCKPOWER = 16;
+  /** Size of uncompressed blocks. */
+  public static final int BLOCKSIZE = 1 << BLOCKPOWER;
+  /** Number of cached blocks (must be 1 << n). */
+  private static final int CACHE = 1 << 6;
+
+  /** Cached blocks. */
+  private final AtomicReferenceArray<Block> cache = new AtomicReferenceArray<>(CACHE);
+  /** Reference to the file. */
+  private final RandomAccessFile raf;
+  /** File channel, used for positional reads. */
+  private final FileChannel channel;
+  /** File offsets of the compressed blocks, and the end of the last block. */
+  private final long[] offsets;
+  /** Number of uncompressed bytes. */
+  private final long length;
+
+  /**
+   * Constructor.
+   * @param file file to be read
+   * @throws IOException I/O exception
+   */
+  public BlockAccess(final IOFile file) throws IOException {
+    raf = new RandomAccessFile(file.file(), "r");
+    try {
+      channel = raf.getChannel();
+      final long fl = raf.length();
+      final ByteBuffer bb = read(fl - 9, 9);
+      length = (long) (bb.get() & 0xFF) << 32 | bb.getInt() & 0xFFFFFFFFL;
+      final int blocks = bb.getInt();
+
+      final long end = fl - 9 - blocks * 5L;
+      final ByteBuffer ob = read(end, blocks * 5);
+      offsets = new long[blocks + 1];
+      for(int b = 0; b < blocks; b++) {
+        offsets[b] = (long) (ob.get() & 0xFF) << 32 | ob.getInt() & 0xFFFFFFFFL;
+      }
+      offsets[blocks] = end;
+    } catch(final IOException ex) {
+      raf.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the number of uncompressed bytes.
+   * @return length
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * @param pos position
+   * @return read num
+   */
+  public int readNum(final long pos) {
+    final int value = read1(pos);
+    switch(value & 0xC0) {
+    case 0:
+      return value;
+    case 0x40:
+      return (value - 0x40 << 8) + read1(pos + 1);
+    case 0x80:
+      return (value - 0x80 << 24) + (read1(pos + 1) << 16) + (read1(pos + 2) << 8) +
+          read1(pos + 3);
+    default:
+      return (read1(pos + 1) << 24) + (read1(pos + 2) << 16) + (read1(pos + 3) << 8) +
+          read1(pos + 4);
+    }
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * @param pos position
+   * @return token
+   */
+  public byte[] readToken(final long pos) {
+    final int l = readNum(pos);
+    return readBytes(pos + Num.length(l), l);
+  }
+
+  /**
+   * Reads a number of bytes from the specified position.
+   * @param pos position
+   * @param len length
+   * @return byte array
+   */
+  public byte[] readBytes(final long pos, final int len) {
+    final byte[] data = new byte[len];
+    long p = pos;
+    for(int o = 0; o < len;) {
+      final int off = (int) (p & BLOCKSIZE - 1), l = Math.min(len - o, BLOCKSIZE - off);
+      Array.copy(block(p), off, l, data, o);
+      o += l;
+      p += l;
+    }
+    return data;
+  }
+
+  @Override
+  public void close() {
+    try {
+      raf.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  private int read1(final long pos) {
+    return block(pos)[(int) (pos & BLOCKSIZE - 1)] & 0xFF;
+  }
+
+  /**
+   * Returns the decompressed block for the specified position.
+   * @param pos position
+   * @return block
+   */
+  private byte[] block(final long pos) {
+    final int index = (int) (pos >>> BLOCKPOWER), c = index & CACHE - 1;
+    final Block cached = cache.get(c);
+    if(cached != null && cached.index == index) return cached.data;
+
+    final long start = offsets[index];
+    final byte[] data = new byte[(int) Math.min(BLOCKSIZE, length - ((long) index << BLOCKPOWER))];
+    try {
+      final ByteBuffer bb = read(start, (int) (offsets[index + 1] - start));
+      LZ4.decompress(bb.array(), 0, bb.capacity(), data);
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+    cache.set(c, new Block(index, data));
+    return data;
+  }
+
+  /**
+   * Reads bytes from the specified file offset.
+   * @param pos file offset
+   * @param len number of bytes
+   * @return buffer
+   * @throws IOException I/O exception
+   */
+  private ByteBuffer read(final long pos, final int len) throws IOException {
+    final ByteBuffer bb = ByteBuffer.allocate(len);
+    while(bb.hasRemaining()) {
+      if(channel.read(bb, pos + bb.position()) == -1) throw new EOFException();
+    }
+    return bb.flip();
+  }
+
+  /** Decompressed block. */
+  private static final class Block {
+    /** Block index. */
+    final int index;
+    /** Uncompressed data. */
+    final byte[] data;
+
+    /**
+     * Constructor.
+     * @param index block index
+     * @param data uncompressed data
+     */
+    Block(final int index, final byte[] data) {
+      this.index = index;
+      this.data = data;
+    }
+  }
+}
@@ -15,4 +15,18 @@ final class Buffer {
   long pos = -1;
   /** Dirty flag. */
   boolean dirty;
+  /** Indicates if the current contents have been added to a journal. */
+  boolean journaled;
+  /** Hot flag (buffer has been accessed repeatedly). */
+  boolean hot;
+  /** Reference flag (buffer has been accessed since the clock hand passed it). */
+  boolean referenced;
+
+  /**
+   * Marks the buffer as modified.
+   */
+  void modify() {
+    dirty = true;
+    journaled = false;
+  }
 }
@@ -0,0 +1,75 @@
+package org.basex.io.random;
+
+import java.util.concurrent.atomic.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+
+/**
+ * This class limits the total number of disk buffers that are allocated by all open database
+ * files. It does not hold any buffers itself: buffers are owned by the files, and the pool only
+ * keeps count of them. Its size is assigned via {@link StaticOptions#BUFFERPOOL} when the main
+ * context is created. Each file owns a minimum number of buffers; additional buffers are counted
+ * by this pool, and a single file will never occupy more than a quarter of the pool.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferPool {
+  /** Number of buffers that are currently in use. */
+  private static final AtomicInteger USED = new AtomicInteger();
+  /** Maximum number of buffers. */
+  private static volatile int max = buffers(StaticOptions.BUFFERPOOL.value());
+
+  /** Private constructor. */
+  private BufferPool() { }
+
+  /**
+   * Assigns the size of the buffer pool.
+   * Buffers that are currently in use will be released when the owning files are closed.
+   * @param mb size in megabytes
+   */
+  public static void size(final int mb) {
+    max = buffers(mb);
+  }
+
+  /**
+   * Returns the number of buffers for the specified size.
+   * @param mb size in megabytes
+   * @return number of buffers
+   */
+  private static int buffers(final int mb) {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, (long) mb << 20 >>> IO.BLOCKPOWER));
+  }
+
+  /**
+   * Returns the number of buffers that are currently in use.
+   * @return number of buffers
+   */
+  public static int used() {
+    return USED.get();
+  }
+
+  /**
+   * Requests a buffer.
+   * @param pooled number of buffers that have already been requested by the calling file
+   * @return success flag
+   */
+  static boolean acquire(final int pooled) {
+    final int m = max;
+    if(pooled >= m >>> 2) return false;
+    while(true) {
+      final int u = USED.get();
+      if(u >= m) return false;
+      if(USED.compareAndSet(u, u + 1)) return true;
+    }
+  }
+
+  /**
+   * Returns buffers to the pool.
+   * @param count number of buffers
+   */
+  static void release(final int count) {
+    if(count > 0) USED.addAndGet(-count);
+  }
+}
@@ -0,0 +1,33 @@
+package org.basex.io.random;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Statistics on buffer accesses of a database. A request is counted whenever a file switches
+ * to another disk block; it is a hit if the block was found in a buffer.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferStats {
+  /** Number of hits. */
+  final LongAdder hits = new LongAdder();
+  /** Number of misses. */
+  final LongAdder misses = new LongAdder();
+
+  /**
+   * Returns the number of buffer hits.
+   * @return hits
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of buffer misses.
+   * @return misses
+   */
+  public long misses() {
+    return misses.sum();
+  }
+}
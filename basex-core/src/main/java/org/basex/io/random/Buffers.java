@@ -1,23 +1,50 @@
 package org.basex.io.random;
 
+import java.util.*;
+
 /**
- * This class provides a simple, clock-based buffer management.
+ * This class provides a scan-resistant, clock-based buffer management.
+ *
+ * Buffers are looked up via a hash index. The number of buffers grows on demand: Each
+ * instance owns {@link #MIN} buffers, and additional buffers are requested from the
+ * {@link BufferPool}. If no more buffers can be allocated, a buffer is replaced.
+ * Replacement follows a variant of CLOCK-Pro: Newly loaded blocks are <i>cold</i> and will be
+ * replaced when the clock hand reaches them without having been accessed again. Cold blocks
+ * that are accessed again become <i>hot</i>, and hot blocks are demoted to cold blocks if they
+ * have not been accessed for a full clock cycle. As a result, blocks that are read only once
+ * (e.g. by sequential scans) will not displace frequently accessed blocks.
  *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
  */
 final class Buffers {
-  /** Number of buffers (must be 1 << n). */
-  private static final int BUFFERS = 1 << 4;
+  /** Minimum number of buffers (must be 1 << n). */
+  static final int MIN = 1 << 4;
+
+  /** Buffer statistics (can be {@code null}). */
+  private final BufferStats stats;
   /** Buffers. */
-  private final Buffer[] buffer = new Buffer[BUFFERS];
+  private Buffer[] buffer;
+  /** Number of allocated buffers. */
+  private int size;
+  /** Number of buffers that have been requested from the buffer pool. */
+  private int pooled;
   /** Current buffer offset. */
   private int offset;
+  /** Clock hand. */
+  private int hand;
+
+  /** Hash index: block positions. */
+  private long[] keys;
+  /** Hash index: buffer offsets, incremented by one ({@code 0}: empty entry). */
+  private int[] values;
 
   /**
    * Constructor.
+   * @param stats buffer statistics (can be {@code null})
    */
-  Buffers() {
+  Buffers(final BufferStats stats) {
+    this.stats = stats;
     init();
   }
 
@@ -25,9 +52,14 @@ final class Buffers {
    * Initializes the buffers.
    */
   void init() {
-    for(int b = 0; b < BUFFERS; ++b) {
-      buffer[b] = new Buffer();
-    }
+    close();
+    buffer = new Buffer[MIN];
+    buffer[0] = new Buffer();
+    size = 1;
+    keys = new long[MIN << 1];
+    values = new int[MIN << 1];
+    offset = 0;
+    hand = 0;
   }
 
   /**
@@ -35,7 +67,7 @@ final class Buffers {
    * @return buffers
    */
   Buffer[] all() {
-    return buffer;
+    return Arrays.copyOf(buffer, size);
   }
 
   /**
@@ -48,17 +80,154 @@ final class Buffers {
 
   /**
    * Chooses a buffer and sets the offset.
+   * If the cursor has changed, the current buffer must be written (if dirty) and refilled
+   * by the caller.
    * @param pos buffer position
    * @return true if cursor has changed
    */
   boolean cursor(final long pos) {
-    final int o = offset;
-    do {
-      if(buffer[offset].pos == pos) return false;
-      offset = offset + 1 & BUFFERS - 1;
-    } while(offset != o);
+    if(buffer[offset].pos == pos) return false;
+
+    final int o = get(pos);
+    if(o != -1) {
+      // buffer hit: record access
+      final Buffer b = buffer[o];
+      b.referenced = true;
+      offset = o;
+      if(stats != null) stats.hits.increment();
+      return false;
+    }
 
-    offset = o + 1 & BUFFERS - 1;
+    // buffer miss: use empty buffer, allocate new buffer or replace existing one
+    if(stats != null) stats.misses.increment();
+    final int n = buffer[offset].pos == -1 ? offset :
+      size < MIN || BufferPool.acquire(pooled) ? allocate() : replace();
+    offset = n;
+    put(pos, n);
     return true;
   }
+
+  /**
+   * Releases all buffers that have been requested from the buffer pool.
+   */
+  void close() {
+    BufferPool.release(pooled);
+    pooled = 0;
+  }
+
+  /**
+   * Allocates a new buffer.
+   * @return offset of new buffer
+   */
+  private int allocate() {
+    if(size >= MIN) pooled++;
+    if(size == buffer.length) buffer = Arrays.copyOf(buffer, size << 1);
+    buffer[size] = new Buffer();
+    // resize hash index if load factor exceeds 50%
+    if(size << 1 >= keys.length) rehash(keys.length << 1);
+    return size++;
+  }
+
+  /**
+   * Chooses a buffer to be replaced, and removes its position from the hash index.
+   * @return offset of buffer
+   */
+  private int replace() {
+    while(true) {
+      final int h = hand;
+      hand = h + 1 == size ? 0 : h + 1;
+      // skip current buffer
+      if(h == offset && size > 1) continue;
+
+      final Buffer b = buffer[h];
+      if(b.referenced) {
+        // referenced buffer: promote, reset reference bit
+        b.hot = true;
+        b.referenced = false;
+      } else if(b.hot) {
+        // unreferenced hot buffer: demote
+        b.hot = false;
+      } else {
+        // unreferenced cold buffer: replace
+        if(b.pos != -1) remove(b.pos);
+        return h;
+      }
+    }
+  }
+
+  // HASH INDEX ===================================================================================
+
+  /**
+   * Returns the offset of the buffer with the specified position.
+   * @param pos block position
+   * @return offset, or {@code -1}
+   */
+  private int get(final long pos) {
+    final int m = keys.length - 1;
+    for(int i = hash(pos) & m;; i = i + 1 & m) {
+      final int v = values[i];
+      if(v == 0) return -1;
+      if(keys[i] == pos) return v - 1;
+    }
+  }
+
+  /**
+   * Indexes the specified position.
+   * @param pos block position
+   * @param off buffer offset
+   */
+  private void put(final long pos, final int off) {
+    final int m = keys.length - 1;
+    int i = hash(pos) & m;
+    while(values[i] != 0) i = i + 1 & m;
+    keys[i] = pos;
+    values[i] = off + 1;
+  }
+
+  /**
+   * Removes the specified position from the index.
+   * @param pos block position
+   */
+  private void remove(final long pos) {
+    final int m = keys.length - 1;
+    int i = hash(pos) & m;
+    while(keys[i] != pos || values[i] == 0) {
+      if(values[i] == 0) return;
+      i = i + 1 & m;
+    }
+    // shift subsequent entries of the same probe sequence
+    for(int j = i + 1 & m; values[j] != 0; j = j + 1 & m) {
+      final int h = hash(keys[j]) & m;
+      if(i <= j ? i < h && h <= j : i < h || h <= j) continue;
+      keys[i] = keys[j];
+      values[i] = values[j];
+      i = j;
+    }
+    values[i] = 0;
+  }
+
+  /**
+   * Resizes the hash index.
+   * @param capacity new capacity
+   */
+  private void rehash(final int capacity) {
+    final long[] ks = keys;
+    final int[] vs = values;
+    keys = new long[capacity];
+    values = new int[capacity];
+    final int kl = ks.length;
+    for(int k = 0; k < kl; k++) {
+      if(vs[k] != 0) put(ks[k], vs[k] - 1);
+    }
+  }
+
+  /**
+   * Computes a hash value for the specified position.
+   * @param pos block position
+   * @return hash value
+   */
+  private static int hash(final long pos) {
+    final long h = pos * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ h >>> 32);
+  }
 }
@@ -7,13 +7,14 @@ import org.basex.util.*;
 
 /**
  * This class allows positional read and write access to a database file.
+ * Reads are synchronized unless a memory-mapped snapshot has been created via {@link #map()}.
  *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
  */
 public final class DataAccess implements Closeable {
   /** Buffer manager. */
-  private final Buffers buffers = new Buffers();
+  private final Buffers buffers;
   /** Reference to the data input stream. */
   private final RandomAccessFile raf;
   /** File size. */
@@ -22,6 +23,8 @@ public final class DataAccess implements Closeable {
   private boolean changed;
   /** Offset. */
   private int off;
+  /** Memory-mapped snapshot for positional reads (can be {@code null}). */
+  private volatile FileMapping mapping;
 
   /**
    * Constructor, initializing the file reader.
@@ -29,6 +32,17 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile file) throws IOException {
+    this(file, null);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param stats buffer statistics (can be {@code null})
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final BufferStats stats) throws IOException {
+    buffers = new Buffers(stats);
     RandomAccessFile f = null;
     try {
       f = new RandomAccessFile(file.file(), "rw");
@@ -58,9 +72,23 @@ public final class DataAccess implements Closeable {
     }
   }
 
+  /**
+   * Creates a memory-mapped snapshot of the file. Until the file is modified, the snapshot
+   * will be used by all positional read operations, which can then be run without
+   * synchronization. Positional reads will not move the file cursor.
+   * @throws IOException I/O exception
+   */
+  public synchronized void map() throws IOException {
+    flush();
+    unmap();
+    mapping = new FileMapping(raf.getChannel(), length);
+  }
+
   @Override
   public synchronized void close() {
+    unmap();
     flush();
+    buffers.close();
     try {
       raf.close();
     } catch(final IOException ex) {
@@ -97,9 +125,19 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return integer value
    */
-  public synchronized byte read1(final long pos) {
-    cursor(pos);
-    return read1();
+  public byte read1(final long pos) {
+    final FileMapping m = mapping;
+    if(m != null && m.acquire()) {
+      try {
+        return (byte) m.read1(pos);
+      } finally {
+        m.release();
+      }
+    }
+    synchronized(this) {
+      cursor(pos);
+      return read1();
+    }
   }
 
   /**
@@ -115,9 +153,19 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return integer value
    */
-  public synchronized int read4(final long pos) {
-    cursor(pos);
-    return read4();
+  public int read4(final long pos) {
+    final FileMapping m = mapping;
+    if(m != null && m.acquire()) {
+      try {
+        return m.read4(pos);
+      } finally {
+        m.release();
+      }
+    }
+    synchronized(this) {
+      cursor(pos);
+      return read4();
+    }
   }
 
   /**
@@ -133,9 +181,19 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return long value
    */
-  public synchronized long read5(final long pos) {
-    cursor(pos);
-    return read5();
+  public long read5(final long pos) {
+    final FileMapping m = mapping;
+    if(m != null && m.acquire()) {
+      try {
+        return m.read5(pos);
+      } finally {
+        m.release();
+      }
+    }
+    synchronized(this) {
+      cursor(pos);
+      return read5();
+    }
   }
 
   /**
@@ -151,9 +209,19 @@ public final class DataAccess implements Closeable {
    * @param pos text position
    * @return read num
    */
-  public synchronized int readNum(final long pos) {
-    cursor(pos);
-    return readNum();
+  public int readNum(final long pos) {
+    final FileMapping m = mapping;
+    if(m != null && m.acquire()) {
+      try {
+        return m.readNum(pos);
+      } finally {
+        m.release();
+      }
+    }
+    synchronized(this) {
+      cursor(pos);
+      return readNum();
+    }
   }
 
   /**
@@ -161,9 +229,19 @@ public final class DataAccess implements Closeable {
    * @param pos text position
    * @return text as byte array
    */
-  public synchronized byte[] readToken(final long pos) {
-    cursor(pos);
-    return readToken();
+  public byte[] readToken(final long pos) {
+    final FileMapping m = mapping;
+    if(m != null && m.acquire()) {
+      try {
+        return m.readToken(pos);
+      } finally {
+        m.release();
+      }
+    }
+    synchronized(this) {
+      cursor(pos);
+      return readToken();
+    }
   }
 
   /**
@@ -181,9 +259,19 @@ public final class DataAccess implements Closeable {
    * @param len length
    * @return byte array
    */
-  public synchronized byte[] readBytes(final long pos, final int len) {
-    cursor(pos);
-    return readBytes(len);
+  public byte[] readBytes(final long pos, final int len) {
+    final FileMapping m = mapping;
+    if(m != null && m.acquire()) {
+      try {
+        return m.readBytes(pos, len);
+      } finally {
+        m.release();
+      }
+    }
+    synchronized(this) {
+      cursor(pos);
+      return readBytes(len);
+    }
   }
 
   /**
@@ -309,6 +397,7 @@ public final class DataAccess implements Closeable {
    * @param len number of bytes to be written
    */
   public void writeBytes(final byte[] data, final int offset, final int len) {
+    unmap();
     final int last = offset + len;
     int o = offset;
 
@@ -316,7 +405,7 @@ public final class DataAccess implements Closeable {
       final Buffer buffer = buffer();
       final int l = Math.min(last - o, IO.BLOCKSIZE - off);
       Array.copy(data, o, l, buffer.data, off);
-      buffer.dirty = true;
+      buffer.modify();
       off += l;
       o += l;
       // adjust file size
@@ -402,13 +491,26 @@ public final class DataAccess implements Closeable {
    * @param value byte to be written
    */
   private void write(final int value) {
+    unmap();
     final Buffer buffer = buffer();
-    buffer.dirty = true;
+    buffer.modify();
     buffer.data[off++] = (byte) value;
     final long nl = buffer.pos + off;
     if(nl > length) length(nl);
   }
 
+  /**
+   * Discards the memory-mapped snapshot of the file. The file is unmapped as soon as
+   * the snapshot is not read by other threads anymore.
+   */
+  private void unmap() {
+    final FileMapping fm = mapping;
+    if(fm != null) {
+      mapping = null;
+      fm.close();
+    }
+  }
+
   /**
    * Writes the specified block to disk.
    * @param buffer buffer to write
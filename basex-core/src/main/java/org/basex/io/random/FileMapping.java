@@ -0,0 +1,217 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.util.*;
+
+/**
+ * Immutable, memory-mapped snapshot of a file.
+ * All read operations are positional and can be called by multiple threads without
+ * synchronization. Readers must register via {@link #acquire()} and {@link #release()}:
+ * the file is only unmapped if the snapshot has been closed and no readers are left.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+final class FileMapping {
+  /** Power of segment size (segments are aligned to the block size). */
+  private static final int SEGMENTPOWER = 30;
+  /** Segment size. */
+  private static final long SEGMENTSIZE = 1L << SEGMENTPOWER;
+  /** Unsafe instance ({@code null} if not available). */
+  private static final Object UNSAFE;
+  /** Method for unmapping buffers ({@code null} if not available). */
+  private static final Method CLEANER;
+
+  static {
+    // mapped buffers are only unmapped by the garbage collector, which prevents the deletion
+    // of the mapped files on Windows; unmapping them explicitly requires an internal API
+    Object unsafe = null;
+    Method cleaner = null;
+    try {
+      final Class<?> clazz = Class.forName("sun.misc.Unsafe");
+      final Field field = clazz.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      cleaner = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch(final Exception ex) {
+      Util.debug(ex);
+    }
+    UNSAFE = unsafe;
+    CLEANER = cleaner;
+  }
+
+  /** Mapped file segments. */
+  private final ByteBuffer[] segments;
+  /** Length of the mapped file. */
+  private final long length;
+  /** Number of active readers, plus 1 if the snapshot has not been closed (0: unmapped). */
+  private final AtomicInteger refs = new AtomicInteger(1);
+  /** Indicates if the snapshot has been closed. */
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  /**
+   * Constructor.
+   * @param channel file channel
+   * @param length number of bytes to be mapped
+   * @throws IOException I/O exception
+   */
+  FileMapping(final FileChannel channel, final long length) throws IOException {
+    this.length = length;
+    final int sl = (int) (length + SEGMENTSIZE - 1 >>> SEGMENTPOWER);
+    segments = new ByteBuffer[sl];
+    for(int s = 0; s < sl; s++) {
+      final long pos = (long) s << SEGMENTPOWER;
+      segments[s] = channel.map(MapMode.READ_ONLY, pos, Math.min(length - pos, SEGMENTSIZE));
+    }
+  }
+
+  /**
+   * Returns the length of the mapped file.
+   * @return length
+   */
+  long length() {
+    return length;
+  }
+
+  /**
+   * Registers a reader. If successful, the file will not be unmapped before the reader
+   * calls {@link #release()}.
+   * @return {@code false} if the file has already been unmapped
+   */
+  boolean acquire() {
+    for(int r; (r = refs.get()) != 0;) {
+      if(refs.compareAndSet(r, r + 1)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Unregisters a reader. The file is unmapped if the snapshot has been closed and if
+   * this was the last reader.
+   */
+  void release() {
+    if(refs.decrementAndGet() == 0) {
+      // if unmapping is not supported, the segments will be released by the garbage collector
+      for(final ByteBuffer segment : segments) Reflect.invoke(CLEANER, UNSAFE, segment);
+    }
+  }
+
+  /**
+   * Closes the snapshot. The file is unmapped as soon as no readers are left.
+   */
+  void close() {
+    if(closed.compareAndSet(false, true)) release();
+  }
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read1(final long pos) {
+    return segment(pos).get(position(pos)) & 0xFF;
+  }
+
+  /**
+   * Reads a short value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read2(final long pos) {
+    final int p = position(pos);
+    return p <= SEGMENTSIZE - 2 ? segment(pos).getShort(p) & 0xFFFF :
+      (read1(pos) << 8) + read1(pos + 1);
+  }
+
+  /**
+   * Reads an integer value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read4(final long pos) {
+    final int p = position(pos);
+    return p <= SEGMENTSIZE - 4 ? segment(pos).getInt(p) :
+      (read1(pos) << 24) + (read1(pos + 1) << 16) + (read1(pos + 2) << 8) + read1(pos + 3);
+  }
+
+  /**
+   * Reads a 5-byte value from the specified position.
+   * @param pos position
+   * @return long value
+   */
+  long read5(final long pos) {
+    return (long) read1(pos) << 32 | read4(pos + 1) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * @param pos position
+   * @return read num
+   */
+  int readNum(final long pos) {
+    final int value = read1(pos);
+    switch(value & 0xC0) {
+    case 0:
+      return value;
+    case 0x40:
+      return (value - 0x40 << 8) + read1(pos + 1);
+    case 0x80:
+      return (value - 0x80 << 24) + (read1(pos + 1) << 16) + (read1(pos + 2) << 8) +
+          read1(pos + 3);
+    default:
+      return read4(pos + 1);
+    }
+  }
+
+  /**
+   * Reads a number of bytes from the specified position.
+   * @param pos position
+   * @param len length
+   * @return byte array
+   */
+  byte[] readBytes(final long pos, final int len) {
+    final byte[] data = new byte[len];
+    long p = pos;
+    for(int o = 0; o < len;) {
+      final int l = (int) Math.min(len - o, SEGMENTSIZE - position(p));
+      segment(p).duplicate().position(position(p)).get(data, o, l);
+      o += l;
+      p += l;
+    }
+    return data;
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * @param pos position
+   * @return token
+   */
+  byte[] readToken(final long pos) {
+    final int l = readNum(pos);
+    return readBytes(pos + Num.length(l), l);
+  }
+
+  /**
+   * Returns the segment for the specified position.
+   * @param pos position
+   * @return segment
+   */
+  private ByteBuffer segment(final long pos) {
+    return segments[(int) (pos >>> SEGMENTPOWER)];
+  }
+
+  /**
+   * Returns the offset of the specified position in its segment.
+   * @param pos position
+   * @return offset
+   */
+  private static int position(final long pos) {
+    return (int) (pos & SEGMENTSIZE - 1);
+  }
+}
@@ -0,0 +1,203 @@
+package org.basex.io.random;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Write-ahead journal of a database. Instead of writing modified pages and files in place
+ * after each update, their new contents are collected in a record, which is appended to the
+ * journal with a single sequential write. The original files are only updated when a
+ * checkpoint is performed, and the journal is replayed if a database is opened and the
+ * journal still exists.
+ *
+ * <ul>
+ * <li>Record: {@code [l, n, entry0, ..., entryn, c]}: {@code l} is the byte length of
+ *   {@code n} and the entries, {@code n} is the number of entries, and {@code c} is the
+ *   CRC32 checksum of the entries [int]. Records that are incomplete or have an invalid
+ *   checksum will be ignored.</li>
+ * <li>Entry: {@code [name, o, bytes]}: {@code name} is the name of the database file, and
+ *   {@code bytes} are the new contents [{@link Num}, bytes]. {@code o} is the file offset
+ *   ({@code -1}: the bytes replace the whole file) [long].</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class Journal implements Closeable {
+  /** Maximum size of a journal (a checkpoint will be performed if it is exceeded). */
+  public static final long MAX = 1 << 24;
+
+  /** Current record (the header is assigned when the record is committed). */
+  private final ByteList record = new ByteList().add(new byte[8]);
+  /** Journal file. */
+  private final IOFile file;
+  /** Output stream ({@code null} if the file has not been opened yet). */
+  private FileOutputStream output;
+  /** Number of entries of the current record. */
+  private int count;
+  /** Size of the committed records. */
+  private long size;
+
+  /**
+   * Constructor.
+   * @param file journal file
+   */
+  public Journal(final IOFile file) {
+    this.file = file;
+  }
+
+  /**
+   * Adds an entry to the current record.
+   * @param target database file
+   * @param offset file offset ({@code -1}: replace the whole file)
+   * @param bytes new contents
+   */
+  public void add(final IOFile target, final long offset, final byte[] bytes) {
+    final byte[] name = token(target.name());
+    record.add(Num.num(name.length)).add(name);
+    for(int s = 56; s >= 0; s -= 8) record.add((int) (offset >>> s));
+    record.add(Num.num(bytes.length)).add(bytes);
+    count++;
+  }
+
+  /**
+   * Appends the current record to the journal.
+   * @throws IOException I/O exception
+   */
+  public void commit() throws IOException {
+    if(count == 0) return;
+
+    record.add(new byte[4]);
+    final byte[] bytes = record.toArray();
+    final int bl = bytes.length;
+    final CRC32 crc = new CRC32();
+    crc.update(bytes, 8, bl - 12);
+    write4(bytes, 0, bl - 8);
+    write4(bytes, 4, count);
+    write4(bytes, bl - 4, (int) crc.getValue());
+
+    if(output == null) output = new FileOutputStream(file.file(), true);
+    output.write(bytes);
+    size += bl;
+    clear();
+  }
+
+  /**
+   * Returns the size of the committed records.
+   * @return size
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Deletes the journal and discards the current record.
+   * Must only be called after the journaled contents have been written to the original files.
+   * @throws IOException I/O exception
+   */
+  public void reset() throws IOException {
+    close();
+    if(file.exists() && !file.delete()) throw new IOException("Could not delete " + file);
+    size = 0;
+    clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(output != null) {
+      output.close();
+      output = null;
+    }
+  }
+
+  /**
+   * Writes the contents of all committed records to the original files and deletes the journal.
+   * @param file journal file
+   * @return number of replayed records
+   * @throws IOException I/O exception
+   */
+  public static int replay(final IOFile file) throws IOException {
+    final byte[] bytes = file.read();
+    final IOFile dir = file.parent();
+    final HashMap<String, RandomAccessFile> files = new HashMap<>();
+    final int bl = bytes.length;
+    int records = 0;
+    try {
+      for(int r = 0; r + 12 <= bl; records++) {
+        final int l = read4(bytes, r);
+        if(l < 4 || l > bl - r - 8) break;
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, r + 8, l - 4);
+        if((int) crc.getValue() != read4(bytes, r + 4 + l)) break;
+
+        int o = r + 8;
+        for(int n = read4(bytes, r + 4); n > 0; n--) {
+          int len = Num.get(bytes, o);
+          o += Num.length(len);
+          final String name = string(bytes, o, len);
+          o += len;
+          long offset = 0;
+          for(final int e = o + 8; o < e; o++) offset = offset << 8 | bytes[o] & 0xFF;
+          len = Num.get(bytes, o);
+          o += Num.length(len);
+
+          RandomAccessFile raf = files.get(name);
+          if(offset == -1) {
+            if(raf != null) files.remove(name).close();
+            new IOFile(dir, name).write(Arrays.copyOfRange(bytes, o, o + len));
+          } else {
+            if(raf == null) {
+              raf = new RandomAccessFile(new IOFile(dir, name).file(), "rw");
+              files.put(name, raf);
+            }
+            raf.seek(offset);
+            raf.write(bytes, o, len);
+          }
+          o += len;
+        }
+        r += l + 8;
+      }
+    } finally {
+      for(final RandomAccessFile raf : files.values()) raf.close();
+    }
+    if(!file.delete()) throw new IOException("Could not delete " + file);
+    return records;
+  }
+
+  /**
+   * Discards the entries of the current record.
+   */
+  private void clear() {
+    record.size(8);
+    count = 0;
+  }
+
+  /**
+   * Writes an integer to the specified array.
+   * @param bytes byte array
+   * @param offset offset
+   * @param value value
+   */
+  private static void write4(final byte[] bytes, final int offset, final int value) {
+    for(int b = 0; b < 4; b++) bytes[offset + b] = (byte) (value >>> 24 - (b << 3));
+  }
+
+  /**
+   * Reads an integer from the specified array.
+   * @param bytes byte array
+   * @param offset offset
+   * @return value
+   */
+  private static int read4(final byte[] bytes, final int offset) {
+    int value = 0;
+    for(int b = 0; b < 4; b++) value = value << 8 | bytes[offset + b] & 0xFF;
+    return value;
+  }
+}
@@ -34,6 +34,14 @@ public abstract class TableAccess {
    */
   public abstract void flush(boolean all) throws IOException;
 
+  /**
+   * Adds the modified table contents to the specified journal. Pages that are written to disk
+   * later on will be added to the same journal until this function is called with {@code null}.
+   * @param journal journal ({@code null}: stop journaling)
+   * @throws IOException I/O exception
+   */
+  public abstract void journal(Journal journal) throws IOException;
+
   /**
    * Closes the table access.
    * @throws IOException I/O exception
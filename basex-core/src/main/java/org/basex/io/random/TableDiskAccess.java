@@ -10,11 +10,14 @@ import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 
 /**
  * This class stores the table on disk and reads it page-wise.
+ * If memory mapping is enabled for a database, entries are read from an immutable
+ * {@link TableMapping} without synchronization as long as no buffers have been modified.
  *
  * @author BaseX Team 2005-23, BSD License
  * @author Christian Gruen
@@ -22,13 +25,21 @@ import org.basex.util.*;
  */
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
-  private final Buffers buffers = new Buffers();
+  private final Buffers buffers;
   /** File storing all pages. */
   private final RandomAccessFile file;
   /** Bitmap storing free (=0) and used (=1) pages. */
   private BitArray usedPages;
   /** File lock. */
   private FileLock lock;
+  /** Indicates if the table file is memory-mapped for reading. */
+  private final boolean map;
+  /** Memory-mapped table ({@code null} if disabled, or if buffers have been modified). */
+  private volatile TableMapping mapping;
+  /** Journal ({@code null} if modified pages are only written in place). */
+  private Journal journal;
+  /** Indicates if the current page index has been added to the journal. */
+  private boolean journaled;
 
   /** First pre values (ascending order); will be initialized with the first update. */
   private int[] fPreIndex;
@@ -54,6 +65,7 @@ public final class TableDiskAccess extends TableAccess {
    */
   public TableDiskAccess(final MetaData meta, final boolean write) throws IOException {
     super(meta);
+    buffers = new Buffers(meta.buffers);
 
     // read meta and index data
     try(DataInput in = new DataInput(meta.dbFile(DATATBL + 'i'))) {
@@ -77,6 +89,8 @@ public final class TableDiskAccess extends TableAccess {
     // initialize data file
     file = new RandomAccessFile(meta.dbFile(DATATBL).file(), "rw");
     if(!lock(write)) throw new BaseXException(Text.DB_PINNED_X, meta.name);
+    map = meta.maptable && !write;
+    if(map) remap();
   }
 
   /**
@@ -86,7 +100,15 @@ public final class TableDiskAccess extends TableAccess {
    * @return result of check
    */
   public static boolean locked(final String db, final Context ctx) {
-    final IOFile table = MetaData.file(ctx.soptions.dbPath(db), DATATBL);
+    return locked(MetaData.file(ctx.soptions.dbPath(db), DATATBL));
+  }
+
+  /**
+   * Checks if the specified table file is locked.
+   * @param table table file
+   * @return result of check
+   */
+  public static boolean locked(final IOFile table) {
     if(!table.exists()) return false;
 
     try(FileChannel fc = new RandomAccessFile(table.file(), "rw").getChannel()) {
@@ -99,44 +121,83 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void flush(final boolean all) throws IOException {
+    store(all);
+    if(map) remap();
+  }
+
+  @Override
+  public synchronized void journal(final Journal jnl) throws IOException {
+    journal = jnl;
+    if(jnl == null) return;
+
+    for(final Buffer buffer : buffers.all()) {
+      journal(buffer);
+    }
+    if(!dirty || journaled) return;
+
+    final ArrayOutput ao = new ArrayOutput();
+    try(DataOutput out = new DataOutput(ao)) {
+      write(out);
+    }
+    jnl.add(meta.dbFile(DATATBL + 'i'), -1, ao.finish());
+    journaled = true;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    unmap();
+    store(true);
+    buffers.close();
+    file.close();
+  }
+
+  /**
+   * Writes all buffers and, optionally, the page index to disk.
+   * @param all write page index
+   * @throws IOException I/O exception
+   */
+  private void store(final boolean all) throws IOException {
     for(final Buffer buffer : buffers.all()) {
       write(buffer);
     }
     if(!dirty || !all) return;
 
     try(DataOutput out = new DataOutput(meta.dbFile(DATATBL + 'i'))) {
-      final int p = pages;
-      boolean regular = true;
-
-      // check if page mapping is regular (are all pages used and in ascending order?)
-      if(fPreIndex != null) {
-        regular = p == used;
-        for(int i = 0; i < p && regular; i++) regular = fPreIndex[i] == i * IO.ENTRIES;
-        for(int i = 0; i < p && regular; i++) regular = pageIndex[i] == i;
-        if(regular) removeMapping();
-      }
-
-      if(regular) {
-        // no mapping available or required (0: empty table; MAX: no mapping, see TableOutput#close)
-        out.writeNum(p);
-        out.writeNum(used == 0 ? 0 : Integer.MAX_VALUE);
-      } else {
-        out.writeNum(p);
-        out.writeNum(used);
-        out.writeNum(p);
-        for(int s = 0; s < p; s++) out.writeNum(fPreIndex[s]);
-        out.writeNum(p);
-        for(int s = 0; s < p; s++) out.writeNum(pageIndex[s]);
-        out.writeLongs(usedPages.toArray());
-      }
+      write(out);
     }
     dirty = false;
   }
 
-  @Override
-  public synchronized void close() throws IOException {
-    flush(true);
-    file.close();
+  /**
+   * Writes the page index.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out) throws IOException {
+    final int p = pages;
+    boolean regular = true;
+
+    // check if page mapping is regular (are all pages used and in ascending order?)
+    if(fPreIndex != null) {
+      regular = p == used;
+      for(int i = 0; i < p && regular; i++) regular = fPreIndex[i] == i * IO.ENTRIES;
+      for(int i = 0; i < p && regular; i++) regular = pageIndex[i] == i;
+      if(regular) removeMapping();
+    }
+
+    if(regular) {
+      // no mapping available or required (0: empty table; MAX: no mapping, see TableOutput#close)
+      out.writeNum(p);
+      out.writeNum(used == 0 ? 0 : Integer.MAX_VALUE);
+    } else {
+      out.writeNum(p);
+      out.writeNum(used);
+      out.writeNum(p);
+      for(int s = 0; s < p; s++) out.writeNum(fPreIndex[s]);
+      out.writeNum(p);
+      for(int s = 0; s < p; s++) out.writeNum(pageIndex[s]);
+      out.writeLongs(usedPages.toArray());
+    }
   }
 
   @Override
@@ -154,55 +215,98 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   @Override
-  public synchronized int read1(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return data[o] & 0xFF;
+  public int read1(final int pre, final int offset) {
+    final TableMapping tm = mapping;
+    if(tm != null && tm.acquire()) {
+      try {
+        return tm.read1(pre, offset);
+      } finally {
+        tm.release();
+      }
+    }
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return data[o] & 0xFF;
+    }
   }
 
   @Override
-  public synchronized int read2(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+  public int read2(final int pre, final int offset) {
+    final TableMapping tm = mapping;
+    if(tm != null && tm.acquire()) {
+      try {
+        return tm.read2(pre, offset);
+      } finally {
+        tm.release();
+      }
+    }
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized int read4(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
-      ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+  public int read4(final int pre, final int offset) {
+    final TableMapping tm = mapping;
+    if(tm != null && tm.acquire()) {
+      try {
+        return tm.read4(pre, offset);
+      } finally {
+        tm.release();
+      }
+    }
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
+        ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized long read5(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
-      ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+  public long read5(final int pre, final int offset) {
+    final TableMapping tm = mapping;
+    if(tm != null && tm.acquire()) {
+      try {
+        return tm.read5(pre, offset);
+      } finally {
+        tm.release();
+      }
+    }
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
+        ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+    }
   }
 
   @Override
   public void write1(final int pre, final int offset, final int value) {
+    unmap();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     buffer.data[o] = (byte) value;
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   @Override
   public void write2(final int pre, final int offset, final int value) {
+    unmap();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
     data[o] = (byte) (value >>> 8);
     data[o + 1] = (byte) value;
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   @Override
   public void write4(final int pre, final int offset, final int value) {
+    unmap();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -210,11 +314,12 @@ public final class TableDiskAccess extends TableAccess {
     data[o + 1] = (byte) (value >>> 16);
     data[o + 2] = (byte) (value >>> 8);
     data[o + 3] = (byte) value;
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   @Override
   public void write5(final int pre, final int offset, final long value) {
+    unmap();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -223,7 +328,7 @@ public final class TableDiskAccess extends TableAccess {
     data[o + 2] = (byte) (value >>> 16);
     data[o + 3] = (byte) (value >>> 8);
     data[o + 4] = (byte) value;
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   @Override
@@ -233,7 +338,7 @@ public final class TableDiskAccess extends TableAccess {
       final int off = cursor(i);
       final Buffer buffer = buffers.current();
       Array.copy(entries, o, IO.NODESIZE, buffer.data, off);
-      buffer.dirty = true;
+      buffer.modify();
     }
   }
 
@@ -338,7 +443,7 @@ public final class TableDiskAccess extends TableAccess {
     Buffer buffer = buffers.current();
     if(nold + nnew <= IO.BLOCKSIZE) {
       Array.insert(buffer.data, split, nnew, nold, entries);
-      buffer.dirty = true;
+      buffer.modify();
 
       // increment first pre-values of pages after the last modified page
       for(int i = page + 1; i < used; ++i) fPreIndex[i] += nr;
@@ -358,7 +463,7 @@ public final class TableDiskAccess extends TableAccess {
     int nrem = IO.BLOCKSIZE - split;
     if(nrem > 0) {
       Array.copyFromStart(all, nrem, buffer.data, split);
-      buffer.dirty = true;
+      buffer.modify();
     }
 
     // number of new required pages and remaining bytes
@@ -376,7 +481,7 @@ public final class TableDiskAccess extends TableAccess {
           buffer = buffers.current();
           Array.copyFromStart(buffer.data, o, buffer.data, remain);
           Array.copyToStart(all, all.length - remain, remain, buffer.data);
-          buffer.dirty = true;
+          buffer.modify();
           // reduce the pre value, since it will be later incremented with nr
           fPreIndex[page] -= remain >>> IO.NODEPOWER;
           // go back to the previous page
@@ -444,6 +549,7 @@ public final class TableDiskAccess extends TableAccess {
    * Marks the data structures as dirty.
    */
   private void dirty() {
+    unmap();
     // initialize data structures required for performing updates
     if(fPreIndex == null) {
       fPreIndex = new int[pages];
@@ -453,6 +559,28 @@ public final class TableDiskAccess extends TableAccess {
       usedPages = new BitArray(used, true);
     }
     dirty = true;
+    journaled = false;
+  }
+
+  /**
+   * Creates a new memory-mapped snapshot of the table.
+   * @throws IOException I/O exception
+   */
+  private void remap() throws IOException {
+    unmap();
+    mapping = new TableMapping(file.getChannel(), pages, used, fPreIndex, pageIndex, meta.size);
+  }
+
+  /**
+   * Discards the memory-mapped snapshot of the table. The file is unmapped as soon as
+   * the snapshot is not read by other threads anymore.
+   */
+  private void unmap() {
+    final TableMapping tm = mapping;
+    if(tm != null) {
+      mapping = null;
+      tm.close();
+    }
   }
 
   /**
@@ -544,11 +672,23 @@ public final class TableDiskAccess extends TableAccess {
   private void write(final Buffer buffer) throws IOException {
     if(!buffer.dirty) return;
 
+    journal(buffer);
     file.seek(buffer.pos << IO.BLOCKPOWER);
     file.write(buffer.data);
     buffer.dirty = false;
   }
 
+  /**
+   * Adds the specified buffer to the journal if it has been modified since it was last added.
+   * @param buffer buffer
+   */
+  private void journal(final Buffer buffer) {
+    if(journal == null || !buffer.dirty || buffer.journaled) return;
+
+    journal.add(meta.dbFile(DATATBL), buffer.pos << IO.BLOCKPOWER, buffer.data);
+    buffer.journaled = true;
+  }
+
   /**
    * Deletes pages in the page mapping.
    * @param count number of pages to delete
@@ -580,7 +720,7 @@ public final class TableDiskAccess extends TableAccess {
   private static void delete(final Buffer buffer, final int from, final int to, final int length) {
     final byte[] array = buffer.data;
     Array.copy(array, to << IO.NODEPOWER, length << IO.NODEPOWER, array, from << IO.NODEPOWER);
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   /**
@@ -593,7 +733,7 @@ public final class TableDiskAccess extends TableAccess {
     final Buffer buffer = buffers.current();
     final int len = Math.min(IO.BLOCKSIZE, array.length - offset);
     Array.copyToStart(array, offset, len, buffer.data);
-    buffer.dirty = true;
+    buffer.modify();
     return len;
   }
 
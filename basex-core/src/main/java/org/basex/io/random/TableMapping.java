@@ -0,0 +1,139 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * Immutable, memory-mapped snapshot of a database table.
+ * Instances are created by {@link TableDiskAccess} whenever all buffers have been written
+ * to disk, and they allow multiple threads to read table entries without synchronization.
+ * Readers must register via {@link #acquire()} and {@link #release()}.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+final class TableMapping {
+  /** Mapped file. */
+  private final FileMapping file;
+  /** First pre values ({@code null} if the page mapping is regular). */
+  private final int[] fPreIndex;
+  /** Page index ({@code null} if the page mapping is regular). */
+  private final int[] pageIndex;
+  /** Number of used pages. */
+  private final int used;
+  /** Table size. */
+  private final int size;
+
+  /**
+   * Constructor.
+   * @param channel file channel
+   * @param pages total number of pages
+   * @param used number of used pages
+   * @param fPreIndex first pre values (can be {@code null})
+   * @param pageIndex page index (can be {@code null})
+   * @param size table size
+   * @throws IOException I/O exception
+   */
+  TableMapping(final FileChannel channel, final int pages, final int used,
+      final int[] fPreIndex, final int[] pageIndex, final int size) throws IOException {
+
+    this.used = used;
+    this.size = size;
+    this.fPreIndex = fPreIndex != null ? Arrays.copyOf(fPreIndex, used) : null;
+    this.pageIndex = pageIndex != null ? Arrays.copyOf(pageIndex, used) : null;
+    file = new FileMapping(channel, Math.min(channel.size(), (long) pages << IO.BLOCKPOWER));
+  }
+
+  /**
+   * Reads a byte value and returns it as an integer value.
+   * @param pre pre value
+   * @param offset offset
+   * @return integer value
+   */
+  int read1(final int pre, final int offset) {
+    return file.read1(address(pre) + offset);
+  }
+
+  /**
+   * Reads a short value and returns it as an integer value.
+   * @param pre pre value
+   * @param offset offset
+   * @return integer value
+   */
+  int read2(final int pre, final int offset) {
+    return file.read2(address(pre) + offset);
+  }
+
+  /**
+   * Reads an integer value.
+   * @param pre pre value
+   * @param offset offset
+   * @return integer value
+   */
+  int read4(final int pre, final int offset) {
+    return file.read4(address(pre) + offset);
+  }
+
+  /**
+   * Reads a 5-byte value and returns it as a long value.
+   * @param pre pre value
+   * @param offset offset
+   * @return integer value
+   */
+  long read5(final int pre, final int offset) {
+    return file.read5(address(pre) + offset);
+  }
+
+  /**
+   * Registers a reader.
+   * @return {@code false} if the table file has already been unmapped
+   */
+  boolean acquire() {
+    return file.acquire();
+  }
+
+  /**
+   * Unregisters a reader.
+   */
+  void release() {
+    file.release();
+  }
+
+  /**
+   * Closes the snapshot. The table file is unmapped as soon as no readers are left.
+   */
+  void close() {
+    file.close();
+  }
+
+  /**
+   * Returns the file address of the entry with the specified pre value.
+   * @param pre pre value
+   * @return address
+   */
+  private long address(final int pre) {
+    if(pre < 0 || pre >= size) throw Util.notExpected("Data Access out of bounds: % (size: %)",
+        pre, size);
+
+    final int page, first;
+    if(fPreIndex == null) {
+      page = pre >>> IO.BLOCKPOWER - IO.NODEPOWER;
+      first = page * IO.ENTRIES;
+    } else {
+      // find last page with a first pre value that is smaller than or equal to the pre value
+      int l = 0, h = used - 1;
+      while(l < h) {
+        final int m = l + h + 1 >>> 1;
+        if(fPreIndex[m] <= pre) l = m;
+        else h = m - 1;
+      }
+      page = pageIndex[l];
+      first = fPreIndex[l];
+    }
+    return ((long) page << IO.BLOCKPOWER) + (pre - first << IO.NODEPOWER);
+  }
+}
@@ -33,6 +33,10 @@ public final class TableMemAccess extends TableAccess {
   public void flush(final boolean all) {
   }
 
+  @Override
+  public void journal(final Journal journal) {
+  }
+
   @Override
   public void close() {
   }
@@ -0,0 +1,99 @@
+package org.basex.io.random;
+
+import java.io.*;
+
+import org.basex.io.*;
+
+/**
+ * This class provides access to a heap file with texts or attribute values.
+ *
+ * If the database was created with compressed blocks, the entries of the initial database
+ * are read from a {@link BlockAccess} instance. Compressed entries cannot be modified: all
+ * entries that are added or replaced later on will be appended to an uncompressed file, and
+ * their offsets start after the last compressed byte.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class TextAccess implements Closeable {
+  /** Uncompressed entries. */
+  private final DataAccess data;
+  /** Compressed entries (can be {@code null}). */
+  private final BlockAccess blocks;
+  /** Offset of the first uncompressed entry. */
+  private final long base;
+
+  /**
+   * Constructor.
+   * @param file file with uncompressed entries
+   * @param blocks file with compressed entries (ignored if it does not exist)
+   * @param stats buffer statistics (can be {@code null})
+   * @throws IOException I/O Exception
+   */
+  public TextAccess(final IOFile file, final IOFile blocks, final BufferStats stats)
+      throws IOException {
+    this.blocks = blocks.exists() ? new BlockAccess(blocks) : null;
+    base = this.blocks != null ? this.blocks.length() : 0;
+    data = new DataAccess(file, stats);
+  }
+
+  /**
+   * Returns the total length of all entries.
+   * @return length
+   */
+  public long length() {
+    return base + data.length();
+  }
+
+  /**
+   * Reads a compressed integer value from the specified position.
+   * @param pos position
+   * @return read num
+   */
+  public int readNum(final long pos) {
+    return pos < base ? blocks.readNum(pos) : data.readNum(pos - base);
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * @param pos position
+   * @return token
+   */
+  public byte[] readToken(final long pos) {
+    return pos < base ? blocks.readToken(pos) : data.readToken(pos - base);
+  }
+
+  /**
+   * Writes a token to the specified position.
+   * @param pos position (must not point to a compressed entry)
+   * @param value value to be written
+   */
+  public void writeToken(final long pos, final byte[] value) {
+    data.writeToken(pos - base, value);
+  }
+
+  /**
+   * Returns the offset to a free slot for writing an entry with the specified length.
+   * Compressed entries will not be overwritten.
+   * @param pos original offset
+   * @param size size of new entry
+   * @return new offset to store text
+   * @see DataAccess#free(long, int)
+   */
+  public long free(final long pos, final int size) {
+    return pos < base ? length() : base + data.free(pos - base, size);
+  }
+
+  /**
+   * Flushes the buffered data.
+   */
+  public void flush() {
+    data.flush();
+  }
+
+  @Override
+  public void close() {
+    data.close();
+    if(blocks != null) blocks.close();
+  }
+}
@@ -0,0 +1,84 @@
+package org.basex.query;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * Cache for parsed queries, which are accessed by their query string, the static base URI
+ * and the current database options. Its size is assigned via {@link StaticOptions#QUERYCACHE}.
+ *
+ * If a main module is parsed for the first time, it is stored as template. If it is parsed
+ * again, the template is copied to the new query context. External variables are bound to the
+ * copy, which is then compiled and optimized as usual. Queries with user-defined functions,
+ * module imports, query-specific options or node constructors are not cached.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Templates (least recently used entries first; {@code null}: query cannot be cached). */
+  private final LinkedHashMap<String, QueryContext> templates;
+
+  /**
+   * Constructor.
+   * @param sopts static options
+   */
+  public QueryCache(final StaticOptions sopts) {
+    final int size = sopts.get(StaticOptions.QUERYCACHE);
+    templates = size <= 0 ? null : new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, QueryContext> eldest) {
+        return size() > size;
+      }
+    };
+  }
+
+  /**
+   * Parses the specified main module, or copies a cached template.
+   * @param query query string
+   * @param qc query context
+   * @param sc static context
+   * @throws QueryException query exception
+   */
+  void parse(final String query, final QueryContext qc, final StaticContext sc)
+      throws QueryException {
+
+    // skip cache if it is disabled, or if the static context has been modified
+    if(templates == null || qc.parent != null || !qc.modDeclared.isEmpty() ||
+        !sc.ns.list.isEmpty() || sc.elemNS != null || sc.resolver != null) {
+      qc.parseMain(query, null, sc);
+      return;
+    }
+
+    final String uri = Token.string(sc.baseURI().string());
+    final String key = qc.context.options + "\n" + uri + '\n' + query;
+    QueryContext template;
+    boolean cached;
+    synchronized(templates) {
+      template = templates.get(key);
+      cached = template != null || templates.containsKey(key);
+    }
+    if(!cached) {
+      final QueryContext tqc = new QueryContext(qc.context);
+      final StaticContext tsc = new StaticContext(tqc);
+      tsc.baseURI(uri);
+      try {
+        tqc.parseMain(query, null, tsc);
+        template = tqc.cacheable() ? tqc : null;
+      } catch(final QueryException ex) {
+        // errors will be raised by the query context
+        Util.debug(ex);
+      }
+      synchronized(templates) {
+        templates.put(key, template);
+      }
+    }
+    if(template != null) {
+      qc.copy(template);
+    } else {
+      qc.parseMain(query, null, sc);
+    }
+  }
+}
@@ -26,6 +26,7 @@ import org.basex.query.func.java.*;
 import org.basex.query.iter.*;
 import org.basex.query.scope.*;
 import org.basex.query.up.*;
+import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.util.ft.*;
 import org.basex.query.util.hash.*;
@@ -223,6 +224,54 @@ public final class QueryContext extends Job implements Closeable {
     });
   }
 
+  /**
+   * Assigns a copy of a parsed main module (see {@link QueryCache}).
+   * @param template query context with the parsed main module
+   * @throws QueryException query exception
+   */
+  void copy(final QueryContext template) throws QueryException {
+    run(info.parsing, () -> {
+      info.query = template.info.query;
+      final CompileContext cc = new CompileContext(this, false);
+      final ArrayList<StaticVar> vrs = vars.copy(template.vars, cc);
+
+      final MainModule mm = template.main;
+      final VarScope vs = new VarScope(mm.sc);
+      cc.pushScope(vs);
+      try {
+        main = new MainModule(mm.expr.copy(cc, new IntObjMap<>()), vs);
+      } finally {
+        cc.removeScope();
+      }
+      main.set(new ArrayList<>(), vrs, mm.modules, mm.namespaces, "");
+
+      updating = template.updating;
+      if(template.sopts != null) {
+        sopts = new SerializerOptions(template.sopts);
+        defaultOutput = template.defaultOutput;
+      }
+      return main;
+    });
+  }
+
+  /**
+   * Checks if the parsed main module can be copied to other query contexts
+   * (see {@link QueryCache}).
+   * @return result of check
+   */
+  boolean cacheable() {
+    if(main == null || contextScope != null || ftOpt != null || functions.funcs().length != 0 ||
+        !modParsed.isEmpty() || !options.isEmpty() || locks.local() || resources.imports()) {
+      return false;
+    }
+    // node constructors modify the namespaces of the static context at runtime
+    if(main.expr.has(Flag.CNS)) return false;
+    for(final StaticVar sv : vars) {
+      if(sv.expr != null && sv.expr.has(Flag.CNS)) return false;
+    }
+    return true;
+  }
+
   /**
    * Parses the specified module.
    * @param query query string
@@ -503,7 +552,7 @@ public final class QueryContext extends Job implements Closeable {
     } else {
       // otherwise, adopt update reference (may have been initialized by sub query)
       parent.updates = updates;
-      parent.popJob();
+      parent.popJob(this);
     }
     options.close();
 
@@ -575,6 +624,21 @@ public final class QueryContext extends Job implements Closeable {
     return dateTime;
   }
 
+  /**
+   * Creates a query context for evaluating parts of the current query in another thread.
+   * The local variables, the focus and the date and time context are adopted.
+   * @return new query context
+   * @throws QueryException query exception
+   */
+  public QueryContext fork() throws QueryException {
+    final QueryContext qc = new QueryContext(this);
+    qc.stack.assign(stack);
+    qc.focus = focus.copy();
+    qc.dateTime = dateTime();
+    qc.maxCalls = maxCalls;
+    return qc;
+  }
+
   @Override
   public String toString() {
     return main != null ? QueryInfo.usedDecls(main) : info.query;
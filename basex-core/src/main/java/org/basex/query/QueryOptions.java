@@ -34,6 +34,14 @@ final class QueryOptions {
     this.qc = qc;
   }
 
+  /**
+   * Indicates if no options have been declared.
+   * @return result of check
+   */
+  boolean isEmpty() {
+    return localOpts.isEmpty();
+  }
+
   /**
    * Remembers a parsed database option.
    * @param name name of option
@@ -276,6 +276,14 @@ public final class QueryResources {
     return modules;
   }
 
+  /**
+   * Indicates if the module loader has been requested.
+   * @return result of check
+   */
+  boolean imports() {
+    return modules != null;
+  }
+
   /**
    * Removes and closes the specified database. Called during updates.
    * @param name name of database to be removed
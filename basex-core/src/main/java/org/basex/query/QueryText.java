@@ -365,6 +365,7 @@ public interface QueryText {
   /** Query Info. */ String LINE = "line";
   /** Query Info. */ String COLUMN = "column";
   /** Query Info. */ String PATH = "path";
+  /** Query Info. */ String LIMIT = "limit";
 
   /** Query Info. */ String MAPASG = ": ";
   /** Query Info. */ String SEP = ", ";
@@ -388,6 +389,8 @@ public interface QueryText {
   /** Optimization info. */ String OPTREMOVE_X_X = "remove % from %";
   /** Optimization info. */ String OPTMOVE_X = "move where clause: %";
   /** Optimization info. */ String OPTPRED_X = "rewrite to predicate: %";
+  /** Optimization info. */ String OPTJOIN_X = "rewrite to hash join: %";
+  /** Optimization info. */ String OPTLIMIT_X_X = "sort first % tuples: %";
   /** Optimization info. */ String OPTVAR_X = "remove unused variable: %";
   /** Optimization info. */ String OPTSTEP_X = "remove step without results: %";
   /** Optimization info. */ String OPTPATH_X = "remove path without results: %";
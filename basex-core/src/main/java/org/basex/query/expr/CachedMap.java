@@ -2,6 +2,7 @@ package org.basex.query.expr;
 
 import org.basex.query.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.var.*;
@@ -34,7 +35,18 @@ public final class CachedMap extends SimpleMap {
       final int el = exprs.length;
       for(int e = 1; e < el; e++) {
         final Expr expr = exprs[e];
-        qf.size = value.size();
+        final long size = value.size();
+        if(Parallel.enabled(qc, expr)) {
+          value = Parallel.map(value, expr, qc, (item, i, tqc) -> {
+            final QueryFocus tqf = tqc.focus;
+            tqf.value = item;
+            tqf.pos = i + 1;
+            tqf.size = size;
+            return expr.value(tqc);
+          });
+          continue;
+        }
+        qf.size = size;
         qf.pos = 0;
         final ValueBuilder vb = new ValueBuilder(qc);
         final Iter iter = value.iter();
@@ -2,6 +2,7 @@ package org.basex.query.expr;
 
 import org.basex.query.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
@@ -28,6 +29,7 @@ public final class DualMap extends SimpleMap {
   @Override
   public Iter iter(final QueryContext qc) throws QueryException {
     final Iter iter = exprs[0].iter(qc);
+    if(Parallel.enabled(qc, exprs[1])) return Parallel.iter(iter, qc, this::map);
     final long size = exprs[1].size() == 1 ? iter.size() : -1;
 
     return new Iter() {
@@ -72,6 +74,8 @@ public final class DualMap extends SimpleMap {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
+    if(Parallel.enabled(qc, exprs[1])) return Parallel.map(exprs[0].value(qc), this, qc, this::map);
+
     final QueryFocus qf = qc.focus;
     final Value qv = qf.value;
     try {
@@ -88,6 +92,20 @@ public final class DualMap extends SimpleMap {
     }
   }
 
+  /**
+   * Evaluates the second operand for the specified item.
+   * @param item context item
+   * @param index index of the item
+   * @param qc query context
+   * @return resulting item or {@link Empty#VALUE}
+   * @throws QueryException query exception
+   */
+  private Item map(final Item item, final long index, final QueryContext qc)
+      throws QueryException {
+    qc.focus.value = item;
+    return exprs[1].item(qc, info);
+  }
+
   @Override
   public DualMap copy(final CompileContext cc, final IntObjMap<Var> vm) {
     return copyType(new DualMap(info, Arr.copyAll(cc, vm, exprs)));
@@ -117,6 +117,13 @@ public abstract class Filter extends Preds {
         return List.get(cc, info, results.finish());
       }
 
+      // rewrite equality comparison to hash join
+      // example: for $a in $A return $B[@ref = $a/@id]
+      if(JoinFilter.joinable(root, expr)) {
+        if(!(this instanceof JoinFilter)) cc.info(QueryText.OPTJOIN_X, expr);
+        return copyType(new JoinFilter(info, root, exprs));
+      }
+
       // otherwise, return iterative filter
       return copyType(new IterFilter(info, root, exprs));
     }
@@ -2,8 +2,10 @@ package org.basex.query.expr;
 
 import org.basex.query.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
@@ -26,7 +28,8 @@ public final class IterFilter extends Filter {
   }
 
   @Override
-  public Iter iter(final QueryContext qc) {
+  public Iter iter(final QueryContext qc) throws QueryException {
+    if(Parallel.enabled(qc, exprs)) return Parallel.iter(root.iter(qc), qc, this::filter);
     return new Iter() {
       Iter iter;
 
@@ -45,6 +48,7 @@ public final class IterFilter extends Filter {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
+    if(Parallel.enabled(qc, exprs)) return Parallel.map(root.value(qc), this, qc, this::filter);
     final ValueBuilder vb = new ValueBuilder(qc);
     final Iter iter = root.iter(qc);
     for(Item item; (item = qc.next(iter)) != null;) {
@@ -53,6 +57,19 @@ public final class IterFilter extends Filter {
     return vb.value(this);
   }
 
+  /**
+   * Filters the specified item.
+   * @param item item
+   * @param index index of the item
+   * @param qc query context
+   * @return item or {@link Empty#VALUE}
+   * @throws QueryException query exception
+   */
+  private Value filter(final Item item, final long index, final QueryContext qc)
+      throws QueryException {
+    return match(item, qc) ? item : Empty.VALUE;
+  }
+
   @Override
   public IterFilter copy(final CompileContext cc, final IntObjMap<Var> vm) {
     return copyType(new IterFilter(info, root.copy(cc, vm), Arr.copyAll(cc, vm, exprs)));
@@ -2,6 +2,7 @@ package org.basex.query.expr;
 
 import org.basex.query.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
@@ -99,6 +100,13 @@ public final class IterMap extends SimpleMap {
       final int el = exprs.length;
       for(int e = 1; e < el; e++) {
         final Expr expr = exprs[e];
+        if(Parallel.enabled(qc, expr)) {
+          value = Parallel.map(value, expr, qc, (item, i, tqc) -> {
+            tqc.focus.value = item;
+            return expr.value(tqc);
+          });
+          continue;
+        }
         final ValueBuilder vb = new ValueBuilder(qc);
         final Iter iter = value.iter();
         for(Item item; (item = qc.next(iter)) != null;) {
@@ -0,0 +1,38 @@
+package org.basex.query.expr;
+
+import java.util.*;
+
+import org.basex.query.util.hash.*;
+import org.basex.query.value.*;
+import org.basex.util.list.*;
+
+/**
+ * Hash index for joins: maps the keys of the filtered items to their positions.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class JoinCache {
+  /** Filtered value (root expression). */
+  Value value;
+  /** Indexed keys ({@code null} if the index has not been built yet). */
+  HashItemSet keys;
+  /** Positions of the items with the same key (index: key id - 1). */
+  final ArrayList<IntList> positions = new ArrayList<>();
+  /** Indicates if the index cannot be built for this expression. */
+  boolean disabled;
+
+  /**
+   * Checks if the cached index can be used for the specified value.
+   * If the value differs, the index is discarded, and {@code false} is returned.
+   * @param val value to be filtered
+   * @return result of check
+   */
+  boolean valid(final Value val) {
+    if(value == val) return true;
+    value = val;
+    keys = null;
+    positions.clear();
+    return false;
+  }
+}
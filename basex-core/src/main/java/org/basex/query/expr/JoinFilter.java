@@ -0,0 +1,212 @@
+package org.basex.query.expr;
+
+import org.basex.query.*;
+import org.basex.query.expr.CmpG.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.util.hash.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * Filter expression with an equality comparison as first predicate, which is evaluated as
+ * hash join. One operand of the comparison depends on the context (the key of the filtered
+ * items), the other operand depends on variables of an outer scope (the probe). Example:
+ *
+ * <pre>for $a in $A return $B[@ref = $a/@id]</pre>
+ *
+ * If the filter is evaluated repeatedly with the same input, the keys of all items are indexed,
+ * and the items are looked up via the probe. The first evaluation is performed sequentially.
+ * This way, no index is created if the expression is evaluated only once.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class JoinFilter extends Filter {
+  /** Key operand (evaluated with the filtered items as context). */
+  private final Expr key;
+  /** Probe operand (evaluated with the outer focus). */
+  private final Expr probe;
+  /** Indicates if the root expression always yields the same value. */
+  private final boolean stable;
+
+  /**
+   * Constructor.
+   * @param info input info
+   * @param root root expression
+   * @param preds predicate expressions (the first predicate must be a join predicate)
+   */
+  public JoinFilter(final InputInfo info, final Expr root, final Expr... preds) {
+    super(info, root, preds);
+    final Expr[] operands = operands(preds[0]);
+    key = operands[0];
+    probe = operands[1];
+    stable = !(root instanceof VarRef);
+  }
+
+  /**
+   * Checks if a filter can be evaluated as hash join.
+   * @param root root expression
+   * @param pred first predicate
+   * @return result of check
+   */
+  public static boolean joinable(final Expr root, final Expr pred) {
+    return operands(pred) != null && (root instanceof VarRef ||
+        !root.has(Flag.CTX, Flag.POS, Flag.NDT, Flag.CNS) && !local(root));
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    final JoinCache cache = qc.threads.get(this).get();
+    final Value value = stable && cache.value != null ? cache.value : root.value(qc);
+    final ValueBuilder vb = new ValueBuilder(qc);
+
+    if(!cache.valid(value) || !index(cache, qc)) {
+      // first evaluation, or index cannot be created: filter items sequentially
+      final Iter iter = value.iter();
+      for(Item item; (item = qc.next(iter)) != null;) {
+        if(match(item, qc)) vb.add(item);
+      }
+    } else {
+      // probe keys, check remaining predicates
+      final IntList positions = probe(cache, qc);
+      final int ps = positions.size(), el = exprs.length;
+      final QueryFocus qf = qc.focus;
+      final Value cv = qf.value;
+      try {
+        for(int p = 0; p < ps; p++) {
+          final Item item = value.itemAt(positions.get(p));
+          qf.value = item;
+          boolean ok = true;
+          for(int e = 1; ok && e < el; e++) ok = exprs[e].test(qc, info) != null;
+          if(ok) vb.add(item);
+        }
+      } finally {
+        qf.value = cv;
+      }
+    }
+    return vb.value(this);
+  }
+
+  /**
+   * Creates the hash index if it does not exist yet.
+   * @param cache cache
+   * @param qc query context
+   * @return {@code true} if the index is available
+   */
+  private boolean index(final JoinCache cache, final QueryContext qc) {
+    if(cache.keys != null) return true;
+    final Value value = cache.value;
+    final long vs = value.size();
+    if(cache.disabled || vs > Integer.MAX_VALUE) return false;
+
+    final HashItemSet keys = new HashItemSet(true);
+    final QueryFocus focus = qc.focus, qf = new QueryFocus();
+    qc.focus = qf;
+    try {
+      for(int v = 0; v < vs; v++) {
+        qc.checkStop();
+        qf.value = value.itemAt(v);
+        final Iter iter = key.atomIter(qc, info);
+        for(Item item; (item = qc.next(iter)) != null;) {
+          // NaN is never equal to any other value
+          if(item.type.isNumber() && Double.isNaN(item.dbl(info))) continue;
+          if(keys.add(item, info)) cache.positions.add(new IntList(1));
+          final IntList list = cache.positions.get(keys.id(item, info) - 1);
+          if(list.isEmpty() || list.peek() != v) list.add(v);
+        }
+      }
+      cache.keys = keys;
+      return true;
+    } catch(final QueryException ex) {
+      // errors will be raised (if at all) by the sequential evaluation
+      Util.debug(ex);
+      cache.disabled = true;
+      cache.positions.clear();
+      return false;
+    } finally {
+      qc.focus = focus;
+    }
+  }
+
+  /**
+   * Returns the positions of all items that match the probe.
+   * @param cache cache
+   * @param qc query context
+   * @return positions in ascending order
+   * @throws QueryException query exception
+   */
+  private IntList probe(final JoinCache cache, final QueryContext qc) throws QueryException {
+    IntList positions = null;
+    boolean merged = false;
+    final Iter iter = probe.atomIter(qc, info);
+    for(Item item; (item = qc.next(iter)) != null;) {
+      final int id = cache.keys.id(item, info);
+      if(id == 0) continue;
+      final IntList list = cache.positions.get(id - 1);
+      if(positions == null) {
+        positions = list;
+      } else if(positions != list) {
+        // multiple keys: merge positions
+        if(!merged) positions = new IntList(positions.size() + list.size()).add(
+            positions.toArray());
+        positions.add(list.toArray());
+        merged = true;
+      }
+    }
+    return positions == null ? new IntList(0) : merged ? positions.ddo() : positions;
+  }
+
+  @Override
+  public JoinFilter copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    return copyType(new JoinFilter(info, root.copy(cc, vm), Arr.copyAll(cc, vm, exprs)));
+  }
+
+  @Override
+  public String description() {
+    return "hash join " + super.description();
+  }
+
+  /**
+   * Returns the key and probe operands of a join predicate.
+   * @param pred predicate
+   * @return key and probe, or {@code null} if the predicate is no join predicate
+   */
+  private static Expr[] operands(final Expr pred) {
+    if(!(pred instanceof CmpG)) return null;
+    final CmpG cmp = (CmpG) pred;
+    if(cmp.op != OpG.EQ || cmp.coll != null) return null;
+
+    final Expr op1 = cmp.exprs[0], op2 = cmp.exprs[1];
+    final Type type1 = op1.seqType().type.atomic(), type2 = op2.seqType().type.atomic();
+    if(type1 == null || type2 == null || !(type1.isNumber() && type2.isNumber() ||
+        type1.isStringOrUntyped() && type2.isStringOrUntyped())) return null;
+
+    for(int o = 0; o < 2; o++) {
+      final Expr k = o == 0 ? op1 : op2, p = o == 0 ? op2 : op1;
+      if(k.has(Flag.CTX) && !k.has(Flag.POS, Flag.NDT) && !local(k) &&
+         !p.has(Flag.CTX, Flag.POS, Flag.NDT) && local(p)) return new Expr[] { k, p };
+    }
+    return null;
+  }
+
+  /**
+   * Checks if the specified expression references local variables.
+   * @param expr expression
+   * @return result of check
+   */
+  private static boolean local(final Expr expr) {
+    return !expr.accept(new ASTVisitor() {
+      @Override
+      public boolean used(final VarRef ref) {
+        return false;
+      }
+    });
+  }
+}
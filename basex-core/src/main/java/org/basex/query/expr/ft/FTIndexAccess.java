@@ -1,5 +1,7 @@
 package org.basex.query.expr.ft;
 
+import java.util.*;
+
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.index.*;
@@ -64,6 +66,45 @@ public final class FTIndexAccess extends Simple {
     return iter(qc).value(qc, this);
   }
 
+  /**
+   * Returns the results with the highest scores, ordered by relevance.
+   * Results whose score cannot exceed the lowest score of the current best results are skipped
+   * without computing their exact score.
+   * @param qc query context
+   * @param limit maximum number of results
+   * @return results
+   * @throws QueryException query exception
+   */
+  public Value top(final QueryContext qc, final long limit) throws QueryException {
+    // lowest score first; for equal scores, later nodes are considered to be less relevant
+    final Comparator<FTNode> cmp = (node1, node2) -> {
+      final int c = Double.compare(node1.score(), node2.score());
+      return c != 0 ? c : Integer.compare(node2.pre(), node1.pre());
+    };
+    final PriorityQueue<FTNode> heap = new PriorityQueue<>(cmp);
+    if(limit > 0) {
+      final FTIter iter = ftexpr.iter(qc);
+      for(FTNode item; (item = iter.next()) != null;) {
+        qc.checkStop();
+        if(heap.size() == limit) {
+          final FTNode min = heap.peek();
+          if(item.bound() <= min.score() || cmp.compare(item, min) < 0) continue;
+          heap.poll();
+        }
+        item.score();
+        if(qc.ftPosData != null) qc.ftPosData.add(item.data(), item.pre(), item.matches());
+        item.matches(null);
+        heap.add(item);
+      }
+    }
+
+    final FTNode[] nodes = heap.toArray(FTNode[]::new);
+    Arrays.sort(nodes, cmp.reversed());
+    final ValueBuilder vb = new ValueBuilder(qc);
+    for(final FTNode node : nodes) vb.add(node);
+    return vb.value(this);
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     return ftexpr.has(flags) || db.has(flags);
@@ -2,6 +2,8 @@ package org.basex.query.expr.ft;
 
 import static org.basex.util.Token.*;
 
+import java.util.*;
+
 import org.basex.util.*;
 
 /**
@@ -18,6 +20,8 @@ public final class FTWildcard {
   private final boolean simple;
   /** Validity flag. */
   private final boolean valid;
+  /** Indicates if the prefix of a token may rule out a match (see {@link #mismatch(byte[])}). */
+  private boolean prunable;
 
   /** Codepoints. */
   private int[] cps;
@@ -99,6 +103,11 @@ public final class FTWildcard {
       max[size] = mx;
       size++;
     }
+    // prefixes can only be rejected if a character follows a bounded wildcard
+    for(int s = 0, dots = 0; s < size && max[s] != Integer.MAX_VALUE && !prunable; s++) {
+      if(cps[s] == DOT) dots++;
+      else prunable = dots > 0;
+    }
     return true;
   }
 
@@ -141,7 +150,32 @@ public final class FTWildcard {
    * @return {@code true} if a match is found
    */
   public boolean match(final byte[] tok) {
-    return match(cps(tok), 0, 0);
+    return match(cps(tok), 0, 0, false);
+  }
+
+  /**
+   * Checks if the wildcard matches a token. If it does not match, the shortest prefix of the
+   * token is returned that cannot be extended to a match. Tokens with this prefix can be skipped
+   * if tokens are matched in lexicographical order.
+   * @param tok token
+   * @return {@code -1} if the token matches, or byte length of the prefix
+   */
+  public int mismatch(final byte[] tok) {
+    final int[] tcps = cps(tok);
+    final int tl = tcps.length;
+    if(match(tcps, 0, 0, false)) return -1;
+    if(!prunable || match(tcps, 0, 0, true)) return tok.length;
+
+    // find shortest prefix that cannot be extended to a match
+    int l = 0, h = tl;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(match(Arrays.copyOf(tcps, m), 0, 0, true)) l = m + 1;
+      else h = m;
+    }
+    int o = 0;
+    for(int i = 0; i < l; i++) o += cl(tok, o);
+    return o;
   }
 
   /**
@@ -157,17 +191,20 @@ public final class FTWildcard {
    * @param tok token to search for match
    * @param tp input position
    * @param qp query position
+   * @param prefix check if the token is the prefix of a potential match
    * @return {@code true} if a match is found
    */
-  private boolean match(final int[] tok, final int tp, final int qp) {
+  private boolean match(final int[] tok, final int tp, final int qp, final boolean prefix) {
     final int tl = tok.length;
     int qi = qp, ti = tp;
     while(qi < size) {
+      // prefix has been consumed: remaining query can always be matched
+      if(prefix && ti >= tl) return true;
       if(cps[qi] == DOT) {
         int n = min[qi];
         final int m = max[qi++];
         // recursively evaluates wildcards (non-greedy)
-        while(!match(tok, ti + n, qi)) {
+        while(!match(tok, ti + n, qi, prefix)) {
           if(ti + ++n > tl) return false;
         }
         if(n > m) return false;
@@ -176,6 +213,6 @@ public final class FTWildcard {
         return false;
       }
     }
-    return ti == tl;
+    return prefix ? ti >= tl : ti == tl;
   }
 }
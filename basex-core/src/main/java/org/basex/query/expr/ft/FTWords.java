@@ -147,6 +147,8 @@ public final class FTWords extends FTExpr {
   @Override
   public FTIter iter(final QueryContext qc) throws QueryException {
     final Data data = db.data(qc, IndexType.FULLTEXT);
+    final boolean bm25 = qc.context.options.get(MainOptions.FTSCORING) ==
+      MainOptions.FTScoring.BM25 && data.meta.fttexts > 0 && data.meta.ftlength > 0;
     return new FTIter() {
       FTIndexIterator ftiter;
       int length;
@@ -204,7 +206,8 @@ public final class FTWords extends FTExpr {
           }
         }
         return ftiter == null || !ftiter.more() ? null :
-          new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+          new FTNode(ftiter.matches(), data, ftiter.pre(), length,
+              bm25 ? ftiter.nodes() : ftiter.size(), bm25);
       }
     };
   }
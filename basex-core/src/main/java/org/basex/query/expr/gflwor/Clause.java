@@ -15,6 +15,9 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public abstract class Clause extends ParseExpr {
+  /** Minimum number of tuples for sorting and grouping them in parallel. */
+  static final int PARALLEL = 1 << 15;
+
   /** All variables declared in this clause. */
   Var[] vars;
 
@@ -65,7 +65,9 @@ public final class GFLWOR extends ParseExpr {
   }
 
   @Override
-  public Iter iter(final QueryContext qc) {
+  public Iter iter(final QueryContext qc) throws QueryException {
+    final For fr = parallel(qc);
+    if(fr != null) return Parallel.iter(fr.expr.iter(qc), qc, mapper(fr));
     return new Iter() {
       private final Eval eval = newEval();
       private Iter iter = Empty.ITER;
@@ -87,12 +89,42 @@ public final class GFLWOR extends ParseExpr {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
+    final For fr = parallel(qc);
+    if(fr != null) return Parallel.map(fr.expr.value(qc), this, qc, mapper(fr));
     final Eval eval = newEval();
     final ValueBuilder vb = new ValueBuilder(qc);
     while(eval.next(qc)) vb.add(rtrn.value(qc));
     return vb.value(this);
   }
 
+  /**
+   * Returns the for clause if this expression consists of a single clause that can be
+   * evaluated in parallel.
+   * @param qc query context
+   * @return for clause or {@code null}
+   */
+  private For parallel(final QueryContext qc) {
+    if(clauses.size() == 1 && clauses.getFirst() instanceof For) {
+      final For fr = (For) clauses.getFirst();
+      if(fr.score == null && !fr.empty && Parallel.enabled(qc, rtrn)) return fr;
+    }
+    return null;
+  }
+
+  /**
+   * Returns a function that binds an item to the variables of the specified for clause
+   * and evaluates the return expression.
+   * @param fr for clause
+   * @return function
+   */
+  private Parallel.Mapper mapper(final For fr) {
+    return (item, index, qc) -> {
+      qc.set(fr.var, item);
+      if(fr.pos != null) qc.set(fr.pos, Int.get(index + 1));
+      return rtrn.value(qc);
+    };
+  }
+
   @Override
   public Expr compile(final CompileContext cc) throws QueryException {
     final ListIterator<Clause> iter = clauses.listIterator();
@@ -120,6 +152,7 @@ public final class GFLWOR extends ParseExpr {
         cleanDeadVars() | optimizeWhere(cc) | optimizePos(cc) | optimizeOrderBy(cc));
 
     mergeWheres();
+    sortedGroups();
 
     final Expr expr = simplify(cc);
     if(expr != null) {
@@ -137,6 +170,26 @@ public final class GFLWOR extends ParseExpr {
         clauses.removeIf(clause -> clause instanceof OrderBy) ? optimize(cc) : this, mode);
   }
 
+  /**
+   * Limits the number of tuples to be sorted if only the first results of this expression
+   * will be requested. This is the case if each tuple of the final order by clause yields
+   * at least one result.
+   * @param limit number of requested results
+   * @param cc compilation context
+   */
+  public void limit(final long limit, final CompileContext cc) {
+    if(limit < 1 || !rtrn.seqType().oneOrMore()) return;
+    for(final Iterator<Clause> iter = clauses.descendingIterator(); iter.hasNext();) {
+      final Clause clause = iter.next();
+      if(clause instanceof OrderBy) {
+        ((OrderBy) clause).limit(limit, cc);
+        return;
+      }
+      // let and count clauses do not change the number of tuples
+      if(!(clause instanceof Let || clause instanceof Count)) return;
+    }
+  }
+
   /**
    * Simplifies a FLWOR expression.
    * @param cc compilation context
@@ -910,6 +963,23 @@ public final class GFLWOR extends ParseExpr {
     return false;
   }
 
+  /**
+   * Detects group by clauses whose incoming tuples are ordered by the grouping keys.
+   * Such clauses can return groups as soon as all tuples with the same key have been processed.
+   */
+  private void sortedGroups() {
+    OrderBy ob = null;
+    for(final Clause clause : clauses) {
+      if(clause instanceof OrderBy) {
+        ob = (OrderBy) clause;
+      } else if(clause instanceof GroupBy) {
+        final GroupBy gb = (GroupBy) clause;
+        gb.sorted = ob != null && gb.sorted(ob);
+        ob = null;
+      }
+    }
+  }
+
   /**
    * Merges consecutive {@code where} clauses.
    */
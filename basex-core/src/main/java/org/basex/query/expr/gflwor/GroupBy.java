@@ -1,9 +1,16 @@
 package org.basex.query.expr.gflwor;
 
+import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.util.*;
@@ -15,6 +22,7 @@ import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * The GFLWOR {@code group by} expression.
@@ -23,6 +31,9 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public final class GroupBy extends Clause {
+  /** Number of partitions for groups that are written to disk. */
+  private static final int PARTITIONS = 16;
+
   /** Grouping specs. */
   private final GroupSpec[] specs;
   /** Non-grouping variable expressions. */
@@ -31,6 +42,8 @@ public final class GroupBy extends Clause {
   private Var[] post;
   /** Number of non-occluded grouping variables. */
   private final int nonOcc;
+  /** Indicates if the incoming tuples are ordered by the grouping keys. */
+  boolean sorted;
 
   /**
    * Constructor.
@@ -86,124 +99,401 @@ public final class GroupBy extends Clause {
 
   @Override
   Eval eval(final Eval sub) {
-    return new Eval() {
+    return sorted ? streaming(sub) : new Eval() {
       /** Groups to iterate over. */
       private Group[] groups;
       /** Current position. */
       private int pos;
+      /** Groups written to disk (can be {@code null}). */
+      private Partitions partitions;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
         if(groups == null) groups = init(qc);
-        if(pos == groups.length) return false;
+        while(pos == groups.length) {
+          final Group[] grps = partitions != null ? partitions.next() : null;
+          if(grps == null) return false;
+          groups = grps;
+          pos = 0;
+        }
 
         final Group curr = groups[pos];
         // be nice to the garbage collector
         groups[pos++] = null;
-
-        int p = 0;
-        for(final GroupSpec spec : specs) {
-          if(!spec.occluded) {
-            final Item key = curr.key[p++];
-            qc.set(spec.var, key == null ? Empty.VALUE : key);
-          }
-        }
-        final int pl = post.length;
-        for(int i = 0; i < pl; i++) qc.set(post[i], curr.ngv[i].value(preExpr[i]));
+        bind(curr, qc);
         return true;
       }
 
       /**
        * Builds up the groups.
        * @param qc query context
+       * @return groups
        * @throws QueryException query exception
        */
       private Group[] init(final QueryContext qc) throws QueryException {
         final ArrayList<Group> grps = new ArrayList<>();
         final IntObjMap<Group> map = new IntObjMap<>();
         final Collation[] colls = new Collation[nonOcc];
-        int c = 0;
+        final long limit = qc.context.options.get(MainOptions.GROUPLIMIT);
+        int c = 0, kept = 0, count = 0;
+        // groups that are written to disk are not grouped in parallel
+        boolean parallel = limit == 0;
         for(final GroupSpec spec : specs) {
           if(!spec.occluded) colls[c++] = spec.coll;
+          // collations may not be thread-safe
+          if(spec.coll != null) parallel = false;
         }
 
+        // tuples are grouped sequentially. If their number exceeds a threshold,
+        // the remaining tuples are cached and grouped in parallel
+        ArrayList<Item[]> keys = null;
+        ArrayList<Value[]> values = null;
+        IntList hashes = null;
         while(sub.next(qc)) {
           final Item[] key = new Item[nonOcc];
-          int p = 0, hash = 1;
-          for(final GroupSpec spec : specs) {
-            final Item atom = spec.atomItem(qc, info);
-            if(!spec.occluded) {
-              key[p++] = atom;
-              // If the values are compared using a special collation, we let them collide
-              // here and let the comparison do all the work later.
-              // This enables other non-collation specs to avoid the collision.
-              hash = 31 * hash + (atom == Empty.VALUE || spec.coll != null ? 0 : atom.hash(info));
+          final int hash = key(key, qc);
+          final Value[] vals = values(qc);
+          if(keys != null) {
+            keys.add(key);
+            values.add(vals);
+            hashes.add(hash);
+          } else {
+            add(key, hash, vals, map, grps, colls, qc);
+            if(limit > 0 && grps.size() - kept >= limit) {
+              if(partitions == null) partitions = new Partitions(colls, qc);
+              partitions.spill(grps, map);
+              kept = grps.size();
             }
-            qc.set(spec.var, atom);
-          }
-
-          // find the group for this key
-          final Group fst;
-          Group grp = null;
-          // no collations, so we can use hashing
-          for(Group g = fst = map.get(hash); g != null; g = g.next) {
-            if(eq(key, g.key, colls)) {
-              grp = g;
-              break;
+            if(parallel && ++count == PARALLEL) {
+              if(qc.context.jobs.forkJoin().getParallelism() > 1) {
+                keys = new ArrayList<>();
+                values = new ArrayList<>();
+                hashes = new IntList();
+              }
+              parallel = false;
             }
           }
+        }
+        // groups in main memory will be merged with the partitions on disk
+        if(partitions != null) {
+          partitions.finish(grps);
+          return new Group[0];
+        }
+        if(keys != null) parallel(grps, keys, values, hashes, colls, qc);
+        // we're finished, copy the array so the list can be garbage-collected
+        return grps.toArray(Group[]::new);
+      }
 
-          final int pl = preExpr.length;
-          if(grp == null) {
-            // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[pl];
-            final int nl = ngs.length;
-            for(int n = 0; n < nl; n++) ngs[n] = new ValueBuilder(qc);
-            grp = new Group(key, ngs);
-            grps.add(grp);
-
-            // insert the group into the hash table
-            if(fst == null) {
-              map.put(hash, grp);
-            } else {
-              final Group nxt = fst.next;
-              fst.next = grp;
-              grp.next = nxt;
+      /**
+       * Groups the cached tuples in parallel. The tuples and existing groups are partitioned by
+       * their hash values, and each partition is grouped by a separate task of the fork/join
+       * pool. New groups are appended in the order of their first occurrence.
+       * @param grps existing groups
+       * @param keys grouping keys
+       * @param values values of non-grouping variables
+       * @param hashes hash values of the keys
+       * @param colls collations
+       * @param qc query context
+       * @throws QueryException query exception
+       */
+      private void parallel(final ArrayList<Group> grps, final ArrayList<Item[]> keys,
+          final ArrayList<Value[]> values, final IntList hashes, final Collation[] colls,
+          final QueryContext qc) throws QueryException {
+
+        final ForkJoinPool pool = qc.context.jobs.forkJoin();
+        final int size = keys.size(), ps = pool.getParallelism();
+        final ArrayList<ArrayList<Group>> existing = new ArrayList<>(ps);
+        final IntList[] partitions = new IntList[ps];
+        for(int p = 0; p < ps; p++) {
+          existing.add(new ArrayList<>());
+          partitions[p] = new IntList(size / ps + 1);
+        }
+        for(final Group grp : grps) {
+          final int hash = hash(grp.key);
+          existing.get(((hash ^ hash >>> 16) & 0x7FFFFFFF) % ps).add(grp);
+        }
+        for(int s = 0; s < size; s++) {
+          final int hash = hashes.get(s);
+          partitions[((hash ^ hash >>> 16) & 0x7FFFFFFF) % ps].add(s);
+        }
+
+        // assign tuples to groups
+        final Group[] tuples = new Group[size];
+        final ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(ps);
+        for(int p = 0; p < ps; p++) {
+          final ArrayList<Group> groups = existing.get(p);
+          final IntList partition = partitions[p];
+          tasks.add(ForkJoinTask.adapt(() -> {
+            final IntObjMap<Group> map = new IntObjMap<>();
+            try {
+              for(final Group grp : groups) {
+                final int hash = hash(grp.key);
+                final Group fst = map.get(hash);
+                if(fst == null) {
+                  grp.next = null;
+                  map.put(hash, grp);
+                } else {
+                  grp.next = fst.next;
+                  fst.next = grp;
+                }
+              }
+              final int pl = partition.size();
+              for(int i = 0; i < pl; i++) {
+                final int s = partition.get(i);
+                tuples[s] = add(keys.get(s), hashes.get(s), values.get(s), map, null, colls, qc);
+              }
+            } catch(final QueryException ex) {
+              throw new QueryRTException(ex);
             }
-          }
+          }));
+        }
+        try {
+          pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        } catch(final QueryRTException ex) {
+          throw ex.getCause();
+        }
 
-          // add values of non-grouping variables to the group
-          for(int g = 0; g < pl; g++) {
-            grp.ngv[g].add(preExpr[g].value(qc));
-          }
+        // a new group was created by the tuple whose key it references
+        for(int s = 0; s < size; s++) {
+          if(tuples[s].key == keys.get(s)) grps.add(tuples[s]);
         }
+      }
+    };
+  }
 
-        // we're finished, copy the array so the list can be garbage-collected
-        return grps.toArray(Group[]::new);
+  /**
+   * Returns an evaluator for tuples that are ordered by the grouping keys.
+   * Tuples with equal keys are grouped as soon as they arrive, and the resulting groups are
+   * returned before the next tuple with a different key is processed.
+   * @param sub wrapped evaluator
+   * @return evaluator
+   */
+  private Eval streaming(final Eval sub) {
+    return new Eval() {
+      /** Groups with the current key (key equality is checked as in order by clauses). */
+      private final ArrayList<Group> groups = new ArrayList<>();
+      /** Hash table with the groups of the current key. */
+      private final IntObjMap<Group> map = new IntObjMap<>();
+      /** Collations (no collations are assigned if the tuples are ordered). */
+      private final Collation[] colls = new Collation[nonOcc];
+      /** Position of the next group to be returned. */
+      private int pos;
+      /** Key of the tuple that has been read ahead ({@code null} if there is none). */
+      private Item[] key;
+      /** Hash value of the tuple that has been read ahead. */
+      private int hash;
+      /** Values of the tuple that has been read ahead. */
+      private Value[] values;
+
+      @Override
+      public boolean next(final QueryContext qc) throws QueryException {
+        if(pos == groups.size()) {
+          groups.clear();
+          map.clear();
+          pos = 0;
+          if(key == null && !read(qc)) return false;
+
+          // group all tuples with the current key
+          final Item[] first = key;
+          do {
+            add(key, hash, values, map, groups, colls, qc);
+          } while(read(qc) && sortEq(first, key));
+        }
+
+        final Group curr = groups.get(pos);
+        // be nice to the garbage collector
+        groups.set(pos++, null);
+        bind(curr, qc);
+        return true;
       }
 
       /**
-       * Checks two keys for equality.
-       * @param items1 first keys
-       * @param items2 second keys
-       * @param coll collations
-       * @return {@code true} if the compare as equal, {@code false} otherwise
+       * Reads the next tuple.
+       * @param qc query context
+       * @return {@code true} if a tuple was read
        * @throws QueryException query exception
        */
-      private boolean eq(final Item[] items1, final Item[] items2, final Collation[] coll)
-          throws QueryException {
-
-        final int il = items1.length;
-        for(int i = 0; i < il; i++) {
-          final Item item1 = items1[i], item2 = items2[i];
-          if(item1 == Empty.VALUE ^ item2 == Empty.VALUE ||
-             item1 != Empty.VALUE && !item1.equiv(item2, coll[i], info)) return false;
+      private boolean read(final QueryContext qc) throws QueryException {
+        if(!sub.next(qc)) {
+          key = null;
+          values = null;
+          return false;
         }
+        key = new Item[nonOcc];
+        hash = key(key, qc);
+        values = values(qc);
         return true;
       }
     };
   }
 
+  /**
+   * Computes the grouping key of the current tuple and binds the grouping variables.
+   * @param key array for the items of the key
+   * @param qc query context
+   * @return hash value of the key
+   * @throws QueryException query exception
+   */
+  private int key(final Item[] key, final QueryContext qc) throws QueryException {
+    int p = 0;
+    for(final GroupSpec spec : specs) {
+      final Item atom = spec.atomItem(qc, info);
+      if(!spec.occluded) key[p++] = atom;
+      qc.set(spec.var, atom);
+    }
+    return hash(key);
+  }
+
+  /**
+   * Computes the hash value of a grouping key.
+   * @param key items of the key
+   * @return hash value
+   * @throws QueryException query exception
+   */
+  private int hash(final Item[] key) throws QueryException {
+    int p = 0, hash = 1;
+    for(final GroupSpec spec : specs) {
+      if(!spec.occluded) {
+        final Item atom = key[p++];
+        // If the values are compared using a special collation, we let them collide
+        // here and let the comparison do all the work later.
+        // This enables other non-collation specs to avoid the collision.
+        hash = 31 * hash + (atom == Empty.VALUE || spec.coll != null ? 0 : atom.hash(info));
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the values of the non-grouping variables of the current tuple.
+   * @param qc query context
+   * @return values
+   * @throws QueryException query exception
+   */
+  private Value[] values(final QueryContext qc) throws QueryException {
+    final int pl = preExpr.length;
+    final Value[] vals = new Value[pl];
+    for(int g = 0; g < pl; g++) vals[g] = preExpr[g].value(qc);
+    return vals;
+  }
+
+  /**
+   * Binds the variables of a group.
+   * @param group group
+   * @param qc query context
+   * @throws QueryException query exception
+   */
+  private void bind(final Group group, final QueryContext qc) throws QueryException {
+    int p = 0;
+    for(final GroupSpec spec : specs) {
+      if(!spec.occluded) {
+        final Item key = group.key[p++];
+        qc.set(spec.var, key == null ? Empty.VALUE : key);
+      }
+    }
+    final int pl = post.length;
+    for(int i = 0; i < pl; i++) qc.set(post[i], group.ngv[i].value(preExpr[i]));
+  }
+
+  /**
+   * Adds a tuple to its group.
+   * @param key grouping key
+   * @param hash hash value of the key
+   * @param vals values of non-grouping variables
+   * @param map hash table with groups
+   * @param grps list of all groups (can be {@code null})
+   * @param colls collations
+   * @param qc query context
+   * @return group
+   * @throws QueryException query exception
+   */
+  private Group add(final Item[] key, final int hash, final Value[] vals,
+      final IntObjMap<Group> map, final ArrayList<Group> grps, final Collation[] colls,
+      final QueryContext qc) throws QueryException {
+
+    // find the group for this key
+    final Group fst;
+    Group grp = null;
+    // no collations, so we can use hashing
+    for(Group g = fst = map.get(hash); g != null; g = g.next) {
+      if(eq(key, g.key, colls)) {
+        grp = g;
+        break;
+      }
+    }
+
+    final int pl = vals.length;
+    if(grp == null) {
+      // new group, add it to the list
+      final ValueBuilder[] ngs = new ValueBuilder[pl];
+      for(int n = 0; n < pl; n++) ngs[n] = new ValueBuilder(qc);
+      grp = new Group(key, ngs);
+      if(grps != null) grps.add(grp);
+
+      // insert the group into the hash table
+      if(fst == null) {
+        map.put(hash, grp);
+      } else {
+        final Group nxt = fst.next;
+        fst.next = grp;
+        grp.next = nxt;
+      }
+    }
+
+    // add values of non-grouping variables to the group
+    for(int g = 0; g < pl; g++) grp.ngv[g].add(vals[g]);
+    return grp;
+  }
+
+  /**
+   * Checks two keys for equality.
+   * @param items1 first keys
+   * @param items2 second keys
+   * @param coll collations
+   * @return {@code true} if the compare as equal, {@code false} otherwise
+   * @throws QueryException query exception
+   */
+  private boolean eq(final Item[] items1, final Item[] items2, final Collation[] coll)
+      throws QueryException {
+
+    final int il = items1.length;
+    for(int i = 0; i < il; i++) {
+      final Item item1 = items1[i], item2 = items2[i];
+      if(item1 == Empty.VALUE ^ item2 == Empty.VALUE ||
+         item1 != Empty.VALUE && !item1.equiv(item2, coll[i], info)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Checks if two keys are equal according to the comparison rules of order by clauses.
+   * In contrast to grouping, {@code NaN} and empty sequences are considered equal.
+   * @param items1 first keys
+   * @param items2 second keys
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private boolean sortEq(final Item[] items1, final Item[] items2) throws QueryException {
+    final int il = items1.length;
+    for(int i = 0; i < il; i++) {
+      final Item item1 = items1[i], item2 = items2[i];
+      final boolean empty1 = item1 == Empty.VALUE || item1 == Dbl.NAN || item1 == Flt.NAN;
+      final boolean empty2 = item2 == Empty.VALUE || item2 == Dbl.NAN || item2 == Flt.NAN;
+      if(empty1 || empty2 ? empty1 != empty2 :
+        !item1.comparable(item2) || item1.diff(item2, null, info) != 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Checks if the incoming tuples are ordered by the grouping keys.
+   * @param ob preceding order by clause
+   * @return result of check
+   */
+  boolean sorted(final OrderBy ob) {
+    return nonOcc == specs.length && ob.sorts(specs);
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     for(final Expr expr : preExpr) {
@@ -263,7 +553,9 @@ public final class GroupBy extends Clause {
     for(int p = 0; p < pl; p++) ps[p] = cc.copy(post[p], vm);
 
     // done
-    return copyType(new GroupBy(Arr.copyAll(cc, vm, specs), pEx, ps, nonOcc, info));
+    final GroupBy gb = new GroupBy(Arr.copyAll(cc, vm, specs), pEx, ps, nonOcc, info);
+    gb.sorted = sorted;
+    return copyType(gb);
   }
 
   @Override
@@ -341,7 +633,7 @@ public final class GroupBy extends Clause {
 
   @Override
   public void toXml(final QueryPlan plan) {
-    plan.add(plan.create(this), specs);
+    plan.add(plan.create(this, ITERATIVE, sorted ? true : null), specs);
   }
 
   @Override
@@ -352,4 +644,160 @@ public final class GroupBy extends Clause {
     }
     qs.token(GROUP).token(BY).tokens(specs, SEP);
   }
+
+  /**
+   * Groups that are written to temporary files if the number of groups in main memory exceeds
+   * the {@link MainOptions#GROUPLIMIT}. The groups are assigned to partitions by their hash
+   * values. All groups with the same key end up in the same partition, and the partitions are
+   * merged and returned one after another.
+   */
+  private final class Partitions {
+    /** Temporary storage. */
+    private final TempStore store;
+    /** Collations. */
+    private final Collation[] colls;
+    /** Query context. */
+    private final QueryContext qc;
+    /** Files of the partitions (entries are {@code null} if no groups were written). */
+    private final IOFile[] files = new IOFile[PARTITIONS];
+    /** Number of group entries written to each partition. */
+    private final int[] sizes = new int[PARTITIONS];
+    /** Groups that remain in main memory. */
+    private ArrayList<Group> kept;
+    /** Next partition to be returned. */
+    private int next;
+
+    /**
+     * Constructor.
+     * @param colls collations
+     * @param qc query context
+     */
+    private Partitions(final Collation[] colls, final QueryContext qc) {
+      this.colls = colls;
+      this.qc = qc;
+      store = new TempStore("group-", qc);
+    }
+
+    /**
+     * Writes all groups to disk whose values are atomic items or database nodes.
+     * The remaining groups are kept in the list and hash table.
+     * @param grps groups
+     * @param map hash table with groups
+     * @throws QueryException query exception
+     */
+    private void spill(final ArrayList<Group> grps, final IntObjMap<Group> map)
+        throws QueryException {
+
+      final ArrayList<Group> keep = new ArrayList<>();
+      final DataOutput[] outs = new DataOutput[PARTITIONS];
+      try {
+        try {
+          for(final Group grp : grps) {
+            qc.checkStop();
+            final Value[] values = values(grp);
+            if(TempStore.spillable(values)) {
+              final int p = partition(grp.key);
+              if(outs[p] == null) {
+                // groups of subsequent runs are appended to the existing files
+                final boolean append = files[p] != null;
+                if(!append) files[p] = store.create();
+                outs[p] = TempStore.output(files[p], append);
+              }
+              store.write(outs[p], grp.key);
+              store.write(outs[p], values);
+              sizes[p]++;
+            } else {
+              final int vl = values.length;
+              for(int v = 0; v < vl; v++) grp.ngv[v] = new ValueBuilder(qc).add(values[v]);
+              keep.add(grp);
+            }
+          }
+        } finally {
+          for(final DataOutput out : outs) {
+            if(out != null) out.close();
+          }
+        }
+      } catch(final IOException ex) {
+        throw IOERR_X.get(info, ex);
+      }
+
+      // rebuild hash table with the remaining groups
+      grps.clear();
+      map.clear();
+      for(final Group grp : keep) {
+        final int hash = hash(grp.key);
+        grp.next = map.get(hash);
+        map.put(hash, grp);
+        grps.add(grp);
+      }
+    }
+
+    /**
+     * Assigns the groups that remain in main memory.
+     * @param grps groups
+     */
+    private void finish(final ArrayList<Group> grps) {
+      kept = grps;
+    }
+
+    /**
+     * Returns the groups of the next non-empty partition.
+     * Groups on disk are read first, as they contain the values of earlier tuples.
+     * @return groups or {@code null} if all partitions have been returned
+     * @throws QueryException query exception
+     */
+    private Group[] next() throws QueryException {
+      while(next < PARTITIONS) {
+        final int p = next++;
+        final ArrayList<Group> grps = new ArrayList<>();
+        final IntObjMap<Group> map = new IntObjMap<>();
+        final IOFile file = files[p];
+        if(file != null) {
+          try(DataInput in = new DataInput(file)) {
+            for(int s = sizes[p]; s > 0; s--) {
+              qc.checkStop();
+              final Value[] values = store.read(in);
+              final int kl = values.length;
+              final Item[] key = new Item[kl];
+              for(int k = 0; k < kl; k++) key[k] = (Item) values[k];
+              add(key, hash(key), store.read(in), map, grps, colls, qc);
+            }
+          } catch(final IOException ex) {
+            throw IOERR_X.get(info, ex);
+          }
+          file.delete();
+          files[p] = null;
+        }
+        for(final Group grp : kept) {
+          final Item[] key = grp.key;
+          if(partition(key) == p) add(key, hash(key), values(grp), map, grps, colls, qc);
+        }
+        if(!grps.isEmpty()) return grps.toArray(Group[]::new);
+      }
+      return null;
+    }
+
+    /**
+     * Returns the partition of a grouping key.
+     * @param key items of the key
+     * @return partition
+     * @throws QueryException query exception
+     */
+    private int partition(final Item[] key) throws QueryException {
+      final int hash = hash(key);
+      return ((hash ^ hash >>> 16) & 0x7FFFFFFF) % PARTITIONS;
+    }
+
+    /**
+     * Returns the values of the non-grouping variables of a group.
+     * @param grp group
+     * @return values
+     */
+    private Value[] values(final Group grp) {
+      final int vl = grp.ngv.length;
+      final Value[] values = new Value[vl];
+      for(int v = 0; v < vl; v++) values[v] = grp.ngv[v].value();
+      return values;
+    }
+  }
 }
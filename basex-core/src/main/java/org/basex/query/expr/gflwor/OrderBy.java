@@ -6,7 +6,10 @@ import static org.basex.query.func.Function.*;
 
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.util.*;
@@ -29,6 +32,8 @@ public final class OrderBy extends Clause {
   private VarRef[] refs;
   /** Sort keys. */
   private final OrderKey[] keys;
+  /** Maximum number of tuples to be returned (top-k evaluation). */
+  private long limit = Long.MAX_VALUE;
 
   /**
    * Constructor.
@@ -46,17 +51,28 @@ public final class OrderBy extends Clause {
   Eval eval(final Eval sub) {
     return new Eval() {
       private Value[][] tpls;
-      private Integer[] perm;
+      private int[] perm;
+      private ExternalSort sorter;
       int pos;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
-        final Value[] tuple = tpls[p];
-        // free the space occupied by the tuple
-        tpls[p] = null;
+        if(tpls == null && sorter == null) {
+          if(limit < Integer.MAX_VALUE) top(qc);
+          else if(qc.context.options.get(MainOptions.SORTLIMIT) > 0) external(qc);
+          else sort(qc);
+        }
+        final Value[] tuple;
+        if(sorter != null) {
+          tuple = sorter.next();
+          if(tuple == null) return false;
+        } else {
+          if(pos == tpls.length) return false;
+          final int p = perm[pos++];
+          tuple = tpls[p];
+          // free the space occupied by the tuple
+          tpls[p] = null;
+        }
         final int rl = refs.length;
         for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[r]);
         return true;
@@ -71,20 +87,13 @@ public final class OrderBy extends Clause {
         // keys are stored at odd positions, values at even ones
         List<Value[]> tuples = new ArrayList<>();
         while(sub.next(qc)) {
-          final int kl = keys.length;
-          final Item[] key = new Item[kl];
-          for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info());
-          tuples.add(key);
-
-          final int rl = refs.length;
-          final Value[] vals = new Value[rl];
-          for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
-          tuples.add(vals);
+          tuples.add(keys(qc));
+          tuples.add(values(qc));
         }
 
         final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
+        Item[][] ks = new Item[len][];
+        perm = new int[len];
         tpls = new Value[len][];
         for(int i = 0; i < len; i++) {
           perm[i] = i;
@@ -93,36 +102,216 @@ public final class OrderBy extends Clause {
         }
         // be nice to the garbage collector
         tuples = null;
+        final IntBinaryOperator cmp = comparator(ks);
+        ks = null;
+        try {
+          final Sorter sorter = new Sorter(perm, new int[len], 0, len, cmp);
+          final ForkJoinPool pool = len >= PARALLEL ? pool(qc) : null;
+          if(pool != null) pool.invoke(sorter);
+          else sorter.sort();
+        } catch(final QueryRTException ex) {
+          throw ex.getCause();
+        }
+      }
+
+      /**
+       * Sorts all incoming tuples. If the tuples exceed the sort limit, they are written to disk.
+       * @param qc query context
+       * @throws QueryException evaluation exception
+       */
+      private void external(final QueryContext qc) throws QueryException {
+        sorter = new ExternalSort(OrderBy.this::compare, qc, info);
+        while(sub.next(qc)) sorter.add(keys(qc), values(qc));
+      }
+
+      /**
+       * Caches and sorts the first tuples. A bounded heap is used, which contains the
+       * {@link #limit} smallest tuples, and the largest of these tuples at its head.
+       * @param qc query context
+       * @throws QueryException evaluation exception
+       */
+      private void top(final QueryContext qc) throws QueryException {
+        final int lim = (int) limit;
+        // tuples with equal keys are ordered by their original position
+        final Comparator<Tuple> cmp = (x, y) -> {
+          try {
+            final int c = compare(x.keys, y.keys);
+            return c != 0 ? c : Long.compare(x.pos, y.pos);
+          } catch(final QueryException ex) {
+            throw new QueryRTException(ex);
+          }
+        };
+        final PriorityQueue<Tuple> heap = new PriorityQueue<>(Math.min(lim, 1 << 10),
+            cmp.reversed());
         try {
-          Arrays.sort(perm, (x, y) -> {
-            try {
-              final Item[] a = ks[x], b = ks[y];
-              final int kl = keys.length;
-              for(int k = 0; k < kl; k++) {
-                final OrderKey key = keys[k];
-                Item m = a[k], n = b[k];
-                if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
-                if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
-                if(m != Empty.VALUE && n != Empty.VALUE && !m.comparable(n))
-                  throw typeError(n, m.type, key.info());
-
-                final int c = m == Empty.VALUE
-                    ? n == Empty.VALUE ? 0                 : key.least ? -1 : 1
-                    : n == Empty.VALUE ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info());
-                if(c != 0) return key.desc ? -c : c;
-              }
-              return 0;
-            } catch(final QueryException ex) {
-              throw new QueryRTException(ex);
+          for(long p = 0; sub.next(qc); p++) {
+            final Tuple tuple = new Tuple(keys(qc), p);
+            if(heap.size() < lim) {
+              tuple.values = values(qc);
+              heap.add(tuple);
+            } else if(cmp.compare(tuple, heap.peek()) < 0) {
+              // replace largest tuple
+              tuple.values = values(qc);
+              heap.poll();
+              heap.add(tuple);
             }
-          });
+          }
         } catch(final QueryRTException ex) {
           throw ex.getCause();
         }
+
+        // return tuples in ascending order
+        final int len = heap.size();
+        perm = new int[len];
+        tpls = new Value[len][];
+        for(int i = len; --i >= 0;) {
+          perm[i] = i;
+          tpls[i] = heap.poll().values;
+        }
+      }
+
+      /**
+       * Computes the sort keys of the current tuple.
+       * @param qc query context
+       * @return keys
+       * @throws QueryException evaluation exception
+       */
+      private Item[] keys(final QueryContext qc) throws QueryException {
+        final int kl = keys.length;
+        final Item[] key = new Item[kl];
+        for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info());
+        return key;
+      }
+
+      /**
+       * Returns the values of the current tuple.
+       * @param qc query context
+       * @return values
+       * @throws QueryException evaluation exception
+       */
+      private Value[] values(final QueryContext qc) throws QueryException {
+        final int rl = refs.length;
+        final Value[] vals = new Value[rl];
+        for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
+        return vals;
       }
     };
   }
 
+  /**
+   * Compares the sort keys of two tuples.
+   * @param a keys of the first tuple
+   * @param b keys of the second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  private int compare(final Value[] a, final Value[] b) throws QueryException {
+    final int kl = keys.length;
+    for(int k = 0; k < kl; k++) {
+      final OrderKey key = keys[k];
+      final int c = compare((Item) a[k], (Item) b[k], key);
+      if(c != 0) return key.desc ? -c : c;
+    }
+    return 0;
+  }
+
+  /**
+   * Compares two sort keys in ascending order.
+   * @param a first key
+   * @param b second key
+   * @param key order key
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  private static int compare(final Item a, final Item b, final OrderKey key)
+      throws QueryException {
+    Item m = a, n = b;
+    if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
+    if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
+    if(m != Empty.VALUE && n != Empty.VALUE && !m.comparable(n))
+      throw typeError(n, m.type, key.info());
+
+    return m == Empty.VALUE
+        ? n == Empty.VALUE ? 0                 : key.least ? -1 : 1
+        : n == Empty.VALUE ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info());
+  }
+
+  /**
+   * Returns a comparator for the positions of the cached tuples. If all sort keys of an order
+   * key are integers, doubles or strings (compared without collation), they are stored in
+   * primitive arrays.
+   * @param ks sort keys of all tuples
+   * @return comparator
+   * @throws QueryException query exception
+   */
+  private IntBinaryOperator comparator(final Item[][] ks) throws QueryException {
+    final int kl = keys.length;
+    final Column[] columns = new Column[kl];
+    for(int k = 0; k < kl; k++) columns[k] = Column.get(ks, k, keys[k]);
+    return (x, y) -> {
+      try {
+        for(int k = 0; k < kl; k++) {
+          final int c = columns[k].compare(x, y);
+          if(c != 0) return keys[k].desc ? -c : c;
+        }
+        return 0;
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    };
+  }
+
+  /**
+   * Returns the fork/join pool if the tuples can be sorted in parallel. The sort keys are atomic
+   * items, and their comparison has no side effects. Collations may not be thread-safe.
+   * @param qc query context
+   * @return pool or {@code null}
+   */
+  private ForkJoinPool pool(final QueryContext qc) {
+    for(final OrderKey key : keys) {
+      if(key.coll != null) return null;
+    }
+    final ForkJoinPool pool = qc.context.jobs.forkJoin();
+    return pool.getParallelism() > 1 ? pool : null;
+  }
+
+  /**
+   * Limits the number of tuples to be returned.
+   * @param lmt maximum number of tuples
+   * @param cc compilation context
+   */
+  void limit(final long lmt, final CompileContext cc) {
+    if(lmt < limit) {
+      cc.info(OPTLIMIT_X_X, lmt, this);
+      limit = lmt;
+    }
+  }
+
+  /**
+   * Checks if the tuples will be ordered by the keys of the specified grouping specifications.
+   * This is the case if the distinct grouping expressions are equal to the leading order keys
+   * (in arbitrary order).
+   * @param specs grouping specifications
+   * @return result of check
+   */
+  boolean sorts(final GroupSpec[] specs) {
+    final ArrayList<Expr> exprs = new ArrayList<>(specs.length);
+    for(final GroupSpec spec : specs) {
+      if(spec.coll != null || spec.expr.has(Flag.NDT)) return false;
+      if(!exprs.contains(spec.expr)) exprs.add(spec.expr);
+    }
+    final int el = exprs.size();
+    if(el > keys.length) return false;
+
+    final ArrayList<Expr> leading = new ArrayList<>(el);
+    for(int k = 0; k < el; k++) {
+      final OrderKey key = keys[k];
+      if(key.coll != null || key.expr.has(Flag.NDT) || !exprs.contains(key.expr)) return false;
+      leading.add(key.expr);
+    }
+    return leading.containsAll(exprs);
+  }
+
   /**
    * Merges the order by clause with the supplied for clause.
    * @param fr for clause
@@ -191,7 +380,9 @@ public final class OrderBy extends Clause {
 
   @Override
   public OrderBy copy(final CompileContext cc, final IntObjMap<Var> vm) {
-    return copyType(new OrderBy(Arr.copyAll(cc, vm, refs), Arr.copyAll(cc, vm, keys), info));
+    final OrderBy ob = new OrderBy(Arr.copyAll(cc, vm, refs), Arr.copyAll(cc, vm, keys), info);
+    ob.limit = limit;
+    return copyType(ob);
   }
 
   @Override
@@ -241,16 +432,240 @@ public final class OrderBy extends Clause {
     if(this == obj) return true;
     if(!(obj instanceof OrderBy)) return false;
     final OrderBy o = (OrderBy) obj;
-    return Array.equals(refs, o.refs) && Array.equals(keys, o.keys);
+    return Array.equals(refs, o.refs) && Array.equals(keys, o.keys) && limit == o.limit;
   }
 
   @Override
   public void toXml(final QueryPlan plan) {
-    plan.add(plan.create(this), keys);
+    plan.add(plan.create(this, LIMIT, limit < Long.MAX_VALUE ? limit : null), keys);
   }
 
   @Override
   public void toString(final QueryString qs) {
     qs.token(ORDER).token(BY).tokens(keys, SEP);
   }
+
+  /** Tuple with sort keys and values. */
+  private static final class Tuple {
+    /** Sort keys. */
+    private final Item[] keys;
+    /** Original position. */
+    private final long pos;
+    /** Values of the sorted variables. */
+    private Value[] values;
+
+    /**
+     * Constructor.
+     * @param keys sort keys
+     * @param pos original position
+     */
+    private Tuple(final Item[] keys, final long pos) {
+      this.keys = keys;
+      this.pos = pos;
+    }
+  }
+
+  /**
+   * Stable merge sort for tuple positions, which can be run in parallel. Unlike
+   * {@link Arrays#parallelSort(Object[], Comparator)}, it propagates exceptions raised by the
+   * comparator.
+   */
+  private static final class Sorter extends RecursiveAction {
+    /** Maximum number of entries to be sorted by insertion sort. */
+    private static final int INSERTION = 32;
+
+    /** Entries to be sorted. */
+    private final int[] array;
+    /** Buffer for merging. */
+    private final int[] buffer;
+    /** Start position (inclusive). */
+    private final int start;
+    /** End position (exclusive). */
+    private final int end;
+    /** Comparator. */
+    private final IntBinaryOperator cmp;
+
+    /**
+     * Constructor.
+     * @param array entries to be sorted
+     * @param buffer buffer for merging
+     * @param start start position (inclusive)
+     * @param end end position (exclusive)
+     * @param cmp comparator
+     */
+    private Sorter(final int[] array, final int[] buffer, final int start, final int end,
+        final IntBinaryOperator cmp) {
+      this.array = array;
+      this.buffer = buffer;
+      this.start = start;
+      this.end = end;
+      this.cmp = cmp;
+    }
+
+    @Override
+    protected void compute() {
+      if(end - start < PARALLEL) {
+        sort();
+      } else {
+        final int mid = start + end >>> 1;
+        invokeAll(new Sorter(array, buffer, start, mid, cmp),
+            new Sorter(array, buffer, mid, end, cmp));
+        merge(start, mid, end);
+      }
+    }
+
+    /**
+     * Sorts the entries sequentially.
+     */
+    void sort() {
+      sort(start, end);
+    }
+
+    /**
+     * Sorts the specified range.
+     * @param s start position (inclusive)
+     * @param e end position (exclusive)
+     */
+    private void sort(final int s, final int e) {
+      if(e - s <= INSERTION) {
+        for(int i = s + 1; i < e; i++) {
+          final int v = array[i];
+          int j = i;
+          for(; j > s && cmp.applyAsInt(array[j - 1], v) > 0; j--) array[j] = array[j - 1];
+          array[j] = v;
+        }
+      } else {
+        final int mid = s + e >>> 1;
+        sort(s, mid);
+        sort(mid, e);
+        merge(s, mid, e);
+      }
+    }
+
+    /**
+     * Merges two sorted ranges. Entries of the first range are preferred if they are equal.
+     * @param s start of the first range (inclusive)
+     * @param mid start of the second range
+     * @param e end of the second range (exclusive)
+     */
+    private void merge(final int s, final int mid, final int e) {
+      // skip merge if ranges are already ordered
+      if(cmp.applyAsInt(array[mid - 1], array[mid]) <= 0) return;
+
+      System.arraycopy(array, s, buffer, s, mid - s);
+      int i = s, j = mid, k = s;
+      while(i < mid && j < e) {
+        array[k++] = cmp.applyAsInt(buffer[i], array[j]) <= 0 ? buffer[i++] : array[j++];
+      }
+      while(i < mid) array[k++] = buffer[i++];
+    }
+  }
+
+  /** Sort keys of all tuples for a single order key. */
+  private abstract static class Column {
+    /** Order key. */
+    final OrderKey key;
+
+    /**
+     * Constructor.
+     * @param key order key
+     */
+    Column(final OrderKey key) {
+      this.key = key;
+    }
+
+    /**
+     * Returns a column for the specified sort keys.
+     * @param ks sort keys of all tuples
+     * @param k index of the order key
+     * @param key order key
+     * @return column
+     * @throws QueryException query exception
+     */
+    static Column get(final Item[][] ks, final int k, final OrderKey key)
+        throws QueryException {
+      final int len = ks.length;
+      boolean itr = true, dbl = true, str = key.coll == null;
+      for(int i = 0; i < len && (itr || dbl || str); i++) {
+        final Item item = ks[i][k];
+        if(item == Empty.VALUE) continue;
+        itr &= item instanceof Int;
+        dbl &= item instanceof Dbl;
+        str &= item.type.isStringOrUntyped();
+      }
+      if(itr) {
+        final long[] values = new long[len];
+        final BitArray empty = new BitArray(len, false);
+        for(int i = 0; i < len; i++) {
+          final Item item = ks[i][k];
+          if(item == Empty.VALUE) empty.set(i);
+          else values[i] = item.itr(key.info());
+        }
+        return new Column(key) {
+          @Override
+          int compare(final int x, final int y) {
+            final boolean ex = empty.get(x), ey = empty.get(y);
+            return ex || ey ? empty(ex, ey) : Long.compare(values[x], values[y]);
+          }
+        };
+      }
+      if(dbl) {
+        final double[] values = new double[len];
+        for(int i = 0; i < len; i++) {
+          final Item item = ks[i][k];
+          values[i] = item == Empty.VALUE ? Double.NaN : item.dbl(key.info());
+        }
+        return new Column(key) {
+          @Override
+          int compare(final int x, final int y) {
+            final double vx = values[x], vy = values[y];
+            final boolean ex = Double.isNaN(vx), ey = Double.isNaN(vy);
+            return ex || ey ? empty(ex, ey) : vx < vy ? -1 : vx > vy ? 1 : 0;
+          }
+        };
+      }
+      if(str) {
+        final byte[][] values = new byte[len][];
+        for(int i = 0; i < len; i++) {
+          final Item item = ks[i][k];
+          if(item != Empty.VALUE) values[i] = item.string(key.info());
+        }
+        return new Column(key) {
+          @Override
+          int compare(final int x, final int y) {
+            final byte[] vx = values[x], vy = values[y];
+            return vx == null || vy == null ? empty(vx == null, vy == null) : Token.diff(vx, vy);
+          }
+        };
+      }
+      // other keys: compare items
+      final Item[] values = new Item[len];
+      for(int i = 0; i < len; i++) values[i] = ks[i][k];
+      return new Column(key) {
+        @Override
+        int compare(final int x, final int y) throws QueryException {
+          return OrderBy.compare(values[x], values[y], key);
+        }
+      };
+    }
+
+    /**
+     * Compares two sort keys in ascending order.
+     * @param x position of the first key
+     * @param y position of the second key
+     * @return result of comparison
+     * @throws QueryException query exception
+     */
+    abstract int compare(int x, int y) throws QueryException;
+
+    /**
+     * Compares two sort keys, at least one of which is empty.
+     * @param ex indicates if the first key is empty
+     * @param ey indicates if the second key is empty
+     * @return result of comparison
+     */
+    final int empty(final boolean ex, final boolean ey) {
+      return ex ? ey ? 0 : key.least ? -1 : 1 : key.least ? 1 : -1;
+    }
+  }
 }
@@ -180,6 +180,8 @@ public abstract class Path extends ParseExpr {
      * - //B [. = '...']  ->  IA('...', B)
      * - /A/B[. = '...']  ->  IA('...', B)/parent::A *[parent::document-node()] */
     if(expr == this) expr = children(cc, rt);
+    // rewrite last predicate to hash join
+    if(expr == this) expr = join(cc);
     // return optimized expression
     if(expr != this) return expr;
 
@@ -681,6 +683,27 @@ public abstract class Path extends ParseExpr {
     return this;
   }
 
+  /**
+   * Rewrites an equality comparison in the last predicate to a hash join.
+   * Example: {@code for $a in $A return $doc//b[@ref = $a/@id]}.
+   * @param cc compilation context
+   * @return original or new expression
+   * @throws QueryException query exception
+   */
+  private Expr join(final CompileContext cc) throws QueryException {
+    // skip optimization if root is undefined, or if the last step is no axis step
+    final Step step = axisStep(steps.length - 1);
+    if(root == null || step == null || step.exprs.length == 0 || step.mayBePositional())
+      return this;
+
+    final Expr pred = step.exprs[step.exprs.length - 1];
+    final Expr path = removePredicate(cc);
+    if(!JoinFilter.joinable(path, pred)) return this;
+
+    cc.info(QueryText.OPTJOIN_X, pred);
+    return copyType(new JoinFilter(info, path, pred));
+  }
+
   /**
    * Tries to rewrite the path to a simple map expression.
    * @param cc compilation context
@@ -7,6 +7,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.value.item.*;
@@ -84,6 +85,9 @@ public final class FnHead extends StandardFunc {
       }
     }
 
+    // head(for $i in E order by K return $i): only sort first tuple
+    if(input instanceof GFLWOR) ((GFLWOR) input).limit(1, cc);
+
     final Occ occ = st.oneOrMore() ? Occ.EXACTLY_ONE : Occ.ZERO_OR_ONE;
     exprType.assign(st.with(occ)).data(input);
     return embed(cc, false);
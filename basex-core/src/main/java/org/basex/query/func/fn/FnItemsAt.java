@@ -7,6 +7,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.iter.*;
@@ -109,6 +110,8 @@ public class FnItemsAt extends StandardFunc {
         occ = Occ.EXACTLY_ONE;
       }
       if(ps == 0) return cc.function(HEAD, info, input);
+      // items-at(for $i in E order by K return $i, 10): only sort first 10 tuples
+      if(input instanceof GFLWOR) ((GFLWOR) input).limit(ps + 1, cc);
 
       // items-at(tail(E), pos)  ->  items-at(E, pos + 1)
       if(TAIL.is(input))
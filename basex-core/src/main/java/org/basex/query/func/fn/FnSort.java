@@ -5,6 +5,7 @@ import static org.basex.query.func.Function.*;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.*;
@@ -28,16 +29,59 @@ import org.basex.util.*;
 public final class FnSort extends StandardFunc {
   @Override
   public Iter iter(final QueryContext qc) throws QueryException {
+    if(external(qc)) return external(qc, exprs[0].iter(qc));
     final Value input = exprs[0].value(qc), value = quickValue(input);
     return value != null ? value.iter() : iter(input, qc);
   }
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
+    if(external(qc)) return external(qc, exprs[0].iter(qc)).value(qc, this);
     final Value input = exprs[0].value(qc), value = quickValue(input);
     return value != null ? value : iter(input, qc).value(qc, this);
   }
 
+  /**
+   * Checks if the input will be sorted with an external sort.
+   * This is the case if a sort limit is specified and if the input is no value.
+   * @param qc query context
+   * @return result of check
+   */
+  private boolean external(final QueryContext qc) {
+    return qc.context.options.get(MainOptions.SORTLIMIT) > 0 && !(exprs[0] instanceof Value);
+  }
+
+  /**
+   * Sorts the input with an external sort and returns an iterator.
+   * @param qc query context
+   * @param input input iterator
+   * @return iterator with ordered items
+   * @throws QueryException query exception
+   */
+  private Iter external(final QueryContext qc, final Iter input) throws QueryException {
+    // input has already been materialized
+    if(input.valueIter()) {
+      final Value in = input.value(qc, null), value = quickValue(in);
+      return value != null ? value.iter() : iter(in, qc);
+    }
+
+    final Collation coll = toCollation(1, true, qc);
+    final FItem key = exprs.length > 2 ? toFunction(exprs[2], 1, qc) : null;
+    final ExternalSort sorter = new ExternalSort((v1, v2) -> compare(v1[0], v2[0], coll, info),
+        qc, info);
+    for(Item item; (item = qc.next(input)) != null;) {
+      final Value value = (key == null ? item : key.invoke(qc, info, item)).atomValue(qc, info);
+      sorter.add(new Value[] { value }, new Value[] { item });
+    }
+    return new Iter() {
+      @Override
+      public Item next() throws QueryException {
+        final Value[] values = sorter.next();
+        return values != null ? (Item) values[0] : null;
+      }
+    };
+  }
+
   /**
    * Sort the input data and returns an iterator.
    * @param input items to be sorted
@@ -7,6 +7,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.iter.*;
@@ -209,6 +210,9 @@ public class FnSubsequence extends StandardFunc {
         return sr.start == 0 ? input : Empty.VALUE;
       }
 
+      // subsequence(for $i in E order by K return $i, 1, 10): only sort first 10 tuples
+      if(input instanceof GFLWOR && sr.end < Long.MAX_VALUE) ((GFLWOR) input).limit(sr.end, cc);
+
       if(sr.length == 1) {
         // subsequence(E, 1, 1)  ->  head(E)
         // subsequence(E, pos, 1)  ->  items-at(E, pos)
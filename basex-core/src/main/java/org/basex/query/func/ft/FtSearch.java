@@ -19,17 +19,19 @@ import org.basex.util.ft.*;
  */
 public final class FtSearch extends FtAccess {
   @Override
-  public NodeIter iter(final QueryContext qc) throws QueryException {
+  public Iter iter(final QueryContext qc) throws QueryException {
     final Data data = toData(qc);
     final Value query = exprs[1].value(qc);
-    final FtIndexOptions options = toOptions(2, new FtIndexOptions(), true, qc);
+    final FtSearchOptions options = toOptions(2, new FtSearchOptions(), true, qc);
 
     final IndexDb db = new IndexStaticDb(data, info);
     final FTMode mode = options.get(FtIndexOptions.MODE);
     final FTOpt opt = ftOpt(options, qc).assign(data.meta);
 
     final FTWords ftw = new FTWords(info, db, query, mode).ftOpt(opt).optimize(qc);
-    return new FTIndexAccess(info, ftExpr(ftw, options), db).iter(qc);
+    final FTIndexAccess access = new FTIndexAccess(info, ftExpr(ftw, options), db);
+    return options.contains(FtSearchOptions.LIMIT) ?
+      access.top(qc, options.get(FtSearchOptions.LIMIT)).iter() : access.iter(qc);
   }
 
   @Override
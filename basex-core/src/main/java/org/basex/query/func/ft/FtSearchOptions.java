@@ -0,0 +1,14 @@
+package org.basex.query.func.ft;
+
+import org.basex.util.options.*;
+
+/**
+ * Full-text search options.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class FtSearchOptions extends FtIndexOptions {
+  /** Option: maximum number of results with the highest scores. */
+  public static final NumberOption LIMIT = new NumberOption("limit");
+}
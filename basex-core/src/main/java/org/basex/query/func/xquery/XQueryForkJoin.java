@@ -5,7 +5,9 @@ import static org.basex.query.QueryError.*;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
+import org.basex.core.*;
 import org.basex.core.jobs.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
@@ -40,10 +42,14 @@ public final class XQueryForkJoin extends StandardFunc {
     // single function: invoke directly
     if(size == 1) return list.get(0).invoke(qc, info);
 
-    final ForkJoinPool pool = new ForkJoinPool(options.parallel());
     final TaskContext tc = new TaskContext(list, options, qc, info);
+    final boolean virtual = qc.context.soptions.get(StaticOptions.VIRTUALTHREADS) &&
+        Threads.virtual();
+    final int parallel = (int) Math.min(size, options.parallel());
+    final ExecutorService pool = virtual ? Threads.executor(parallel, true) :
+      qc.context.jobs.forkJoin();
     try {
-      return pool.invoke(new XQueryTask(tc));
+      return invoke(tc, pool, parallel);
     } catch(final Exception ex) {
       // pass on query and job exceptions
       final Throwable e = Util.rootException(ex);
@@ -51,10 +57,75 @@ public final class XQueryForkJoin extends StandardFunc {
       if(e instanceof JobException) throw (JobException) e;
       throw XQUERY_UNEXPECTED_X.get(info, e);
     } finally {
-      pool.shutdown();
+      // virtual threads: cancel remaining tasks if an error was raised
+      if(virtual) pool.shutdownNow();
     }
   }
 
+  /**
+   * Evaluates all functions in parallel. The number of functions that are evaluated at the
+   * same time is limited by the {@code parallel} option: a task is created for each unit of
+   * parallelism, and each task evaluates the next function that has not been evaluated yet.
+   * If virtual threads are used, blocking functions will not occupy platform threads.
+   * Otherwise, the tasks are evaluated by the fork/join pool of the database context.
+   * If a function fails, the evaluation of the remaining functions is stopped.
+   * The function returns after all tasks have been completed.
+   * @param tc task context
+   * @param executor executor
+   * @param parallel maximum number of parallel tasks
+   * @return result
+   * @throws Exception exception
+   */
+  private static Value invoke(final TaskContext tc, final ExecutorService executor,
+      final int parallel) throws Exception {
+    final int size = tc.funcs.size();
+    final Value[] values = new Value[size];
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    final Set<QueryContext> active = ConcurrentHashMap.newKeySet();
+    final Callable<Void> task = () -> {
+      for(int f; error.get() == null && (f = next.getAndIncrement()) < size;) {
+        try(QueryContext qc = new QueryContext(tc.qc)) {
+          active.add(qc);
+          try {
+            if(error.get() != null) qc.stop();
+            values[f] = tc.funcs.get(f).invoke(qc, tc.info);
+          } finally {
+            active.remove(qc);
+          }
+        } catch(final Throwable ex) {
+          // skip remaining functions, stop functions that are currently evaluated
+          if((tc.errors || !(ex instanceof QueryException)) && error.compareAndSet(null, ex)) {
+            for(final QueryContext qc : active) qc.stop();
+          }
+        }
+      }
+      return null;
+    };
+
+    // errors are caught by the tasks: wait until all tasks have been completed
+    if(executor instanceof ForkJoinPool) {
+      // tasks are joined without blocking worker threads
+      final ArrayList<ForkJoinTask<Void>> tasks = new ArrayList<>(parallel);
+      for(int p = 0; p < parallel; p++) tasks.add(ForkJoinTask.adapt(task));
+      ((ForkJoinPool) executor).invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    } else {
+      executor.invokeAll(Collections.nCopies(parallel, task));
+    }
+    final Throwable ex = error.get();
+    if(ex instanceof Error) throw (Error) ex;
+    if(ex != null) throw (Exception) ex;
+
+    // join the results in the correct order
+    final ValueBuilder vb = new ValueBuilder(tc.qc);
+    if(tc.results) {
+      for(final Value value : values) {
+        if(value != null) vb.add(value);
+      }
+    }
+    return vb.value();
+  }
+
   @Override
   protected Expr opt(final CompileContext cc) throws QueryException {
     final Expr functions = exprs[0], options = exprs.length > 1 ? exprs[1] : null;
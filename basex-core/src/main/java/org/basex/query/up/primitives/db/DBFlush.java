@@ -14,8 +14,8 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public final class DBFlush extends DBUpdate {
-  /** Autoflush option. */
-  private final boolean autoflush;
+  /** Indicates if the database will be flushed (updates are not flushed automatically). */
+  private final boolean flush;
 
   /**
    * Constructor.
@@ -25,7 +25,8 @@ public final class DBFlush extends DBUpdate {
    */
   public DBFlush(final Data data, final QueryContext qc, final InputInfo info) {
     super(UpdateType.DBFLUSH, data, info);
-    autoflush = qc.context.options.get(MainOptions.AUTOFLUSH);
+    final MainOptions options = qc.context.options;
+    flush = !options.get(MainOptions.AUTOFLUSH) || options.get(MainOptions.JOURNAL);
   }
 
   @Override
@@ -34,7 +35,7 @@ public final class DBFlush extends DBUpdate {
 
   @Override
   public void apply() {
-    if(!autoflush) data.flush(true);
+    if(flush) data.flush(true);
   }
 
   @Override
@@ -46,7 +46,9 @@ public final class DBOptimize extends DBUpdate {
 
     final ArrayList<Option<?>> supported = new ArrayList<>();
     for(final Option<?> option : MainOptions.INDEXING) {
-      if(all || option != MainOptions.UPDINDEX) supported.add(option);
+      if(all || option != MainOptions.UPDINDEX && option != MainOptions.COMPRESSTEXTS) {
+        supported.add(option);
+      }
     }
 
     // create options, based on global defaults
@@ -62,6 +64,8 @@ public final class DBOptimize extends DBUpdate {
     dbopts.assignIfAbsent(MainOptions.FTINCLUDE, meta.ftinclude);
     dbopts.assignIfAbsent(MainOptions.UPDINDEX, meta.updindex);
     dbopts.assignIfAbsent(MainOptions.AUTOOPTIMIZE, meta.autooptimize);
+    dbopts.assignIfAbsent(MainOptions.MAPTABLE, meta.maptable);
+    dbopts.assignIfAbsent(MainOptions.COMPRESSTEXTS, meta.compresstexts);
     dbopts.assignIfAbsent(MainOptions.SPLITSIZE, meta.splitsize);
     dbopts.assignIfAbsent(MainOptions.MAXCATS, meta.maxcats);
     dbopts.assignIfAbsent(MainOptions.MAXLEN, meta.maxlen);
@@ -103,6 +107,8 @@ public final class DBOptimize extends DBUpdate {
     meta.maxcats = options.get(MainOptions.MAXCATS);
     meta.updindex = options.get(MainOptions.UPDINDEX);
     meta.autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    meta.maptable = options.get(MainOptions.MAPTABLE);
+    meta.compresstexts = options.get(MainOptions.COMPRESSTEXTS);
     meta.splitsize = options.get(MainOptions.SPLITSIZE);
     meta.textinclude = textinclude;
     meta.attrinclude = attrinclude;
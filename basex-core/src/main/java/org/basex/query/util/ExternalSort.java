@@ -0,0 +1,381 @@
+package org.basex.query.util;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.util.*;
+
+/**
+ * Sorts records, which consist of sort keys and values. Records with equal keys are returned in
+ * the order in which they were added.
+ *
+ * If the number of cached records exceeds the {@link MainOptions#SORTLIMIT}, the records are
+ * sorted and written to a temporary file in the database directory. The resulting runs are
+ * merged when the records are requested. If there are more than {@link #FANIN} runs, they are
+ * merged in several passes. Only records that consist of atomic items and database nodes will be
+ * written to disk; all other records are kept in main memory.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class ExternalSort {
+  /** Maximum number of runs that are merged at once. */
+  private static final int FANIN = 64;
+
+  /** Comparator for sort keys. */
+  private final QueryBiFunction<Value[], Value[], Integer> comparator;
+  /** Query context. */
+  private final QueryContext qc;
+  /** Input info (can be {@code null}). */
+  private final InputInfo info;
+  /** Maximum number of records to be sorted in main memory (0: no limit). */
+  private final long limit;
+
+  /** Records in main memory. */
+  private ArrayList<Record> records = new ArrayList<>();
+  /** Number of cached records that cannot be written to disk. */
+  private int kept;
+  /** Sorted runs on disk. */
+  private final ArrayList<IOFile> runs = new ArrayList<>();
+  /** Temporary storage for the runs. */
+  private final TempStore store;
+  /** Number of added records. */
+  private long count;
+
+  /** Sorted records in main memory (assigned after sorting). */
+  private Iterator<Record> sorted;
+  /** Runs to be merged (assigned after sorting, if runs exist). */
+  private PriorityQueue<Run> merge;
+
+  /**
+   * Constructor.
+   * @param comparator comparator for sort keys
+   * @param qc query context
+   * @param info input info (can be {@code null})
+   */
+  public ExternalSort(final QueryBiFunction<Value[], Value[], Integer> comparator,
+      final QueryContext qc, final InputInfo info) {
+    this.comparator = comparator;
+    this.qc = qc;
+    this.info = info;
+    limit = qc.context.options.get(MainOptions.SORTLIMIT);
+    store = new TempStore("sort-", qc);
+  }
+
+  /**
+   * Adds a record.
+   * @param keys sort keys
+   * @param values values
+   * @throws QueryException query exception
+   */
+  public void add(final Value[] keys, final Value[] values) throws QueryException {
+    final Record record = new Record(keys, values, count++);
+    if(limit > 0 && !record.spillable()) kept++;
+    records.add(record);
+    if(limit > 0 && records.size() - kept >= limit) spill();
+  }
+
+  /**
+   * Returns the values of the next record in sort order.
+   * Records are sorted when this function is called for the first time.
+   * @return values or {@code null} if all records have been returned
+   * @throws QueryException query exception
+   */
+  public Value[] next() throws QueryException {
+    if(sorted == null) finish();
+
+    // no runs: return records from main memory
+    if(merge == null) return sorted.hasNext() ? sorted.next().values : null;
+
+    // merge runs
+    try {
+      final Run run = merge.poll();
+      if(run == null) return null;
+      final Record record = run.record;
+      if(run.next()) merge.add(run);
+      return record.values;
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Sorts the records in main memory and prepares the merge of all runs.
+   * @throws QueryException query exception
+   */
+  private void finish() throws QueryException {
+    sort(records);
+    sorted = records.iterator();
+    records = null;
+    if(runs.isEmpty()) return;
+
+    // limit the number of simultaneously opened files
+    while(runs.size() > FANIN) {
+      final List<IOFile> files = runs.subList(0, FANIN);
+      final IOFile file = merge(files);
+      files.clear();
+      runs.add(file);
+    }
+    final ArrayList<Run> list = open(runs);
+    list.add(new Run(sorted));
+    merge = queue(list);
+  }
+
+  /**
+   * Merges the specified runs and writes the records to a new run.
+   * @param files files of the runs
+   * @return file of the new run
+   * @throws QueryException query exception
+   */
+  private IOFile merge(final List<IOFile> files) throws QueryException {
+    final ArrayList<Run> list = open(files);
+    long size = 0;
+    for(final Run run : list) size += run.remaining;
+    final PriorityQueue<Run> queue = queue(list);
+    try {
+      final IOFile file = store.create();
+      try(DataOutput out = new DataOutput(file)) {
+        out.writeLong(size);
+        for(Run run; (run = queue.poll()) != null;) {
+          write(out, run.record);
+          if(run.next()) queue.add(run);
+        }
+      }
+      return file;
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    } finally {
+      close(list);
+    }
+  }
+
+  /**
+   * Opens the specified runs.
+   * @param files files of the runs
+   * @return runs
+   * @throws QueryException query exception
+   */
+  private ArrayList<Run> open(final List<IOFile> files) throws QueryException {
+    final ArrayList<Run> list = new ArrayList<>(files.size() + 1);
+    try {
+      for(final IOFile file : files) list.add(new Run(file));
+    } catch(final IOException ex) {
+      close(list);
+      throw IOERR_X.get(info, ex);
+    }
+    return list;
+  }
+
+  /**
+   * Assigns the first record of each run and returns a queue with all non-empty runs.
+   * The runs are closed if an error occurs.
+   * @param list runs
+   * @return queue
+   * @throws QueryException query exception
+   */
+  private PriorityQueue<Run> queue(final ArrayList<Run> list) throws QueryException {
+    final PriorityQueue<Run> queue = new PriorityQueue<>(list.size(),
+        (r1, r2) -> compare(r1.record, r2.record));
+    try {
+      for(final Run run : list) {
+        if(run.next()) queue.add(run);
+      }
+    } catch(final QueryException ex) {
+      close(list);
+      throw ex;
+    } catch(final QueryRTException ex) {
+      close(list);
+      throw ex.getCause();
+    }
+    return queue;
+  }
+
+  /**
+   * Closes the inputs of the specified runs.
+   * @param list runs
+   */
+  private void close(final ArrayList<Run> list) {
+    for(final Run run : list) run.close();
+  }
+
+  /**
+   * Sorts all records that can be written to disk, and writes them to a new run.
+   * @throws QueryException query exception
+   */
+  private void spill() throws QueryException {
+    final ArrayList<Record> spill = new ArrayList<>(records.size() - kept);
+    final ArrayList<Record> keep = new ArrayList<>(kept);
+    for(final Record record : records) (record.spillable() ? spill : keep).add(record);
+    sort(spill);
+
+    try {
+      final IOFile file = store.create();
+      runs.add(file);
+      try(DataOutput out = new DataOutput(file)) {
+        out.writeLong(spill.size());
+        for(final Record record : spill) write(out, record);
+      }
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+    records = keep;
+  }
+
+  /**
+   * Writes a record to disk.
+   * @param out data output
+   * @param record record
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  private void write(final DataOutput out, final Record record)
+      throws IOException, QueryException {
+    qc.checkStop();
+    out.writeLong(record.pos);
+    store.write(out, record.keys);
+    store.write(out, record.values);
+  }
+
+  /**
+   * Sorts the specified records.
+   * @param list records
+   * @throws QueryException query exception
+   */
+  private void sort(final ArrayList<Record> list) throws QueryException {
+    try {
+      list.sort(this::compare);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Compares two records.
+   * @param r1 first record
+   * @param r2 second record
+   * @return result of comparison
+   */
+  private int compare(final Record r1, final Record r2) {
+    qc.checkStop();
+    try {
+      final int c = comparator.apply(r1.keys, r2.keys);
+      return c != 0 ? c : Long.compare(r1.pos, r2.pos);
+    } catch(final QueryException ex) {
+      throw new QueryRTException(ex);
+    }
+  }
+
+  /** Record with sort keys and values. */
+  private static final class Record {
+    /** Sort keys. */
+    private final Value[] keys;
+    /** Values. */
+    private final Value[] values;
+    /** Original position. */
+    private final long pos;
+
+    /**
+     * Constructor.
+     * @param keys sort keys
+     * @param values values
+     * @param pos original position
+     */
+    private Record(final Value[] keys, final Value[] values, final long pos) {
+      this.keys = keys;
+      this.values = values;
+      this.pos = pos;
+    }
+
+    /**
+     * Checks if the record can be written to disk.
+     * @return result of check
+     */
+    private boolean spillable() {
+      return TempStore.spillable(keys) && TempStore.spillable(values);
+    }
+  }
+
+  /** Sorted run. */
+  private final class Run {
+    /** Data input ({@code null} for records in main memory). */
+    private final DataInput in;
+    /** Records in main memory ({@code null} for runs on disk). */
+    private final Iterator<Record> iter;
+    /** File ({@code null} for records in main memory). */
+    private final IOFile file;
+    /** Number of remaining records on disk. */
+    private long remaining;
+    /** Current record. */
+    private Record record;
+
+    /**
+     * Constructor for runs on disk.
+     * @param file file
+     * @throws IOException I/O exception
+     */
+    private Run(final IOFile file) throws IOException {
+      this.file = file;
+      in = store.input(file);
+      iter = null;
+      try {
+        remaining = in.readLong();
+      } catch(final IOException ex) {
+        close();
+        throw ex;
+      }
+    }
+
+    /**
+     * Constructor for records in main memory.
+     * @param iter iterator
+     */
+    private Run(final Iterator<Record> iter) {
+      this.iter = iter;
+      in = null;
+      file = null;
+    }
+
+    /**
+     * Assigns the next record.
+     * @return {@code true} if a record was assigned
+     * @throws QueryException query exception
+     */
+    private boolean next() throws QueryException {
+      if(iter != null) {
+        record = iter.hasNext() ? iter.next() : null;
+        return record != null;
+      }
+      try {
+        if(remaining-- > 0) {
+          final long pos = in.readLong();
+          record = new Record(store.read(in), store.read(in), pos);
+          return true;
+        }
+        // run is exhausted: delete file
+        close();
+        file.delete();
+        record = null;
+        return false;
+      } catch(final IOException ex) {
+        throw IOERR_X.get(info, ex);
+      }
+    }
+
+    /**
+     * Closes the input of a run on disk.
+     */
+    private void close() {
+      if(in != null) store.close(in);
+    }
+  }
+}
@@ -0,0 +1,308 @@
+package org.basex.query.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import org.basex.core.*;
+import org.basex.core.locks.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.scope.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+
+/**
+ * Evaluates independent operations on the items of a value in parallel.
+ *
+ * If {@link MainOptions#PARALLELEVAL} is enabled, and if the number of items reaches the
+ * {@link MainOptions#PARALLELSIZE}, the items are split into chunks, which are evaluated by the
+ * fork/join pool of the database context. Each chunk is evaluated with its own query context,
+ * which adopts the local variables and the focus of the calling context. The results of the
+ * chunks are joined in their original order. Expressions that construct nodes, are
+ * non-deterministic, perform updates or access resources will always be evaluated sequentially.
+ * Static variables are shared by all contexts; they are evaluated before the chunks are created.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class Parallel {
+  /** Number of chunks per thread (improves the balance if chunks take different time). */
+  private static final int CHUNKS = 4;
+
+  /** Private constructor. */
+  private Parallel() { }
+
+  /**
+   * Checks if the specified expressions may be evaluated in parallel.
+   * @param qc query context
+   * @param exprs expressions that will be evaluated for each item
+   * @return result of check
+   */
+  public static boolean enabled(final QueryContext qc, final Expr... exprs) {
+    if(!qc.context.options.get(MainOptions.PARALLELEVAL) || qc.scoring) return false;
+    for(final Expr expr : exprs) {
+      if(expr.has(Flag.CNS, Flag.NDT, Flag.UPD)) return false;
+    }
+
+    // reject expressions that access resources (query resources are not thread-safe)
+    final ArrayList<StaticVar> vars = new ArrayList<>();
+    final ASTVisitor visitor = new ASTVisitor() {
+      /** Visited scopes. */
+      private final IdentityHashMap<Scope, Object> scopes = new IdentityHashMap<>();
+
+      @Override
+      public boolean lock(final String lock) {
+        return Locking.CONTEXT.equals(lock);
+      }
+
+      @Override
+      public boolean lock(final Supplier<ArrayList<String>> list) {
+        return false;
+      }
+
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        if(scopes.put(var, var) == null) vars.add(var);
+        return true;
+      }
+
+      @Override
+      public boolean staticFuncCall(final StaticFuncCall call) {
+        return scope(call.func());
+      }
+
+      @Override
+      public boolean inlineFunc(final Scope scope) {
+        return scope(scope);
+      }
+
+      @Override
+      public boolean funcItem(final FuncItem func) {
+        return scope(func);
+      }
+
+      /**
+       * Visits a scope.
+       * @param scope scope
+       * @return if more expressions should be visited
+       */
+      private boolean scope(final Scope scope) {
+        return scopes.put(scope, scope) != null || scope.visit(this);
+      }
+    };
+    for(final Expr expr : exprs) {
+      if(!expr.accept(visitor)) return false;
+    }
+
+    // evaluate static variables in advance (their evaluation is not thread-safe)
+    try {
+      for(final StaticVar var : vars) var.value(qc);
+    } catch(final QueryException ex) {
+      // errors will be raised (if at all) by the sequential evaluation
+      Util.debug(ex);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Evaluates a function for all items of a value and returns the concatenated results.
+   * @param input input value
+   * @param expr calling expression (used for refining the type of the result)
+   * @param qc query context
+   * @param mapper function to be evaluated for each item
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  public static Value map(final Value input, final Expr expr, final QueryContext qc,
+      final Mapper mapper) throws QueryException {
+    final ValueBuilder vb = new ValueBuilder(qc);
+    eval(input, 0, qc, mapper, vb);
+    return vb.value(expr);
+  }
+
+  /**
+   * Returns an iterator, which evaluates a function for all items of the input.
+   * The input is consumed in blocks, which have the size of the {@link MainOptions#PARALLELSIZE}.
+   * A new block will only be evaluated if all results of the previous block have been returned.
+   * @param input input iterator
+   * @param qc query context
+   * @param mapper function to be evaluated for each item
+   * @return iterator
+   */
+  public static Iter iter(final Iter input, final QueryContext qc, final Mapper mapper) {
+    final long min = min(qc);
+    return new Iter() {
+      /** Results of the current block. */
+      private Iter results = Empty.ITER;
+      /** Index of the next input item. */
+      private long index;
+      /** Indicates if the input has been exhausted. */
+      private boolean exhausted;
+
+      @Override
+      public Item next() throws QueryException {
+        while(true) {
+          final Item item = qc.next(results);
+          if(item != null || exhausted) return item;
+
+          final ItemList items = new ItemList();
+          for(Item it; items.size() < min && (it = qc.next(input)) != null;) items.add(it);
+          exhausted = items.size() < min;
+
+          final ValueBuilder vb = new ValueBuilder(qc);
+          eval(items.value(), index, qc, mapper, vb);
+          index += items.size();
+          results = vb.value().iter();
+        }
+      }
+    };
+  }
+
+  /**
+   * Evaluates a function for all items of a value, either sequentially or in parallel.
+   * The evaluation is sequential if the value is too small, or if only one thread is available.
+   * @param input input value
+   * @param offset index of the first item
+   * @param qc query context
+   * @param mapper function to be evaluated for each item
+   * @param vb value builder for the results
+   * @throws QueryException query exception
+   */
+  private static void eval(final Value input, final long offset, final QueryContext qc,
+      final Mapper mapper, final ValueBuilder vb) throws QueryException {
+
+    final long size = input.size();
+    final ForkJoinPool pool = size < min(qc) ? null : qc.context.jobs.forkJoin();
+    final int threads = pool != null ? pool.getParallelism() : 1;
+    if(threads < 2) {
+      // sequential evaluation: preserve focus of the calling expression
+      final QueryFocus focus = qc.focus;
+      qc.focus = focus.copy();
+      try {
+        for(long i = 0; i < size; i++) {
+          qc.checkStop();
+          vb.add(mapper.apply(input.itemAt(i), offset + i, qc));
+        }
+      } finally {
+        qc.focus = focus;
+      }
+      return;
+    }
+
+    // create chunks with separate query contexts
+    final long chunk = Math.max(1, (size + threads * CHUNKS - 1) / (threads * CHUNKS));
+    final int cs = (int) ((size + chunk - 1) / chunk);
+    final QueryContext[] qcs = new QueryContext[cs];
+    final Value[] results = new Value[cs];
+    try {
+      for(int c = 0; c < cs; c++) qcs[c] = qc.fork();
+      pool.invoke(new Task(input, offset, mapper, qcs, results, chunk, 0, cs));
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    } finally {
+      for(int c = cs; --c >= 0;) {
+        if(qcs[c] != null) qcs[c].close();
+      }
+    }
+    for(final Value result : results) vb.add(result);
+  }
+
+  /**
+   * Returns the minimum number of items to be evaluated in parallel.
+   * @param qc query context
+   * @return number of items
+   */
+  private static long min(final QueryContext qc) {
+    return Math.max(2, qc.context.options.get(MainOptions.PARALLELSIZE));
+  }
+
+  /**
+   * Function that is evaluated for each item.
+   */
+  @FunctionalInterface
+  public interface Mapper {
+    /**
+     * Evaluates the function.
+     * @param item current item
+     * @param index index of the item (starting from {@code 0})
+     * @param qc query context of the evaluating thread
+     * @return result
+     * @throws QueryException query exception
+     */
+    Value apply(Item item, long index, QueryContext qc) throws QueryException;
+  }
+
+  /** Task for evaluating a range of chunks. */
+  private static final class Task extends RecursiveAction {
+    /** Input value. */
+    private final Value input;
+    /** Index of the first input item. */
+    private final long offset;
+    /** Function to be evaluated. */
+    private final Mapper mapper;
+    /** Query contexts of the chunks. */
+    private final QueryContext[] qcs;
+    /** Results of the chunks. */
+    private final Value[] results;
+    /** Number of items per chunk. */
+    private final long chunk;
+    /** First chunk. */
+    private final int from;
+    /** Last chunk (exclusive). */
+    private final int to;
+
+    /**
+     * Constructor.
+     * @param input input value
+     * @param offset index of the first input item
+     * @param mapper function to be evaluated
+     * @param qcs query contexts of the chunks
+     * @param results results of the chunks
+     * @param chunk number of items per chunk
+     * @param from first chunk
+     * @param to last chunk (exclusive)
+     */
+    private Task(final Value input, final long offset, final Mapper mapper,
+        final QueryContext[] qcs, final Value[] results, final long chunk, final int from,
+        final int to) {
+      this.input = input;
+      this.offset = offset;
+      this.mapper = mapper;
+      this.qcs = qcs;
+      this.results = results;
+      this.chunk = chunk;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if(to - from > 1) {
+        final int mid = from + to >>> 1;
+        invokeAll(new Task(input, offset, mapper, qcs, results, chunk, from, mid),
+            new Task(input, offset, mapper, qcs, results, chunk, mid, to));
+        return;
+      }
+      final QueryContext qc = qcs[from];
+      final long start = from * chunk, end = Math.min(start + chunk, input.size());
+      final ValueBuilder vb = new ValueBuilder(qc);
+      try {
+        for(long i = start; i < end; i++) {
+          qc.checkStop();
+          vb.add(mapper.apply(input.itemAt(i), offset + i, qc));
+        }
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+      results[from] = vb.value();
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package org.basex.query.util;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Writes values to temporary files and reads them back. Only atomic items and database nodes
+ * can be written; nodes are stored as references to their database and pre value.
+ * Temporary files are created in the database directory. Inputs that are still opened are closed
+ * and all files are deleted when the query is closed.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class TempStore {
+  /** Node flag (other items are prefixed with their type id, incremented by one). */
+  private static final int NODE = 0;
+
+  /** Query context. */
+  private final QueryContext qc;
+  /** Prefix of the temporary files. */
+  private final String prefix;
+  /** Databases referenced by the written nodes. */
+  private final ArrayList<Data> datas = new ArrayList<>();
+
+  /**
+   * Constructor.
+   * @param prefix prefix of the temporary files
+   * @param qc query context
+   */
+  public TempStore(final String prefix, final QueryContext qc) {
+    this.prefix = prefix;
+    this.qc = qc;
+  }
+
+  /**
+   * Checks if the specified values can be written to disk.
+   * @param values values
+   * @return result of check
+   */
+  public static boolean spillable(final Value... values) {
+    for(final Value value : values) {
+      for(final Item item : value) {
+        if(!(item instanceof DBNode || item.type instanceof AtomType)) return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates a new temporary file.
+   * @return file
+   * @throws IOException I/O exception
+   */
+  public IOFile create() throws IOException {
+    return qc.resources.index(TempFiles.class).create(prefix, qc);
+  }
+
+  /**
+   * Opens an input stream for the specified file.
+   * The stream will be closed when the query is closed.
+   * @param file file
+   * @return input stream
+   * @throws IOException I/O exception
+   */
+  public DataInput input(final IOFile file) throws IOException {
+    return qc.resources.index(TempFiles.class).open(file);
+  }
+
+  /**
+   * Closes an input stream that has been opened by {@link #input(IOFile)}.
+   * @param in input stream
+   */
+  public void close(final DataInput in) {
+    qc.resources.index(TempFiles.class).close(in);
+  }
+
+  /**
+   * Returns an output stream for the specified file.
+   * @param file file
+   * @param append append data to an existing file
+   * @return output stream
+   * @throws IOException I/O exception
+   */
+  public static DataOutput output(final IOFile file, final boolean append) throws IOException {
+    return append ? new DataOutput(new BufferOutput(new FileOutputStream(file.file(), true))) :
+      new DataOutput(file);
+  }
+
+  /**
+   * Writes values to disk.
+   * @param out data output
+   * @param values values
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  public void write(final DataOutput out, final Value[] values)
+      throws IOException, QueryException {
+    out.writeNum(values.length);
+    for(final Value value : values) {
+      out.writeLong(value.size());
+      for(final Item item : value) {
+        if(item instanceof DBNode) {
+          final DBNode node = (DBNode) item;
+          int d = datas.indexOf(node.data());
+          if(d == -1) {
+            d = datas.size();
+            datas.add(node.data());
+          }
+          out.writeNum(NODE);
+          out.writeNum(d);
+          out.writeNum(node.pre());
+        } else {
+          out.writeNum(item.type.id().asByte() + 1);
+          item.write(out);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads values from disk.
+   * @param in data input
+   * @return values
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  public Value[] read(final DataInput in) throws IOException, QueryException {
+    final int vl = in.readNum();
+    final Value[] values = new Value[vl];
+    for(int v = 0; v < vl; v++) {
+      final long size = in.readLong();
+      final ValueBuilder vb = new ValueBuilder(qc);
+      for(long s = 0; s < size; s++) {
+        final int id = in.readNum();
+        vb.add(id == NODE ? new DBNode(datas.get(in.readNum()), in.readNum()) :
+          Type.ID.getType(id - 1).read(in, qc));
+      }
+      values[v] = vb.value();
+    }
+    return values;
+  }
+
+  /** Temporary files, which are deleted when the query is closed. */
+  public static final class TempFiles implements QueryResource {
+    /** Files. */
+    private final ArrayList<IOFile> files = new ArrayList<>();
+    /** Opened inputs. */
+    private final ArrayList<DataInput> inputs = new ArrayList<>();
+
+    /**
+     * Creates a new temporary file.
+     * @param prefix prefix of the file name
+     * @param qc query context
+     * @return file
+     * @throws IOException I/O exception
+     */
+    synchronized IOFile create(final String prefix, final QueryContext qc) throws IOException {
+      final IOFile dir = qc.context.soptions.dbPath();
+      dir.md();
+      final IOFile file = new IOFile(Files.createTempFile(Paths.get(dir.path()),
+          prefix, IO.TMPSUFFIX).toFile());
+      files.add(file);
+      return file;
+    }
+
+    /**
+     * Opens an input stream for the specified file.
+     * @param file file
+     * @return input stream
+     * @throws IOException I/O exception
+     */
+    synchronized DataInput open(final IOFile file) throws IOException {
+      final DataInput in = new DataInput(file);
+      inputs.add(in);
+      return in;
+    }
+
+    /**
+     * Closes an input stream.
+     * @param in input stream
+     */
+    synchronized void close(final DataInput in) {
+      inputs.remove(in);
+      try {
+        in.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+
+    @Override
+    public synchronized void close() {
+      // close inputs first: opened files cannot be deleted on all platforms
+      while(!inputs.isEmpty()) close(inputs.get(inputs.size() - 1));
+      for(final IOFile file : files) {
+        if(file.exists() && !file.delete()) Util.debug("Could not delete %", file);
+      }
+      files.clear();
+    }
+  }
+}
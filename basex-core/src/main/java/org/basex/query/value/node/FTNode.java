@@ -15,8 +15,10 @@ import org.basex.util.ft.*;
 public final class FTNode extends DBNode {
   /** Length of the full-text token. */
   private final int tl;
-  /** Total number of indexed results. */
+  /** Total number of indexed results (number of nodes if BM25 is used). */
   private final int is;
+  /** Indicates if scores are computed with BM25. */
+  private final boolean bm25;
   /** Full-text matches. */
   private FTMatches matches;
   /** Score value. */
@@ -28,7 +30,7 @@ public final class FTNode extends DBNode {
    * @param score score value
    */
   public FTNode(final FTMatches matches, final double score) {
-    this(matches, null, 0, 0, 0);
+    this(matches, null, 0, 0, 0, false);
     this.score = score;
   }
 
@@ -38,15 +40,17 @@ public final class FTNode extends DBNode {
    * @param data data reference (can be {@code null})
    * @param pre pre value
    * @param tl token length
-   * @param is number of indexed results
+   * @param is number of indexed results (number of nodes if BM25 is used)
+   * @param bm25 compute scores with BM25
    */
   public FTNode(final FTMatches matches, final Data data, final int pre, final int tl,
-      final int is) {
+      final int is, final boolean bm25) {
 
     super(data, pre, null, NodeType.TEXT);
     this.matches = matches;
     this.tl = tl;
     this.is = is;
+    this.bm25 = bm25;
   }
 
   /**
@@ -69,11 +73,32 @@ public final class FTNode extends DBNode {
   public double score() {
     if(score == null) {
       if(matches == null) return 0;
-      score = Scoring.textNode(matches.size(), is, tl, data().textLen(pre(), true));
+      final int length = data().textLen(pre(), true);
+      score = bm25 ? bm25(length) : Scoring.textNode(matches.size(), is, tl, length);
     }
     return score;
   }
 
+  /**
+   * Returns an upper bound for the score value. The bound can be computed without accessing
+   * the text of the node.
+   * @return upper bound
+   */
+  public double bound() {
+    return score != null ? score : matches == null ? 0 : bm25 ? bm25(0) :
+      Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Computes a BM25 score.
+   * @param length text length
+   * @return score
+   */
+  private double bm25(final int length) {
+    final MetaData meta = data().meta;
+    return Scoring.bm25(matches.size(), is, length, meta.fttexts, meta.ftlength);
+  }
+
   /**
    * Sets a new score value.
    * @param s score value
@@ -90,6 +90,17 @@ public final class QueryStack {
     vars = nvr;
   }
 
+  /**
+   * Assigns the frames and variable bindings of the specified stack.
+   * @param qs query stack
+   */
+  public void assign(final QueryStack qs) {
+    stack = qs.stack.clone();
+    vars = qs.vars.clone();
+    start = qs.start;
+    end = qs.end;
+  }
+
   /**
    * Gets the value bound to the given variable in the current stack frame.
    * @param var variable
@@ -11,6 +11,7 @@ import org.basex.query.util.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
 
 /**
  * Static variable to which an expression can be assigned.
@@ -94,6 +95,32 @@ public final class StaticVar extends StaticDecl {
     return value;
   }
 
+  /**
+   * Creates a copy of this declaration for another query. The bound expression will be
+   * assigned via {@link #assign(StaticVar, CompileContext)}.
+   * @param qc query context
+   * @return copy
+   */
+  StaticVar copy(final QueryContext qc) {
+    final Var var = new Var(name, declType, qc, sc, info);
+    return new StaticVar(var, null, anns, "", external, new VarScope(sc));
+  }
+
+  /**
+   * Assigns a copy of the expression of another declaration.
+   * @param sv declaration
+   * @param cc compilation context
+   */
+  void assign(final StaticVar sv, final CompileContext cc) {
+    if(sv.expr == null) return;
+    cc.pushScope(vs);
+    try {
+      expr = sv.expr.copy(cc, new IntObjMap<>());
+    } finally {
+      cc.removeScope();
+    }
+  }
+
   /**
    * Ensures that the variable expression is not updating.
    * @throws QueryException query exception
@@ -77,7 +77,9 @@ final class StaticVarRef extends ParseExpr {
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
     final StaticVarRef ref = new StaticVarRef(info, name, sc);
-    ref.var = var;
+    // if a parsed query is copied, the variable of the new query context is assigned
+    final StaticVar sv = cc.qc.vars.get(name);
+    ref.var = sv != null ? sv : var;
     return copyType(ref);
   }
 
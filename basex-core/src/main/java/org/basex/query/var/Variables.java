@@ -40,6 +40,37 @@ public final class Variables extends ExprInfo implements Iterable<StaticVar> {
     return sv;
   }
 
+  /**
+   * Declares copies of the variables of a parsed query.
+   * @param source variables of the parsed query
+   * @param cc compilation context
+   * @return declared variables
+   * @throws QueryException query exception
+   */
+  public ArrayList<StaticVar> copy(final Variables source, final CompileContext cc)
+      throws QueryException {
+    // declare all variables first, as bound expressions may reference other variables
+    final ArrayList<StaticVar> copies = new ArrayList<>();
+    for(final StaticVar sv : source) {
+      final StaticVar copy = sv.copy(cc.qc);
+      varEntry(copy.name).setVar(copy);
+      copies.add(copy);
+    }
+    int c = 0;
+    for(final StaticVar sv : source) copies.get(c++).assign(sv, cc);
+    return copies;
+  }
+
+  /**
+   * Returns the static variable with the specified name.
+   * @param name variable name
+   * @return variable or {@code null}
+   */
+  StaticVar get(final QNm name) {
+    final VarEntry entry = vars.get(name);
+    return entry != null ? entry.var : null;
+  }
+
   /**
    * Ensures that none of the variable expressions is updating.
    * @throws QueryException query exception
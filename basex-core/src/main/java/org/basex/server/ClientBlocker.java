@@ -1,6 +1,5 @@
 package org.basex.server;
 
-import org.basex.util.*;
 import org.basex.util.hash.*;
 
 /**
@@ -14,14 +13,15 @@ public final class ClientBlocker {
   private final TokenIntMap blocked = new TokenIntMap();
 
   /**
-   * Registers the client and delays the process.
+   * Registers the client and returns the time by which the process is to be delayed.
    * @param client client address
+   * @return delay in milliseconds
    */
-  public synchronized void delay(final byte[] client) {
+  public synchronized long delay(final byte[] client) {
     // do not delay more than 10 seconds
-    int delay = Math.min(blocked.get(client) + 1, 20);
+    final int delay = Math.min(blocked.get(client) + 1, 20);
     blocked.put(client, delay);
-    while(--delay > 0) Performance.sleep(500);
+    return (delay - 1) * 500L;
   }
 
   /**
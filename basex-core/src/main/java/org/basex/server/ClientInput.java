@@ -0,0 +1,125 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Buffered input of a client session. Incoming bytes are read without blocking by the selector
+ * thread of the server until a complete request is available. All other bytes (e.g. the
+ * contents of resources to be stored, or acknowledgements of streamed results) are read in
+ * blocking mode by the worker thread that processes the request.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+final class ClientInput extends InputStream {
+  /** Buffer (requests exceeding its size are processed before they have been received). */
+  private final byte[] buffer = new byte[1 << 16];
+  /** Socket channel. */
+  private final SocketChannel channel;
+  /** Input stream for blocking reads ({@code null} if not requested yet). */
+  private InputStream input;
+  /** Current buffer position. */
+  private int pos;
+  /** Current buffer size. */
+  private int size;
+
+  /**
+   * Constructor.
+   * @param channel socket channel
+   */
+  ClientInput(final SocketChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Buffers incoming bytes without blocking.
+   * @return {@code false} if the end of the stream has been reached
+   * @throws IOException I/O exception
+   */
+  boolean fill() throws IOException {
+    if(size == buffer.length && pos > 0) {
+      size -= pos;
+      System.arraycopy(buffer, pos, buffer, 0, size);
+      pos = 0;
+    }
+    if(size == buffer.length) return true;
+    final int r = channel.read(ByteBuffer.wrap(buffer, size, buffer.length - size));
+    if(r > 0) size += r;
+    return r != -1;
+  }
+
+  /**
+   * Checks if the buffer is full.
+   * @return result of check
+   */
+  boolean full() {
+    return pos == 0 && size == buffer.length;
+  }
+
+  /**
+   * Returns the next buffered byte without consuming it.
+   * @return byte or {@code -1}
+   */
+  int peek() {
+    return pos < size ? buffer[pos] & 0xFF : -1;
+  }
+
+  /**
+   * Checks if the specified number of strings, each terminated by a {@code 0} byte,
+   * has been buffered.
+   * @param skip number of bytes to skip
+   * @param strings number of strings
+   * @return result of check
+   */
+  boolean contains(final int skip, final int strings) {
+    int s = strings;
+    for(int p = pos + skip; p < size; p++) {
+      if(buffer[p] == 0 && --s == 0) return true;
+    }
+    return false;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if(pos == size) {
+      if(input == null) input = channel.socket().getInputStream();
+      pos = 0;
+      size = 0;
+      int r;
+      while((r = input.read(buffer, 0, buffer.length)) == 0);
+      if(r < 0) return -1;
+      size = r;
+    }
+    return buffer[pos++] & 0xFF;
+  }
+
+  @Override
+  public int available() {
+    return size - pos;
+  }
+
+  /**
+   * Reads a string, suffixed by a {@code 0} byte.
+   * @return string
+   * @throws IOException I/O Exception
+   */
+  String readString() throws IOException {
+    return Token.string(readBytes());
+  }
+
+  /**
+   * Reads a byte array, suffixed by a {@code 0} byte.
+   * @return byte array
+   * @throws IOException I/O Exception
+   */
+  byte[] readBytes() throws IOException {
+    final ByteList bl = new ByteList();
+    for(int b; (b = read()) > 0;) bl.add(b);
+    return bl.finish();
+  }
+}
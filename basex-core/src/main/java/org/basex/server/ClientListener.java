@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.*;
@@ -21,15 +22,18 @@ import org.basex.util.list.*;
 /**
  * Server-side client session in the client-server architecture.
  *
+ * Sessions are not bound to threads: Incoming bytes are buffered by the selector thread of the
+ * server (see {@link #receive()}). If a complete request is available, {@link #run()} is called
+ * by a worker thread, which processes all pending requests and registers the session for further
+ * input.
+ *
  * @author BaseX Team 2005-23, BSD License
  * @author Andreas Weiler
  * @author Christian Gruen
  */
-public final class ClientListener extends Thread implements ClientInfo {
-  /** Timer for authentication time out. */
-  public final Timer timeout = new Timer();
+public final class ClientListener implements Runnable, ClientInfo {
   /** Timestamp of last interaction. */
-  public long last;
+  public volatile long last;
 
   /** Active queries. */
   private final HashMap<String, ServerQuery> queries = new HashMap<>();
@@ -39,149 +43,231 @@ public final class ClientListener extends Thread implements ClientInfo {
   private final Context context;
   /** Server reference. */
   private final BaseXServer server;
+  /** Socket channel. */
+  private final SocketChannel channel;
   /** Socket reference. */
   private final Socket socket;
-
   /** Input stream. */
-  private BufferInput in;
+  private final ClientInput in;
+
+  /** Timestamp sent to the client for authentication ({@code null} if not sent yet). */
+  private String nonce;
   /** Output stream. */
   private PrintOutput out;
   /** Current command. */
-  private Command command;
+  private volatile Command command;
   /** Query id counter. */
   private int id;
-  /** Indicates if the server thread is running. */
+  /** Indicates if the client has been authenticated. */
   private volatile boolean authenticated;
-  /** Indicates if the server has been closed. */
-  private boolean closed;
+  /** Indicates if the login has been denied. */
+  private volatile boolean denied;
+  /** Indicates if the session has been closed. */
+  private volatile boolean closed;
 
   /**
    * Constructor.
-   * @param socket socket
+   * @param channel socket channel
    * @param context database context
    * @param server server reference
    */
-  public ClientListener(final Socket socket, final Context context, final BaseXServer server) {
+  public ClientListener(final SocketChannel channel, final Context context,
+      final BaseXServer server) {
     this.context = new Context(context, this);
-    this.socket = socket;
+    this.channel = channel;
     this.server = server;
+    socket = channel.socket();
+    in = new ClientInput(channel);
     last = System.currentTimeMillis();
-    setDaemon(true);
     // register the info view for trace output
     context.setExternal((QueryTracer) info -> true);
   }
 
   @Override
   public void run() {
-    if(!authenticate()) return;
+    if(closed) return;
 
+    boolean open = false;
     try {
-      while(authenticated) {
-        command = null;
-        String cmd;
-        final ServerCmd sc;
-        try {
-          final int b = in.read();
-          if(b == -1) {
-            // end of stream: exit session
-            close();
-            break;
-          }
-
-          last = System.currentTimeMillis();
-          perf.ns();
-          sc = ServerCmd.get(b);
-          cmd = null;
-          if(sc == ServerCmd.CREATE) {
-            create();
-          } else if(sc == ServerCmd.ADD) {
-            add();
-          } else if(sc == ServerCmd.PUT) {
-            put();
-          } else if(sc == ServerCmd.PUTBINARY) {
-            putBinary();
-          } else if(sc != ServerCmd.COMMAND) {
-            query(sc);
-          } else {
-            // database command
-            cmd = new ByteList().add(b).add(in.readBytes()).toString();
-          }
-        } catch(final IOException ex) {
-          // this exception may be thrown if a session is stopped
-          Util.debug(ex);
-          close();
-          break;
-        }
-        if(sc != ServerCmd.COMMAND) continue;
-
-        // parse input and create command instance
-        try {
-          command = CommandParser.get(cmd, context).parseSingle();
-          log(LogType.REQUEST, command.toString(true));
-        } catch(final QueryException ex) {
-          // log invalid command
-          final String msg = ex.getMessage();
-          log(LogType.REQUEST, cmd);
-          log(LogType.ERROR, msg);
-          // send 0 to mark end of potential result
-          out.write(0);
-          // send {INFO}0
-          out.print(msg);
-          out.write(0);
-          // send 1 to mark error
-          send(false);
-          continue;
-        }
-
-        // execute command and send {RESULT}
-        boolean ok = true;
-        String info;
-        try {
-          // run command
-          command.execute(context, new ServerOutput(out));
-          info = command.info();
-        } catch(final BaseXException ex) {
-          Util.debug(ex);
-          ok = false;
-          info = ex.getMessage();
-        }
-
-        // send 0 to mark end of result
-        out.write(0);
-        // send info
-        info(info, ok);
-
-        // stop console
-        if(command instanceof Exit) {
-          command = null;
-          close();
-        }
+      channel.configureBlocking(true);
+      if(nonce == null) {
+        open = greet();
+      } else if(denied) {
+        // send error flag after the login delay
+        send(false);
+      } else if(!authenticated) {
+        open = authenticate();
+      } else {
+        // process all requests that have already been received
+        do open = request(); while(open && complete());
+      }
+      // reset command before the next request can be dispatched to another thread
+      command = null;
+      if(open && !denied) {
+        channel.configureBlocking(false);
+        server.register(this);
       }
     } catch(final IOException ex) {
       log(LogType.ERROR, Util.message(ex));
       command = null;
-      close();
+      open = false;
     }
+    if(!open) close();
+  }
+
+  /**
+   * Buffers incoming bytes without blocking. Called by the selector thread of the server.
+   * @return {@code true} if the session can be processed by a worker thread
+   */
+  public boolean receive() {
+    try {
+      // wait for more input if the buffered request is incomplete
+      if(in.fill() && !in.full() && !complete()) return false;
+    } catch(final IOException ex) {
+      // connection was closed by the client: the exception will be raised again by the worker
+      Util.debug(ex);
+    }
+    return true;
+  }
+
+  /**
+   * Checks if a complete login or request has been buffered.
+   * The contents of resources to be stored are not buffered.
+   * @return result of check
+   */
+  private boolean complete() {
+    // receive {USER}0{DIGEST-HASH}0
+    if(!authenticated) return in.contains(0, 2);
+
+    final int b = in.peek();
+    if(b == -1) return false;
+    switch(ServerCmd.get(b)) {
+      case COMMAND: return in.contains(0, 1);
+      case BIND: return in.contains(1, 4);
+      case CONTEXT: return in.contains(1, 3);
+      case STREAM: return in.contains(1, 2);
+      // other requests: only buffer query id or name of resource
+      default: return in.contains(1, 1);
+    }
+  }
+
+  /**
+   * Processes a single request.
+   * @return {@code true} if the session is still open
+   * @throws IOException I/O exception
+   */
+  private boolean request() throws IOException {
     command = null;
+    String cmd;
+    final ServerCmd sc;
+    try {
+      final int b = in.read();
+      // end of stream: exit session
+      if(b == -1) return false;
+
+      last = System.currentTimeMillis();
+      perf.ns();
+      sc = ServerCmd.get(b);
+      cmd = null;
+      if(sc == ServerCmd.CREATE) {
+        create();
+      } else if(sc == ServerCmd.ADD) {
+        add();
+      } else if(sc == ServerCmd.PUT) {
+        put();
+      } else if(sc == ServerCmd.PUTBINARY) {
+        putBinary();
+      } else if(sc != ServerCmd.COMMAND) {
+        query(sc);
+      } else {
+        // database command
+        cmd = new ByteList().add(b).add(in.readBytes()).toString();
+      }
+    } catch(final IOException ex) {
+      // this exception may be thrown if a session is stopped
+      Util.debug(ex);
+      return false;
+    }
+    if(sc != ServerCmd.COMMAND) return true;
+
+    // parse input and create command instance
+    try {
+      command = CommandParser.get(cmd, context).parseSingle();
+      log(LogType.REQUEST, command.toString(true));
+    } catch(final QueryException ex) {
+      // log invalid command
+      final String msg = ex.getMessage();
+      log(LogType.REQUEST, cmd);
+      log(LogType.ERROR, msg);
+      // send 0 to mark end of potential result
+      out.write(0);
+      // send {INFO}0
+      out.print(msg);
+      out.write(0);
+      // send 1 to mark error
+      send(false);
+      return true;
+    }
+
+    // execute command and send {RESULT}
+    boolean ok = true;
+    String info;
+    try {
+      // run command
+      command.execute(context, new ServerOutput(out));
+      info = command.info();
+    } catch(final BaseXException ex) {
+      Util.debug(ex);
+      ok = false;
+      info = ex.getMessage();
+    }
+
+    // send 0 to mark end of result
+    out.write(0);
+    // send info
+    info(info, ok);
+
+    // stop console
+    return !(command instanceof Exit);
   }
 
   /**
-   * Initializes a session via digest authentication.
+   * Sends a timestamp to the client, which is needed for authentication.
    * @return success flag
    */
-  private boolean authenticate() {
-    boolean ok = false;
+  private boolean greet() {
     try {
-      final String nonce = Long.toString(System.nanoTime());
-      final byte[] address = socket.getInetAddress().getAddress();
-
-      // send {REALM:TIMESTAMP}0
+      nonce = Long.toString(System.nanoTime());
       out = PrintOutput.get(socket.getOutputStream());
+      // drop sessions that stop sending bytes in the middle of a request
+      socket.setSoTimeout(context.soptions.get(StaticOptions.KEEPALIVE) * 1000);
+      // send {REALM:TIMESTAMP}0
       out.print(Prop.NAME + ':' + nonce);
       send(true);
+      return true;
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      server.remove(this);
+      return false;
+    }
+  }
+
+  /**
+   * Initializes a session via digest authentication.
+   * @return {@code false} if the session is to be closed
+   */
+  private boolean authenticate() {
+    // login data is incomplete: connection has been closed, or too many bytes were sent
+    if(!complete()) {
+      server.remove(this);
+      return false;
+    }
+
+    boolean ok = false;
+    try {
+      final byte[] address = socket.getInetAddress().getAddress();
 
       // evaluate login data
-      in = BufferInput.get(socket.getInputStream());
       // receive {USER}0{DIGEST-HASH}0
       final String name = in.readString(), hash = in.readString();
       final User user = context.users.get(name);
@@ -197,9 +283,9 @@ public final class ClientListener extends Thread implements ClientInfo {
         context.sessions.add(this);
       } else {
         if(!name.isEmpty()) log(LogType.ERROR, Util.info(ACCESS_DENIED_X, name));
-        // delay users with wrong passwords
-        context.blocker.delay(address);
-        send(false);
+        // delay users with wrong passwords (error flag will be sent by the next run)
+        denied = true;
+        server.delay(this, context.blocker.delay(address));
       }
     } catch(final IOException ex) {
       if(ok) {
@@ -211,7 +297,7 @@ public final class ClientListener extends Thread implements ClientInfo {
 
     server.remove(this);
     authenticated = ok;
-    return ok;
+    return ok || denied;
   }
 
   /**
@@ -238,6 +324,14 @@ public final class ClientListener extends Thread implements ClientInfo {
     }
   }
 
+  /**
+   * Returns the socket channel of this session.
+   * @return socket channel
+   */
+  public SocketChannel channel() {
+    return channel;
+  }
+
   /**
    * Returns the context of this session.
    * @return user reference
@@ -357,6 +451,8 @@ public final class ClientListener extends Thread implements ClientInfo {
   private void query(final ServerCmd sc) throws IOException {
     // iterator argument (query or identifier)
     String arg = in.readString();
+    // number of items per chunk of streamed results
+    final int chunk = sc == ServerCmd.STREAM ? Math.max(1, Strings.toInt(in.readString())) : 0;
 
     String error = null;
     try {
@@ -397,6 +493,8 @@ public final class ClientListener extends Thread implements ClientInfo {
           qp.execute(out, false, true, false);
         } else if(sc == ServerCmd.FULL) {
           qp.execute(out, true, true, true);
+        } else if(sc == ServerCmd.STREAM) {
+          qp.execute(out, in, chunk);
         } else if(sc == ServerCmd.INFO) {
           out.print(qp.info());
         } else if(sc == ServerCmd.OPTIONS) {
@@ -410,12 +508,16 @@ public final class ClientListener extends Thread implements ClientInfo {
         }
         // send 0 as end marker
         out.write(0);
+        if(sc == ServerCmd.STREAM) confirm();
       }
       // send 0 as success flag
       out.write(0);
       // write log file
       log(LogType.OK, sc.toString() + '[' + arg + "] " + info);
 
+    } catch(final SocketTimeoutException ex) {
+      // client stopped responding: close session
+      throw ex;
     } catch(final Throwable ex) {
       // log exception (static or runtime)
       error = ex instanceof RuntimeException ? Util.bug(ex) : Util.message(ex);
@@ -426,6 +528,7 @@ public final class ClientListener extends Thread implements ClientInfo {
     if(error != null) {
       // send 0 as end marker, 1 as error flag, and {MSG}0
       out.write(0);
+      if(sc == ServerCmd.STREAM) confirm();
       out.write(1);
       out.print(error);
       out.write(0);
@@ -433,6 +536,17 @@ public final class ClientListener extends Thread implements ClientInfo {
     out.flush();
   }
 
+  /**
+   * Waits until the client has confirmed the end marker of a streamed result.
+   * The status of the request must only be sent after the confirmation has been consumed:
+   * otherwise, a client that cancels the transfer may send a byte that is not read anymore.
+   * @throws IOException I/O exception
+   */
+  private void confirm() throws IOException {
+    out.flush();
+    in.read();
+  }
+
   /**
    * Sends a success flag to the client (0: true, 1: false).
    * @param ok success flag
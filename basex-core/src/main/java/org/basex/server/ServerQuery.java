@@ -22,6 +22,11 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public final class ServerQuery extends Job {
+  /** Marker for the end of a chunk of streamed results. */
+  public static final int CHUNK = 0xFF;
+  /** Maximum number of streamed chunks that have not been acknowledged by the client. */
+  private static final int WINDOW = 2;
+
   /** Query string. */
   private final String query;
   /** Database context. */
@@ -112,6 +117,44 @@ public final class ServerQuery extends Job {
    */
   public void execute(final OutputStream out, final boolean iterative, final boolean encode,
       final boolean full) throws IOException {
+    execute(out, iterative, encode, full, null);
+  }
+
+  /**
+   * Executes the query and streams the results in chunks. After each chunk, a {@link #CHUNK}
+   * marker is sent. The client acknowledges each marker with a single byte ({@code 1}: continue,
+   * {@code 0}: cancel). The server proceeds with the next chunk as long as no more than
+   * {@link #WINDOW} chunks are unacknowledged. This way, the results of subsequent chunks are
+   * transferred while the client is still processing the results of the current chunk.
+   * When this function returns, all markers have been acknowledged. The end marker, which is
+   * sent by the caller, must be confirmed by the client with another byte as well.
+   * @param out output stream
+   * @param in input stream for receiving acknowledgements
+   * @param chunk number of items per chunk
+   * @throws IOException I/O Exception
+   */
+  public void execute(final OutputStream out, final InputStream in, final int chunk)
+      throws IOException {
+    final Flow flow = new Flow(out, in, chunk);
+    try {
+      execute(out, true, true, false, flow);
+    } finally {
+      // consume pending acknowledgements
+      flow.finish();
+    }
+  }
+
+  /**
+   * Executes the query.
+   * @param out output stream
+   * @param iterative iterative evaluation
+   * @param encode encode results (client/server communication, iterative processing)
+   * @param full return full type information (only applicable to iterative evaluation)
+   * @param flow flow control for streamed results (can be {@code null})
+   * @throws IOException I/O Exception
+   */
+  private void execute(final OutputStream out, final boolean iterative, final boolean encode,
+      final boolean full, final Flow flow) throws IOException {
 
     try {
       // parses the query and registers the process
@@ -141,6 +184,7 @@ public final class ServerQuery extends Job {
             ser.serialize(item);
           }
           hits++;
+          if(flow != null && !flow.next()) break;
         }
       }
 
@@ -205,4 +249,70 @@ public final class ServerQuery extends Job {
     }
     return qp;
   }
+
+  /** Flow control for streamed results. */
+  private static final class Flow {
+    /** Output stream. */
+    private final OutputStream out;
+    /** Input stream for receiving acknowledgements. */
+    private final InputStream in;
+    /** Number of items per chunk. */
+    private final int chunk;
+    /** Number of items in the current chunk. */
+    private int items;
+    /** Number of sent chunks. */
+    private int sent;
+    /** Number of acknowledged chunks. */
+    private int acked;
+    /** Cancel flag. */
+    private boolean cancelled;
+
+    /**
+     * Constructor.
+     * @param out output stream
+     * @param in input stream
+     * @param chunk number of items per chunk
+     */
+    Flow(final OutputStream out, final InputStream in, final int chunk) {
+      this.out = out;
+      this.in = in;
+      this.chunk = chunk;
+    }
+
+    /**
+     * Registers a sent item. Finalizes a chunk and waits for acknowledgements if necessary.
+     * @return {@code false} if the client has cancelled the transfer
+     * @throws IOException I/O exception
+     */
+    boolean next() throws IOException {
+      if(++items < chunk) return true;
+      items = 0;
+      out.write(CHUNK);
+      out.flush();
+      sent++;
+      while(!cancelled && sent - acked >= WINDOW) ack();
+      return !cancelled;
+    }
+
+    /**
+     * Consumes all pending acknowledgements (the client acknowledges all markers, even if the
+     * transfer has been cancelled).
+     */
+    void finish() {
+      try {
+        while(acked < sent) ack();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+
+    /**
+     * Reads an acknowledgement.
+     * @throws IOException I/O exception
+     */
+    private void ack() throws IOException {
+      acked++;
+      if(in.read() != 1) cancelled = true;
+    }
+  }
 }
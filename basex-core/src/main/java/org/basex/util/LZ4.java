@@ -0,0 +1,159 @@
+package org.basex.util;
+
+/**
+ * This class compresses and decompresses blocks of bytes, using the LZ4 block format.
+ * A compressed block consists of sequences, each comprising a number of literals and a
+ * back reference to a previous match. Compression is fast, and decompression is even faster.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class LZ4 {
+  /** Minimum length of a match. */
+  private static final int MINMATCH = 4;
+  /** Number of bits of the hash table. */
+  private static final int HASHLOG = 12;
+  /** Number of trailing bytes that will always be stored as literals. */
+  private static final int LASTLITERALS = 5;
+  /** Minimum distance of the last match to the end of the input. */
+  private static final int MFLIMIT = 12;
+  /** Maximum distance of a back reference. */
+  private static final int MAXDISTANCE = 0xFFFF;
+
+  /** Private constructor. */
+  private LZ4() { }
+
+  /**
+   * Returns the maximum size of a compressed block.
+   * @param length length of the input
+   * @return maximum size
+   */
+  public static int maxLength(final int length) {
+    return length + length / 255 + 16;
+  }
+
+  /**
+   * Compresses the specified bytes.
+   * @param source input
+   * @param length number of bytes to compress
+   * @param target output buffer (size must be at least {@link #maxLength(int)})
+   * @return size of the compressed block
+   */
+  public static int compress(final byte[] source, final int length, final byte[] target) {
+    int s = 0, anchor = 0, t = 0;
+    if(length > MFLIMIT) {
+      // hash table: offsets of previous sequences, incremented by one
+      final int[] table = new int[1 << HASHLOG];
+      final int limit = length - MFLIMIT, mlimit = length - LASTLITERALS;
+      while(s < limit) {
+        final int seq = int4(source, s), h = seq * -1640531535 >>> 32 - HASHLOG;
+        final int ref = table[h] - 1;
+        table[h] = s + 1;
+        if(ref < 0 || s - ref > MAXDISTANCE || int4(source, ref) != seq) {
+          s++;
+          continue;
+        }
+        int ml = MINMATCH;
+        while(s + ml < mlimit && source[ref + ml] == source[s + ml]) ml++;
+
+        // write literals and match
+        t = literals(source, anchor, s - anchor, ml - MINMATCH, target, t);
+        final int offset = s - ref;
+        target[t++] = (byte) offset;
+        target[t++] = (byte) (offset >>> 8);
+        t = length(ml - MINMATCH, target, t);
+        s += ml;
+        anchor = s;
+      }
+    }
+    // write last literals
+    return literals(source, anchor, length - anchor, 0, target, t);
+  }
+
+  /**
+   * Decompresses the specified bytes.
+   * @param source compressed block
+   * @param offset offset to the compressed block
+   * @param length length of the compressed block
+   * @param target output buffer (must be large enough for the decompressed bytes)
+   * @return number of decompressed bytes
+   */
+  public static int decompress(final byte[] source, final int offset, final int length,
+      final byte[] target) {
+
+    final int end = offset + length;
+    int s = offset, t = 0;
+    while(true) {
+      final int token = source[s++] & 0xFF;
+      // copy literals
+      int ll = token >>> 4;
+      if(ll == 15) {
+        for(int b = 255; b == 255; ll += b) b = source[s++] & 0xFF;
+      }
+      Array.copy(source, s, ll, target, t);
+      s += ll;
+      t += ll;
+      if(s == end) return t;
+
+      // copy match
+      int r = t - (source[s++] & 0xFF | (source[s++] & 0xFF) << 8);
+      int ml = token & 0x0F;
+      if(ml == 15) {
+        for(int b = 255; b == 255; ml += b) b = source[s++] & 0xFF;
+      }
+      ml += MINMATCH;
+      if(t - r >= ml) {
+        Array.copy(target, r, ml, target, t);
+        t += ml;
+      } else {
+        // overlapping match
+        for(int m = 0; m < ml; m++) target[t++] = target[r++];
+      }
+    }
+  }
+
+  /**
+   * Writes a token and literals.
+   * @param source input
+   * @param offset offset to the literals
+   * @param ll number of literals
+   * @param ml match length (minus minimum length)
+   * @param target output
+   * @param t output position
+   * @return new output position
+   */
+  private static int literals(final byte[] source, final int offset, final int ll, final int ml,
+      final byte[] target, final int t) {
+    target[t] = (byte) (Math.min(ll, 15) << 4 | Math.min(ml, 15));
+    final int p = length(ll, target, t + 1);
+    Array.copy(source, offset, ll, target, p);
+    return p + ll;
+  }
+
+  /**
+   * Writes the extension bytes of a literal or match length.
+   * @param length length
+   * @param target output
+   * @param t output position
+   * @return new output position
+   */
+  private static int length(final int length, final byte[] target, final int t) {
+    int l = length - 15, p = t;
+    if(l >= 0) {
+      for(; l >= 255; l -= 255) target[p++] = (byte) 255;
+      target[p++] = (byte) l;
+    }
+    return p;
+  }
+
+  /**
+   * Reads four bytes as integer.
+   * @param source input
+   * @param s input position
+   * @return integer
+   */
+  private static int int4(final byte[] source, final int s) {
+    return source[s] & 0xFF | (source[s + 1] & 0xFF) << 8 | (source[s + 2] & 0xFF) << 16 |
+      source[s + 3] << 24;
+  }
+}
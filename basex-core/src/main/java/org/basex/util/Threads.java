@@ -0,0 +1,86 @@
+package org.basex.util;
+
+import java.lang.reflect.*;
+import java.util.concurrent.*;
+
+/**
+ * This class creates threads and executors. If requested and supported by the running JVM
+ * (Java 21 and later), virtual threads will be used. Otherwise, the functions fall back to
+ * platform threads.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class Threads {
+  /** Factory for virtual threads ({@code null} if not supported). */
+  private static final ThreadFactory VIRTUAL = virtualFactory();
+
+  /** Hidden constructor. */
+  private Threads() { }
+
+  /**
+   * Indicates if virtual threads are supported by the running JVM.
+   * @return result of check
+   */
+  public static boolean virtual() {
+    return VIRTUAL != null;
+  }
+
+  /**
+   * Returns a thread factory.
+   * @param virtual create virtual threads (if supported)
+   * @param daemon create daemon threads (ignored for virtual threads, which are always daemons)
+   * @return thread factory
+   */
+  public static ThreadFactory factory(final boolean virtual, final boolean daemon) {
+    return virtual && VIRTUAL != null ? VIRTUAL : r -> {
+      final Thread thread = new Thread(r);
+      thread.setDaemon(daemon);
+      return thread;
+    };
+  }
+
+  /**
+   * Creates and starts a new thread.
+   * @param runnable runnable to be executed
+   * @param virtual create virtual thread (if supported)
+   * @return thread
+   */
+  public static Thread start(final Runnable runnable, final boolean virtual) {
+    final Thread thread = factory(virtual, false).newThread(runnable);
+    thread.start();
+    return thread;
+  }
+
+  /**
+   * Returns an executor service. If virtual threads are requested and supported, a new thread
+   * will be created for each task. Otherwise, a fixed pool of daemon threads is returned.
+   * @param threads number of platform threads
+   * @param virtual use virtual threads (if supported)
+   * @return executor service
+   */
+  public static ExecutorService executor(final int threads, final boolean virtual) {
+    if(virtual && VIRTUAL != null) {
+      final Method method = Reflect.method(Executors.class, "newThreadPerTaskExecutor",
+          ThreadFactory.class);
+      final Object executor = Reflect.invoke(method, null, VIRTUAL);
+      if(executor != null) return (ExecutorService) executor;
+    }
+    return Executors.newFixedThreadPool(threads, factory(false, true));
+  }
+
+  /**
+   * Creates a factory for virtual threads.
+   * @return factory or {@code null}
+   */
+  private static ThreadFactory virtualFactory() {
+    try {
+      final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      final Class<?> clazz = Class.forName("java.lang.Thread$Builder");
+      return (ThreadFactory) clazz.getMethod("factory").invoke(builder);
+    } catch(final Exception ex) {
+      Util.debug(ex);
+      return null;
+    }
+  }
+}
@@ -11,6 +11,10 @@ import static java.lang.StrictMath.*;
 public final class Scoring {
   /** Logarithmic base for calculating the score value. */
   private static final double LOG = Math.E - 1;
+  /** BM25: saturation of the term frequency. */
+  private static final double K1 = 1.2;
+  /** BM25: influence of the text length. */
+  private static final double B = 0.75;
 
   /** Private constructor. */
   private Scoring() { }
@@ -58,4 +62,23 @@ public final class Scoring {
       final int length) {
     return max((double) number / size, log(token * number + 1) / log(length + 1));
   }
+
+  /**
+   * Calculates the Okapi BM25 score for a text node.
+   * The result is normalized to the range {@code [0, 1[}.
+   * @param number number of pos values (term frequency)
+   * @param nodes number of indexed nodes with this term (document frequency)
+   * @param length text length ({@code 0} to compute an upper bound)
+   * @param texts number of indexed texts
+   * @param total total length of all indexed texts
+   * @return score
+   */
+  public static double bm25(final int number, final int nodes, final int length,
+      final int texts, final long total) {
+    final double df = min(nodes, texts);
+    final double idf = log(1 + (texts - df + 0.5) / (df + 0.5));
+    final double norm = K1 * (1 - B + B * length * texts / total);
+    final double score = idf * number * (K1 + 1) / (number + norm);
+    return score / (1 + score);
+  }
 }
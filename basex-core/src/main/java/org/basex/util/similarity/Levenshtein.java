@@ -3,6 +3,7 @@ package org.basex.util.similarity;
 import static org.basex.util.FTToken.*;
 import static org.basex.util.Token.*;
 
+import java.util.*;
 import java.util.function.*;
 
 /**
@@ -21,6 +22,14 @@ public final class Levenshtein {
   private final int maxErrors;
   /** Matrix for calculating Levenshtein distance. */
   private int[][] matrix;
+  /** Number of rows of the matrix that have been computed for the last token. */
+  private int rows;
+  /** Normalized codepoints of the last token. */
+  private int[] tokCps;
+  /** Last token to be compared. */
+  private byte[] cmp;
+  /** Normalized codepoints of the last token to be compared. */
+  private int[] cmpCps;
 
   /**
    * Constructor.
@@ -94,6 +103,47 @@ public final class Levenshtein {
     return distance(token, compare, max) != Integer.MAX_VALUE;
   }
 
+  /**
+   * Compares a token with another token for similarity. If tokens are compared in lexicographical
+   * order, the rows of the distance matrix that have been computed for the common prefix of the
+   * previous token will be reused, and the result can be used to skip tokens with the same prefix.
+   * @param token input token
+   * @param compare token to be compared
+   * @param max maximum number of allowed errors; dynamic calculation if value is {@code 0}
+   * @return {@code -1} if the tokens are similar, or the byte length of a prefix of the input token
+   *   that is shared by no similar token
+   */
+  public int mismatch(final byte[] token, final byte[] compare, final int max) {
+    if(compare != cmp) {
+      cmp = compare;
+      cmpCps = normalize(compare);
+      rows = 0;
+    }
+    final int[] tcps = normalize(token), ccps = cmpCps;
+    final int tlen = tcps.length, clen = ccps.length, k = errors(tlen, clen, max);
+    if(k == -1) {
+      // exact search: if it is enforced by the compared token, skip tokens with different prefix
+      int t = 0;
+      while(t < tlen && t < clen && tcps[t] == ccps[t]) t++;
+      if(t == tlen && t == clen) return -1;
+      return t == tlen || t == clen || errors(clen, clen, max) != -1 ? token.length :
+        offset(token, t + 1);
+    }
+    if(Math.abs(clen - tlen) > k) return token.length;
+
+    // reuse rows that have been computed for the previous token
+    int t = 0;
+    final int l = Math.min(rows, tlen);
+    while(t < l && tokCps[t] == tcps[t]) t++;
+    tokCps = tcps;
+    rows = t;
+    for(; t < tlen; t++) {
+      if(row(tcps, t, ccps) > k) return offset(token, t + 1);
+      rows = t + 1;
+    }
+    return matrix[tlen][clen] <= k ? -1 : token.length;
+  }
+
   /**
    * Computes the Levenshtein distance.
    * @param token original token
@@ -102,21 +152,44 @@ public final class Levenshtein {
    * @return distance
    */
   private int distance(final byte[] token, final byte[] compare, final int max) {
-    final int sl = compare.length, tl = token.length;
-    int clen = 0, tlen = 0;
-    for(int c = 0; c < sl; c += cl(compare, c)) ++clen;
-    for(int t = 0; t < tl; t += cl(token, t)) ++tlen;
-
-    // use exact search for too short and too long values
-    final int dlen = Math.abs(clen - tlen);
-    if(max == 0 && (tlen < 4 || clen < 4) || tlen > MAX || clen > MAX)
-      return dlen == 0 && same(token, compare) ? 0 : Integer.MAX_VALUE;
+    final int[] tcps = normalize(token), ccps = normalize(compare);
+    final int tlen = tcps.length, clen = ccps.length, dlen = Math.abs(clen - tlen);
+    final int k = errors(tlen, clen, max);
+    if(k == -1) return Arrays.equals(tcps, ccps) ? 0 : Integer.MAX_VALUE;
 
     // skip different tokens with too different lengths
-    final int k = max == 0 ? Math.max(1, clen >> 2) : max;
     if(dlen > k) return Integer.MAX_VALUE;
 
     // compute distance
+    rows = 0;
+    for(int t = 0; t < tlen; t++) {
+      if(row(tcps, t, ccps) > k) return Integer.MAX_VALUE;
+    }
+    final int d = matrix[tlen][clen];
+    return d <= k ? d : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the number of allowed errors.
+   * @param tlen number of codepoints of the original token
+   * @param clen number of codepoints of the token to be compared
+   * @param max maximum number of allowed errors; dynamic calculation if value is {@code 0}
+   * @return number of errors, or {@code -1} if the tokens need to be equal
+   */
+  private static int errors(final int tlen, final int clen, final int max) {
+    // use exact search for too short and too long values
+    return max == 0 && (tlen < 4 || clen < 4) || tlen > MAX || clen > MAX ? -1 :
+      max == 0 ? Math.max(1, clen >> 2) : max;
+  }
+
+  /**
+   * Computes a row of the distance matrix. The preceding rows must have been computed before.
+   * @param token normalized codepoints of the original token
+   * @param t index of the row (codepoint position in the original token)
+   * @param compare normalized codepoints of the token to be compared
+   * @return minimum distance in the row
+   */
+  private int row(final int[] token, final int t, final int[] compare) {
     int[][] mx = matrix;
     if(mx == null) {
       mx = new int[MAX + 2][MAX + 2];
@@ -128,23 +201,41 @@ public final class Levenshtein {
       matrix = mx;
     }
 
-    int f = -1, g = -1;
-    for(int t = 0; t < tlen; t += cl(token, t)) {
-      final int tn = noDiacritics(lc(cp(token, t)));
-      int d = Integer.MAX_VALUE;
-      for(int c = 0; c < clen; c += cl(compare, c)) {
-        final int cn = noDiacritics(lc(cp(compare, c)));
-        int e = m(mx[t][c + 1] + 1, mx[t + 1][c] + 1, mx[t][c] + (tn == cn ? 0 : 1));
-        if(tn == g && cn == f) e = mx[t][c];
-        mx[t + 1][c + 1] = e;
-        d = Math.min(d, e);
-        g = cn;
-      }
-      if(d > k) return Integer.MAX_VALUE;
-      f = tn;
+    final int cl = compare.length, tn = token[t], f = t > 0 ? token[t - 1] : -1;
+    int g = t > 0 && cl > 0 ? compare[cl - 1] : -1, d = Integer.MAX_VALUE;
+    for(int c = 0; c < cl; c++) {
+      final int cn = compare[c];
+      int e = m(mx[t][c + 1] + 1, mx[t + 1][c] + 1, mx[t][c] + (tn == cn ? 0 : 1));
+      if(tn == g && cn == f) e = mx[t][c];
+      mx[t + 1][c + 1] = e;
+      d = Math.min(d, e);
+      g = cn;
     }
-    final int d = mx[tlen][clen];
-    return d <= k ? d : Integer.MAX_VALUE;
+    return d;
+  }
+
+  /**
+   * Returns the normalized codepoints of a token (lower case, without diacritics).
+   * @param token token
+   * @return codepoints
+   */
+  private static int[] normalize(final byte[] token) {
+    final int[] cps = cps(token);
+    final int cl = cps.length;
+    for(int c = 0; c < cl; c++) cps[c] = noDiacritics(lc(cps[c]));
+    return cps;
+  }
+
+  /**
+   * Returns the byte offset of the specified codepoint position.
+   * @param token token
+   * @param c codepoint position
+   * @return byte offset
+   */
+  private static int offset(final byte[] token, final int c) {
+    int o = 0;
+    for(int i = 0; i < c; i++) o += cl(token, o);
+    return o;
   }
 
   /**
@@ -189,18 +280,4 @@ public final class Levenshtein {
   private static int m(final int a, final int b, final int c) {
     return Math.min(Math.min(a, b), c);
   }
-
-  /**
-   * Compares two character arrays for equality.
-   * @param token input token
-   * @param compare token to be compared
-   * @return true if the arrays are equal
-   */
-  private static boolean same(final byte[] token, final byte[] compare) {
-    final int tl = token.length, cl = compare.length;
-    for(int c = 0, t = 0; t < tl && c < cl; t += cl(token, t), c += cl(compare, c)) {
-      if(lc(noDiacritics(cp(token, t))) != lc(noDiacritics(cp(compare, t)))) return false;
-    }
-    return true;
-  }
 }
@@ -1,5 +1,6 @@
 package org.basex.build;
 
+import static org.basex.query.func.Function.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.basex.*;
@@ -234,6 +235,35 @@ public final class AddDeleteTest extends SandboxTest {
     }
   }
 
+  /**
+   * Creates a database with parallel parsers.
+   */
+  @Test public void createParallel() {
+    final String query = "string-join(" + _DB_LIST.args(NAME) + ", ','), " +
+        _DB_GET.args(NAME) + " ! serialize(.)";
+    execute(new CreateDB(NAME, FLDR));
+    final String expected = query(query);
+    try {
+      set(MainOptions.CREATEPARALLEL, 4);
+      execute(new CreateDB(NAME, FLDR));
+      assertEquals(NFLDR, docs());
+      assertEquals(expected, query(query));
+
+      execute(new Add("", FLDR));
+      assertEquals(NFLDR << 1, docs());
+
+      final IOFile io = new IOFile(TEMP);
+      write(io, "<x");
+      assertThrows(BaseXException.class, () -> new CreateDB(NAME, TEMP).execute(context));
+      set(MainOptions.SKIPCORRUPT, true);
+      execute(new CreateDB(NAME, TEMP));
+      assertEquals(0, docs());
+    } finally {
+      set(MainOptions.SKIPCORRUPT, false);
+      set(MainOptions.CREATEPARALLEL, 1);
+    }
+  }
+
   /**
    * Returns the number of documents in the current database.
    * @return number of documents
@@ -0,0 +1,70 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * This class tests databases with compressed texts ({@link MainOptions#COMPRESSTEXTS}).
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressTextsTest extends SandboxTest {
+  /** Document with multiple compressed blocks. */
+  private static final String DOC = "<a>{ (1 to 20000) ! <b x='x{ . }'>text { . }</b> }</a>";
+
+  /**
+   * Creates the test database.
+   */
+  @BeforeEach public void init() {
+    set(MainOptions.COMPRESSTEXTS, true);
+    set(MainOptions.UPDINDEX, true);
+    execute(new CreateDB(NAME));
+    query(_DB_ADD.args(NAME, " " + DOC, "a.xml"));
+    // rebuild database to compress all texts
+    execute(new OptimizeAll());
+  }
+
+  /**
+   * Drops the test database.
+   */
+  @AfterEach public void finish() {
+    execute(new DropDB(NAME));
+    set(MainOptions.COMPRESSTEXTS, false);
+    set(MainOptions.UPDINDEX, false);
+  }
+
+  /**
+   * Reads texts and attribute values.
+   */
+  @Test public void read() {
+    query(_DB_PROPERTY.args(NAME, "compresstexts"), true);
+    query("count(" + _DB_GET.args(NAME) + "//b)", 20000);
+    query(_DB_GET.args(NAME) + "//b[@x = 'x12345']/text()", "text 12345");
+    query("sum(" + _DB_GET.args(NAME) + "//b ! string-length())", 188894);
+    query(_DB_TEXT.args(NAME, "text 20000") + "/../@x/string()", "x20000");
+    query(_DB_ATTRIBUTE.args(NAME, "x1") + "/../text()", "text 1");
+  }
+
+  /**
+   * Replaces compressed texts and attribute values.
+   */
+  @Test public void update() {
+    query("for $b in " + _DB_GET.args(NAME) + "//b[position() <= 10000] return ("
+        + "replace value of node $b with 'new ' || $b, "
+        + "replace value of node $b/@x with 'y' || $b/@x)");
+    query(_DB_GET.args(NAME) + "//b[@x = 'yx5000']/text()", "new text 5000");
+    query(_DB_GET.args(NAME) + "//b[@x = 'x15000']/text()", "text 15000");
+    query("count(" + _DB_TEXT.args(NAME, "new text 1") + ")", 1);
+
+    execute(new Close());
+    query("count(" + _DB_GET.args(NAME) + "//b[starts-with(., 'new ')])", 10000);
+    execute(new Open(NAME));
+    execute(new OptimizeAll());
+    query(_DB_GET.args(NAME) + "//b[@x = 'yx5000']/text()", "new text 5000");
+  }
+}
@@ -5,6 +5,7 @@ import static org.basex.query.func.Function.*;
 import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.util.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -23,6 +24,7 @@ public final class IndexTest extends SandboxTest {
   @AfterEach public void after() {
     execute(new DropDB(NAME));
     set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.FTINDEX, false);
     set(MainOptions.UPDINDEX, false);
     set(MainOptions.AUTOOPTIMIZE, false);
     set(MainOptions.MAINMEM, false);
@@ -130,6 +132,35 @@ public final class IndexTest extends SandboxTest {
     query(_DB_INFO.args(NAME) + "//tokenindex/text()", true);
   }
 
+  /**
+   * Test.
+   */
+  @Test public void updindexFulltext() {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, "<x><a>hello world</a><a>foo bar</a></x>"));
+    query("insert node <a>hello again</a> into /x");
+    query("replace value of node /x/a[2] with 'hello bar'");
+    query("delete node /x/a[1]");
+
+    final String query = "string-join(//a[text() contains text '%'], '|')";
+    query(Util.info(query, "hello"), "hello bar|hello again");
+    query(Util.info(query, "world"), "");
+    query(Util.info(query, "foo"), "");
+    query("//a[text() contains text 'hel.*' using wildcards] => count()", 2);
+    query("//a[text() contains text 'helo' using fuzzy] => count()", 2);
+    query(_FT_TOKENS.args(NAME, "hello") + " ! @count ! string()", 2);
+    query(_DB_INFO.args(NAME) + "//ftindex/text()", true);
+
+    execute(new Close());
+    execute(new Open(NAME));
+    query(Util.info(query, "again"), "hello again");
+    query("for $i in 1 to 100 return insert node <a>a{ $i }</a> into /x");
+    query(Util.info(query, "a100"), "a100");
+    execute(new Optimize());
+    query(Util.info(query, "a1"), "a1");
+  }
+
   /**
    * Test.
    * @param mainmem main memory flag.
@@ -0,0 +1,112 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests databases with a memory-mapped table ({@link MainOptions#MAPTABLE}).
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class MapTableTest extends SandboxTest {
+  /** Document with multiple table pages. */
+  private static final String DOC = "<a>{ (1 to 10000) ! <b x='{ . }'>{ . }</b> }</a>";
+
+  /**
+   * Creates the test database.
+   */
+  @BeforeEach public void init() {
+    set(MainOptions.MAPTABLE, true);
+    execute(new CreateDB(NAME));
+    query(_DB_ADD.args(NAME, " " + DOC, "a.xml"));
+  }
+
+  /**
+   * Drops the test database.
+   */
+  @AfterEach public void finish() {
+    execute(new DropDB(NAME));
+    set(MainOptions.MAPTABLE, false);
+  }
+
+  /**
+   * Checks if the option is stored in the database.
+   */
+  @Test public void info() {
+    query(_DB_INFO.args(NAME) + "//maptable/text()", true);
+    execute(new Close());
+    set(MainOptions.MAPTABLE, false);
+    query(_DB_INFO.args(NAME) + "//maptable/text()", true);
+  }
+
+  /**
+   * Reads entries from a mapped table.
+   */
+  @Test public void read() {
+    query("count(" + _DB_GET.args(NAME) + "//b)", 10000);
+    query("sum(" + _DB_GET.args(NAME) + "//@x)", 50005000);
+    query(_DB_GET.args(NAME) + "//b[@x = 5000]/text()", 5000);
+  }
+
+  /**
+   * Reads entries after updates (page mapping will be irregular).
+   */
+  @Test public void update() {
+    query("delete node " + _DB_GET.args(NAME) + "//b[position() <= 5000]");
+    query("sum(" + _DB_GET.args(NAME) + "//@x)", 37502500);
+    query("insert node <b x='1'>1</b> as first into " + _DB_GET.args(NAME) + "/a");
+    query("sum(" + _DB_GET.args(NAME) + "//@x)", 37502501);
+    query(_DB_GET.args(NAME) + "/a/b[1]/text()", 1);
+
+    execute(new Close());
+    query("count(" + _DB_GET.args(NAME) + "//b)", 5001);
+  }
+
+  /**
+   * Reads entries in parallel.
+   * @throws Exception exception
+   */
+  @Test public void parallel() throws Exception {
+    final ExecutorService es = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<String>> results = new ArrayList<>();
+      for(int r = 0; r < 32; r++) {
+        results.add(es.submit(() -> query("sum(" + _DB_GET.args(NAME) + "//@x)")));
+      }
+      for(final Future<String> result : results) assertEquals("50005000", result.get());
+    } finally {
+      es.shutdown();
+    }
+  }
+
+  /**
+   * Performs parallel lookups in mapped value indexes.
+   * @throws Exception exception
+   */
+  @Test public void indexes() throws Exception {
+    execute(new Optimize());
+    final ExecutorService es = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<String>> results = new ArrayList<>();
+      for(int r = 0; r < 32; r++) {
+        results.add(es.submit(() -> query("sum((1 to 1000) ! (" +
+          _DB_TEXT.args(NAME, " string(.)") + ", " + _DB_ATTRIBUTE.args(NAME, " string(.)") +
+          ") ! xs:integer(.))")));
+      }
+      for(final Future<String> result : results) assertEquals("1001000", result.get());
+    } finally {
+      es.shutdown();
+    }
+    query("count(" + _DB_GET.args(NAME) + "//b[text() >= '9990'])", 10);
+  }
+}
@@ -3,9 +3,12 @@ package org.basex.data;
 import static org.basex.query.func.Function.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.*;
+
 import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.io.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.Test;
 
@@ -98,6 +101,66 @@ public final class StoreTest extends SandboxTest {
     }
   }
 
+  /**
+   * Tests the {@link MainOptions#JOURNAL} flag: updates are appended to a journal, which is
+   * replayed if a database is opened before the journal has been written to the database files.
+   * @throws IOException I/O exception
+   */
+  @Test public void journal() throws IOException {
+    set(MainOptions.AUTOFLUSH, true);
+    set(MainOptions.JOURNAL, true);
+    try {
+      execute(new CreateDB(NAME, "<X><A>q</A></X>"));
+      for(int n = 0; n < 200; n++) {
+        query("insert node <A>" + n + "</A> into /X/A[1]");
+        query("replace value of node /X/A[last()]/text() with " + _RANDOM_DOUBLE.args());
+      }
+      final IOFile journal = context.data().meta.dbFile(DataText.DATAJNL);
+      assertTrue(journal.exists());
+      final String result = query("/");
+
+      // copy database files (including the journal) before they are written back
+      final IOFile copy = context.soptions.dbPath(NAME + "copy");
+      for(final IOFile file : context.soptions.dbPath(NAME).children()) {
+        file.copyTo(new IOFile(copy, file.name()));
+      }
+      execute(new Close());
+      assertFalse(journal.exists());
+
+      execute(new Open(NAME + "copy"));
+      assertFalse(context.data().meta.dbFile(DataText.DATAJNL).exists());
+      assertEquals(result, query("/"));
+      assertTrue(execute(new Inspect()).contains("No inconsistencies found."));
+      execute(new DropDB(NAME + "copy"));
+    } finally {
+      set(MainOptions.AUTOFLUSH, false);
+      set(MainOptions.JOURNAL, false);
+    }
+  }
+
+  /**
+   * Tests if journaled updates are written to the database files if journaling is turned off.
+   */
+  @Test public void journalOff() {
+    set(MainOptions.AUTOFLUSH, true);
+    set(MainOptions.JOURNAL, true);
+    try {
+      execute(new CreateDB(NAME, "<X><A>q</A></X>"));
+      for(int n = 0; n < 10; n++) query("insert node <A>" + n + "</A> into /X");
+      final IOFile journal = context.data().meta.dbFile(DataText.DATAJNL);
+      assertTrue(journal.exists());
+
+      set(MainOptions.JOURNAL, false);
+      for(int n = 0; n < 10; n++) query("insert node <A>" + n + "</A> into /X");
+      assertFalse(journal.exists());
+      query("count(//A)", 21);
+      assertTrue(execute(new Inspect()).contains("No inconsistencies found."));
+    } finally {
+      set(MainOptions.AUTOFLUSH, false);
+      set(MainOptions.JOURNAL, false);
+    }
+  }
+
   /**
    * Add, delete and replace documents in an empty database.
    */
@@ -1,5 +1,6 @@
 package org.basex.index;
 
+import static org.basex.query.func.Function.*;
 import static org.basex.util.Token.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -10,10 +11,12 @@ import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.core.cmd.Set;
+import org.basex.core.parse.Commands.*;
 import org.basex.index.query.*;
 import org.basex.index.value.*;
 import org.basex.util.hash.*;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -117,6 +120,39 @@ public final class ValueIndexTest extends SandboxTest {
     valueIndexTest(IndexType.TOKEN, tokens, paramSet);
   }
 
+  /**
+   * Compares index structures that have been built in parallel.
+   */
+  @Test public void parallel() {
+    set(MainOptions.TOKENINDEX, true);
+    final String doc = "<r>{ (1 to 100000) ! <e a='a{ . mod 997 }' b='w{ . mod 13 } w{ . mod 7 }'>"
+        + "t{ . mod 1009 }</e> }</r>";
+    final String query = "(" + _INDEX_TEXTS.args(NAME) + ", " + _INDEX_ATTRIBUTES.args(NAME) + ", "
+        + _INDEX_TOKENS.args(NAME) + ") ! (. || @count), (1 to 1009) ! "
+        + _DB_TEXT.args(NAME, " 't' || .") + " ! " + _DB_NODE_PRE.args(" .");
+
+    execute(new CreateDB(NAME, "<r/>"));
+    query(_DB_PUT.args(NAME, " " + doc, "r.xml"));
+    execute(new Optimize());
+    final String expected = query(query);
+    try {
+      set(MainOptions.CREATEPARALLEL, 4);
+      for(final int splitsize : new int[] { 0, 3 }) {
+        set(MainOptions.SPLITSIZE, splitsize);
+        execute(new CreateDB(NAME, "<r/>"));
+        query(_DB_PUT.args(NAME, " " + doc, "r.xml"));
+        execute(new CreateIndex(CmdIndex.TEXT));
+        execute(new CreateIndex(CmdIndex.ATTRIBUTE));
+        execute(new CreateIndex(CmdIndex.TOKEN));
+        assertEquals(expected, query(query));
+      }
+    } finally {
+      set(MainOptions.CREATEPARALLEL, 1);
+      set(MainOptions.SPLITSIZE, 0);
+      set(MainOptions.TOKENINDEX, false);
+    }
+  }
+
   /**
    * Tests the index: fetch results for different tokens, compare whether the right node was
    * returned and verify against the expected result size.
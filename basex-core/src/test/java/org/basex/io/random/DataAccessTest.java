@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.*;
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.io.*;
 import org.basex.util.*;
 import org.junit.jupiter.api.*;
@@ -312,6 +313,37 @@ public class DataAccessTest {
     assertContent(pos, CINT1_BIN);
   }
 
+  /**
+   * Random reads and writes on more blocks than can be buffered.
+   */
+  @Test public final void testRandomBlocks() {
+    BufferPool.size(1);
+    try {
+      final int size = IO.BLOCKSIZE * 500;
+      final int[] values = new int[size >>> 2];
+      final Random rnd = new Random(0);
+      for(int v = 0; v < values.length; v++) {
+        values[v] = rnd.nextInt();
+        da.write4((long) v << 2, values[v]);
+      }
+      for(int n = 0; n < 100000; n++) {
+        // access a small set of hot blocks and random positions
+        final int v = rnd.nextBoolean() ? rnd.nextInt(16) * (IO.BLOCKSIZE >>> 2) :
+          rnd.nextInt(values.length);
+        if(rnd.nextInt(4) == 0) {
+          values[v] = rnd.nextInt();
+          da.write4((long) v << 2, values[v]);
+        } else {
+          assertEquals(values[v], da.read4((long) v << 2));
+        }
+      }
+      da.flush();
+      for(int v = 0; v < values.length; v++) assertEquals(values[v], da.read4((long) v << 2));
+    } finally {
+      BufferPool.size(new StaticOptions(false).get(StaticOptions.BUFFERPOOL));
+    }
+  }
+
   /** Test method for {@link DataAccess#free(long, int)}. */
   @Disabled
   @Test public final void testFree() {
@@ -83,4 +83,24 @@ public final class FTWildcardTest {
       }
     }
   }
+
+  /**
+   * Test prefixes that rule out wild-card matches.
+   */
+  @Test public void testMismatch() {
+    final int vl = VALIDWC.length;
+    for(int i = 0; i < vl; i++) {
+      final FTWildcard wc = new FTWildcard(token(VALIDWC[i]));
+      for(final String g : TEXTS_GOOD[i]) assertEquals(-1, wc.mismatch(token(g)));
+      for(final String b : TEXTS_BAD[i]) assertNotEquals(-1, wc.mismatch(token(b)));
+    }
+
+    // no token starting with the returned prefix can be matched
+    assertEquals(3, new FTWildcard(token("w.ll")).mismatch(token("wax")));
+    assertEquals(3, new FTWildcard(token("a.c.*")).mismatch(token("abde")));
+    assertEquals(2, new FTWildcard(token("a.c.*")).mismatch(token("\u00e4bd")));
+    assertEquals(4, new FTWildcard(token("a.{1,2}c")).mismatch(token("abbbc")));
+    // no prefix can be ruled out: return length of the token
+    assertEquals(3, new FTWildcard(token("a.*c")).mismatch(token("abd")));
+  }
 }
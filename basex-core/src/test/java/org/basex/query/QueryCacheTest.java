@@ -0,0 +1,86 @@
+package org.basex.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.io.serial.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for the cache of parsed queries.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /** Database context with enabled query cache. */
+  private static Context ctx;
+
+  /** Creates the database context. */
+  @BeforeAll public static void init() {
+    final StaticOptions sopts = new StaticOptions(false);
+    sopts.set(StaticOptions.QUERYCACHE, 2);
+    ctx = new Context(sopts);
+  }
+
+  /** Closes the database context. */
+  @AfterAll public static void close() {
+    ctx.close();
+  }
+
+  /**
+   * Rebinds external variables.
+   * @throws QueryException query exception
+   */
+  @Test public void bind() throws QueryException {
+    final String query = "declare variable $n as xs:integer external; "
+        + "declare variable $m := $n * 2; declare option output:method 'text'; "
+        + "for $i in 1 to $n group by $k := $i mod 2 order by $k "
+        + "let $f := function($a) { $a + $m } return $k || ':' || sum($i ! $f(.))";
+    for(int n = 1; n <= 4; n++) {
+      assertEquals(eval(query, n, context), eval(query, n, ctx));
+    }
+  }
+
+  /**
+   * Queries that cannot be cached.
+   * @throws QueryException query exception
+   */
+  @Test public void uncached() throws QueryException {
+    for(final String query : new String[] {
+      "declare function local:f() { <a/> }; local:f()",
+      "declare context item := <a/>; .",
+      "declare namespace x = 'X'; <x:a/>",
+    }) {
+      for(int i = 0; i < 2; i++) {
+        try(QueryProcessor qp = new QueryProcessor(query, ctx)) {
+          assertEquals(1, qp.value().size());
+        }
+      }
+    }
+    for(int i = 0; i < 2; i++) {
+      try(QueryProcessor qp = new QueryProcessor("1 +", ctx)) {
+        assertThrows(QueryException.class, qp::value);
+      }
+    }
+  }
+
+  /**
+   * Evaluates a query with the specified binding.
+   * @param query query
+   * @param n value of the external variable
+   * @param dbctx database context
+   * @return serialized result
+   * @throws QueryException query exception
+   */
+  private static String eval(final String query, final int n, final Context dbctx)
+      throws QueryException {
+    try(QueryProcessor qp = new QueryProcessor(query, dbctx)) {
+      qp.variable("n", n);
+      final String result = qp.value().serialize().toString();
+      assertEquals(SerialMethod.TEXT, qp.qc.parameters().get(SerializerOptions.METHOD));
+      return result;
+    }
+  }
+}
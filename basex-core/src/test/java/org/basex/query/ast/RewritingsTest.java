@@ -3050,4 +3050,47 @@ public final class RewritingsTest extends QueryPlanTest {
     error("xs:untypedAtomic('') = xs:QName('x')", FUNCCAST_X_X_X);
     query("xs:untypedAtomic(' x ') = xs:QName('x')", true);
   }
+
+  /** Hash joins. */
+  @Test public void hashJoin() {
+    final String a = "(1 to 20) ! <a id='{ . }'/>", b = "(1 to 20) ! <b ref='{ . * 2 }'/>";
+    check("let $b := " + b + " return count(for $a in " + a + " for $b in $b "
+        + "where $b/@ref = $a/@id return $b)", 10, exists(JoinFilter.class));
+    check("let $b := " + b + " return string-join(for $a in " + a + " for $b in $b "
+        + "where $b/@ref = $a/@id and $b/@ref > 10 return $b/@ref, ',')",
+        "12,14,16,18,20", exists(JoinFilter.class));
+    check("for $i in 1 to 10 for $j in 1 to 30 where $j = $i * 3 return $j",
+        "3\n6\n9\n12\n15\n18\n21\n24\n27\n30", exists(JoinFilter.class));
+    check("declare variable $b := document { " + b + " };"
+        + "count(for $a in 1 to 20 return $b//b[@ref = string($a)])",
+        10, exists(JoinFilter.class));
+    query("count(for $i in 1 to 3 for $j in (1 to 100) ! xs:double(if(. = 50) then 'NaN' else .) "
+        + "where $j = $i return $j)", 3);
+
+    // no rewrite: positional access, incompatible types, context-independent predicate
+    check("for $i in 1 to 3 return (1 to 5)[position() = $i]", "1\n2\n3",
+        empty(JoinFilter.class));
+    check("let $b := " + b + " return count(for $a in 1 to 20 for $b in $b "
+        + "where $b/@ref = $a return $b)", 10, empty(JoinFilter.class));
+    check("for $c in 1 to 10 return $c[. = 1]", 1, empty(JoinFilter.class));
+  }
+
+  /** Top-k evaluation of order by clauses. */
+  @Test public void orderByLimit() {
+    final String flwor = "for $i in 1 to 100 order by $i mod 7 ";
+    check("subsequence(" + flwor + "return $i, 1, 3)", "7\n14\n21",
+        exists("OrderBy[@limit = 3]"));
+    check("(" + flwor + "descending return $i)[position() <= 3]", "6\n13\n20",
+        exists("OrderBy[@limit = 3]"));
+    check("(" + flwor + "return $i)[position() = 3 to 4]", "21\n28",
+        exists("OrderBy[@limit = 4]"));
+    check("(" + flwor + "return $i)[5]", 35, exists("OrderBy[@limit = 5]"));
+    check("head(" + flwor + "descending return $i)", 6, exists("OrderBy[@limit = 1]"));
+    check("head(" + flwor + "count $c let $j := $i * 2 return $c || ':' || $j)", "1:14",
+        exists("OrderBy[@limit = 1]"));
+
+    // no rewrite: results of tuples may be empty, or number of tuples may change
+    check("head(" + flwor + "return $i[. > 50])", 56, empty("OrderBy[@limit]"));
+    check("head(" + flwor + "for $j in 1 to $i mod 2 return $i)", 7, empty("OrderBy[@limit]"));
+  }
 }
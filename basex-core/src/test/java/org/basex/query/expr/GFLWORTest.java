@@ -4,6 +4,7 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.basex.core.*;
 import org.basex.query.ast.*;
 import org.basex.query.expr.constr.*;
 import org.basex.query.expr.gflwor.*;
@@ -454,4 +455,109 @@ public final class GFLWORTest extends QueryPlanTest {
     check("for $a in () return delete node a", "", empty());
     check("for $a in" + _PROF_VOID.args(1) + " return delete node a", "", root(_PROF_VOID));
   }
+
+  /** Sorts tuples on disk. */
+  @Test public void sortLimit() {
+    set(MainOptions.SORTLIMIT, 10);
+    try {
+      final String keys = "($i * 7) mod 10";
+      query("string-join(for $i in 1 to 100 order by " + keys + ", $i descending return $i)",
+          query("string-join(sort(reverse(1 to 100), (), function($i) { " + keys + " }))"));
+      query("string-join(sort((1 to 100) ! (. mod 4), (), function($i) { -$i }))",
+          query("string-join((3, 2, 1, 0) ! replicate(., 25))"));
+      // records with nodes are kept in main memory
+      query("string-join(for $i in 1 to 30 order by $i mod 3 descending "
+          + "return if($i mod 2 = 0) then <x>{ $i }</x> else $i, ',')",
+          "2,5,8,11,14,17,20,23,26,29,1,4,7,10,13,16,19,22,25,28,3,6,9,12,15,18,21,24,27,30");
+      error("for $i in (1 to 100, 'a') order by $i return $i", CMPTYPES_X_X_X_X);
+      // merge runs in several passes
+      query("deep-equal(for $i in 1 to 2000 order by -$i return $i, reverse(1 to 2000))", true);
+      // stop iteration before all runs have been merged
+      query("some $x in (for $i in 1 to 2000 order by -$i return $i) satisfies $x = 1990", true);
+      query("count(file:list(" + _DB_SYSTEM.args() + "//dbpath, false(), 'sort-*'))", 0);
+    } finally {
+      set(MainOptions.SORTLIMIT, 0);
+    }
+  }
+
+  /** Sorts tuples by integers, doubles and strings. */
+  @Test public void orderByKeys() {
+    final String ints = "for $i in 1 to 7 let $k := (3, 1, 1, -5, 2)[$i] ";
+    query("string-join(" + ints + "order by $k return $i, ',')", "6,7,4,2,3,5,1");
+    query("string-join(" + ints + "order by $k empty greatest return $i, ',')", "4,2,3,5,1,6,7");
+    query("string-join(" + ints + "order by $k descending return $i, ',')", "1,5,2,3,4,6,7");
+
+    final String dbls = "for $i in 1 to 8 "
+        + "let $k := (3.5e0, xs:double('NaN'), 1e0, -0e0, 0e0, 2e0)[$i] ";
+    query("string-join(" + dbls + "order by $k return $i, ',')", "2,7,8,4,5,3,6,1");
+    query("string-join(" + dbls + "order by $k descending empty greatest return $i, ',')",
+        "2,7,8,1,6,3,4,5");
+
+    query("string-join(for $s in ('b', 'a', 'A', '', 'ab', <x>c</x>/text(), xs:anyURI('aa')) "
+        + "order by data($s) return $s, ',')", ",A,a,aa,ab,b,c");
+    query("string-join(for $i in 1 to 6 order by $i mod 2, string($i mod 3) descending, "
+        + "$i * 1e0 descending return $i, ',')", "2,4,6,5,1,3");
+    query("string-join(for $i in 1 to 5 let $k := (1, 2.5e0, 3, 0.5, 2)[$i] "
+        + "order by $k return $i, ',')", "4,1,5,2,3");
+    error("for $i in 1 to 3 order by ($i, 'a')[$i] return $i", INVCONVERT_X_X_X);
+  }
+
+  /** Sorts and groups large numbers of tuples (in parallel, if several processors exist). */
+  @Test public void parallel() {
+    final String input = "for $i in 1 to 100000 ";
+    query("deep-equal((" + input + "order by $i mod 3 return $i), "
+        + "for $m in 0 to 2 return (1 to 100000)[. mod 3 = $m])", true);
+    query("deep-equal((" + input + "order by $i mod 7 descending, -$i return $i), "
+        + "for $m in reverse(0 to 6) return reverse((1 to 100000)[. mod 7 = $m]))", true);
+    query("string-join(" + input + "group by $k := $i mod 10 "
+        + "return $k || ':' || count($i) || ':' || $i[1], ',')",
+        "1:10000:1,2:10000:2,3:10000:3,4:10000:4,5:10000:5,"
+        + "6:10000:6,7:10000:7,8:10000:8,9:10000:9,0:10000:10");
+    query("count(" + input + "group by $k := $i mod 50000 return $k)", 50000);
+    error(input + "order by if($i = 50000) then 'a' else $i return $i", INVCONVERT_X_X_X);
+  }
+
+  /** Groups tuples that are ordered by the grouping keys. */
+  @Test public void sortedGroups() {
+    final String input = "for $i in 1 to 20 ";
+    check("string-join(" + input + "order by $i mod 3 group by $k := $i mod 3 "
+        + "return $k || ':' || count($i), ',')", "0:6,1:7,2:7", "//GroupBy/@iterative = 'true'");
+    check("string-join(" + input + "order by $i mod 3 descending, $i mod 2 "
+        + "group by $b := $i mod 2, $a := $i mod 3 return $a || $b || ':' || count($i), ',')",
+        "20:4,21:3,10:3,11:4,00:3,01:3", "//GroupBy/@iterative = 'true'");
+    check("string-join(" + input + "order by $i mod 3 for $j in 1 to 2 where $i > 3 "
+        + "group by $k := $i mod 3 return $k || ':' || count($j), ',')",
+        "0:10,1:12,2:12", "//GroupBy/@iterative = 'true'");
+    check("string-join(for $i in 1 to 6 let $k := (1, 1, xs:double('NaN'), 1, 5)[$i - 1] "
+        + "order by $k group by $g := $k return $g || ':' || string-join($i, '-'), ',')",
+        ":1,NaN:4,1:2-3-5,5:6", "//GroupBy/@iterative = 'true'");
+
+    // grouping keys differ from order keys
+    check("string-join(" + input + "order by $i mod 3 group by $k := $i mod 2 "
+        + "return $k || ':' || count($i), ',')", "1:10,0:10", empty("//GroupBy/@iterative"));
+    check("string-join(" + input + "order by $i mod 3, $i mod 2 group by $k := $i mod 2 "
+        + "return $k || ':' || count($i), ',')", "0:10,1:10", empty("//GroupBy/@iterative"));
+    check("string-join(for $i in 1 to 12 order by $i mod 3, $i mod 2 "
+        + "group by $x := $i mod 2, $y := $i mod 2 return $x || $y || ':' || count($i), ',')",
+        "00:6,11:6", empty("//GroupBy/@iterative"));
+  }
+
+  /** Groups tuples on disk. */
+  @Test public void groupLimit() {
+    final String query = "string-join(for $i in 1 to 200 "
+        + "let $v := if($i mod 7 = 0) then <x>{ $i }</x> else $i "
+        + "group by $k := $i mod 50, $m := $i mod 3 = 0 order by $k, $m "
+        + "return $k || $m || ':' || string-join($v, '-'), ',')";
+    final String expected = query(query);
+    set(MainOptions.GROUPLIMIT, 3);
+    try {
+      query(query, expected);
+      query("count(for $i in 1 to 10000 group by $k := $i mod 5000 return $k)", 5000);
+      query("sum(for $i in 1 to 10000 group by $k := string($i mod 1000) return count($i))",
+          10000);
+      error("for $i in (1 to 100, 'a') group by $k := $i + 1 return $k", NONUMBER_X_X);
+    } finally {
+      set(MainOptions.GROUPLIMIT, 0);
+    }
+  }
 }
@@ -3,6 +3,7 @@ package org.basex.query.expr;
 import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
 
+import org.basex.core.*;
 import org.basex.query.ast.*;
 import org.basex.query.expr.constr.*;
 import org.basex.query.value.item.*;
@@ -142,4 +143,35 @@ public final class SimpleMapTest extends QueryPlanTest {
     check("(1, 2) ! (. * 2)", "2\n4", root(IntSeq.class));
     check("(true(), false()) ! (. = true())", "true\nfalse", root(BlnSeq.class));
   }
+
+  /** Evaluates map, filter and for operations in parallel. */
+  @Test public void parallel() {
+    // enable parallel evaluation via the SET command
+    set(MainOptions.PARALLELEVAL, true);
+    set(MainOptions.PARALLELSIZE, 100);
+    try {
+      query("sum((1 to 100000) ! (. * 2))", 10000100000L);
+      query("sum((1 to 1000) ! (position() + last()))", 1500500);
+      query("string-join(((1 to 300) ! string())[position() > 295], ',')", "296,297,298,299,300");
+      query("count((1 to 1000)[. mod 3 = 0])", 333);
+      query("sum(for $i at $p in 1 to 1000 return $i * $p)", 333833500);
+      query("for $a in 1 to 2 return sum((1 to 1000) ! (. + $a))", "501500\n502500");
+      query("string-join(" + FOR_EACH.args(" 1 to 250", " string#1") + ')',
+          query("string-join((1 to 250) ! string())"));
+      query("count(" + FILTER.args(" 1 to 1000", " function($i) { $i mod 3 = 0 }") + ')', 333);
+      query("count(distinct-values((1 to 1000) ! " + CURRENT_DATETIME.args() + "))", 1);
+      query("count((1 to 1000) ! <a/> ! (. is .))", 1000);
+      error("sum((1 to 1000) ! (if(. = 777) then xs:integer(. || 'a') else .))", FUNCCAST_X_X);
+      query("declare option db:paralleleval 'false'; sum((1 to 1000) ! (. * 2))", 1001000);
+      // static variables are evaluated before the chunks are created
+      query("declare %basex:lazy variable $v := sum(for $i in 1 to 200000 return $i mod 7);"
+          + "sum((1 to 100000) ! (. + $v))", 64999750000L);
+      query("declare %basex:lazy variable $v := sum(for $i in 1 to 200000 return $i mod 7);"
+          + "declare function local:f($x) { $x + $v }; sum((1 to 100000) ! local:f(.))",
+          64999750000L);
+    } finally {
+      set(MainOptions.PARALLELEVAL, false);
+      set(MainOptions.PARALLELSIZE, 10000);
+    }
+  }
 }
@@ -74,6 +74,28 @@ public final class FTIndexQueryTest extends FTData {
     assertQuery("Mix", "//mix[text() contains text 'A'][1]");
   }
 
+  /**
+   * Tests posting lists that span several blocks.
+   */
+  @Test public void postings() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= 3000; i++) {
+      sb.append("<t>");
+      for(int j = 0; j <= i % 7; j++) sb.append(" a").append(i * j % 11);
+      if(i % 601 == 0) sb.append(" rare");
+      sb.append("</t>");
+    }
+    init(sb.append("</x>").toString());
+
+    assertQuery("Postings 1", "count(//t[text() contains text 'a1'])");
+    assertQuery("Postings 2", "//t[text() contains text 'rare' ftand 'a1']");
+    assertQuery("Postings 3", "//t[text() contains text 'a1' ftand 'rare']");
+    assertQuery("Postings 4", "//t[text() contains text 'a4 rare' phrase]");
+    assertQuery("Postings 5", "//t[text() contains text 'a2 a3 a5' all words]");
+    assertQuery("Postings 6", "//t[text() contains text 'a.* rare' all words using wildcards]");
+    assertQuery("Postings 7", "//t[text() contains text 'a1 rave' all words using fuzzy]");
+  }
+
   /**
    * Asserts that a query returns the same result with and without ft index.
    * @param name name of query
@@ -193,6 +193,70 @@ public final class FtModuleTest extends SandboxTest {
     error(func.args(NAME, "x", " 1"), MAP_X_X);
   }
 
+  /** Test method: fuzzy and wildcard searches with many index entries. */
+  @Test public void searchTokens() {
+    final Function func = _FT_SEARCH;
+    query(_DB_CREATE.args(NAME, " <x>{ for $i in 1 to 2000 return <t>{ string-join("
+        + "random-number-generator($i)?permute(characters('abcde\u00e4\u00f6\u00fc'))"
+        + "[position() <= 2 + $i mod 6]) }</t> }</x>", "x.xml", " map { 'ftindex': true() }"));
+
+    final String texts = _DB_GET.args(NAME) + "//t ! string()";
+    for(final String token : new String[] {
+      "abcd", "dcbae", "\u00e4bc\u00f6", "\u00fc\u00f6\u00e4ab", "e\u00e4"
+    }) {
+      for(final int errors : new int[] { 1, 2, 3 }) {
+        final String options = " map { 'fuzzy': true(), 'errors': " + errors;
+        query("deep-equal(" + func.args(NAME, token, options + " }") + " ! string(), " + texts
+            + '[' + _FT_CONTAINS.args(" .", token, options + " }") + "])", true);
+      }
+    }
+    for(final String token : new String[] {
+      "a.c.*", "b.{2,2}e", "\u00e4.{1,2}b.*", ".*\u00f6", "c.?d.?e"
+    }) {
+      final String options = " map { 'wildcards': true()";
+      query("deep-equal(" + func.args(NAME, token, options + " }") + " ! string(), " + texts
+          + '[' + _FT_CONTAINS.args(" .", token, options + " }") + "])", true);
+    }
+  }
+
+  /** Test method: ranked searches with a limit. */
+  @Test public void searchLimit() {
+    final Function func = _FT_SEARCH;
+    query(_DB_CREATE.args(NAME, " <x>{ for $i in 1 to 1000 return <t>{ string-join("
+        + "for $j in 1 to 1 + $i mod 13 return 'w' || $i * $j mod 31, ' ') }</t> }</x>",
+        "x.xml", " map { 'ftindex': true() }"));
+
+    for(final String model : new String[] { "default", "bm25" }) {
+      set(MainOptions.FTSCORING, model);
+      try {
+        for(final String terms : new String[] { "w1", "w0", "w2 w3", "w1.", "w4 w5" }) {
+          final String options = " map { 'wildcards': " + terms.endsWith(".")
+              + "(), 'mode': '" + (terms.equals("w4 w5") ? "all words" : "any") + "'";
+          final String ranked = "(for $t score $s in " + func.args(NAME, terms, options + " }")
+              + " order by $s descending, " + _DB_NODE_PRE.args(" $t") + " return $t)";
+          query("deep-equal(" + ranked + "[position() <= 10], "
+              + func.args(NAME, terms, options + ", 'limit': 10 }") + ')', true);
+        }
+        query(func.args(NAME, "w1", " map { 'limit': 0 }"), "");
+      } finally {
+        set(MainOptions.FTSCORING, "default");
+      }
+    }
+
+    // BM25: shorter texts and more frequent terms are ranked higher
+    query(_DB_CREATE.args(NAME, " <x><t>a b c d e f</t><t>a b</t><t>a a b</t><t>b</t></x>",
+        "x.xml", " map { 'ftindex': true() }"));
+    set(MainOptions.FTSCORING, "bm25");
+    try {
+      query(func.args(NAME, "a", " map { 'limit': 3 }"), "a a b\na b\na b c d e f");
+      query(func.args(NAME, "a", " map { 'limit': 1 }"), "a a b");
+      query("every $s in (for $t score $s in " + func.args(NAME, "a b") + " return $s) "
+          + "satisfies $s > 0 and $s < 1", true);
+    } finally {
+      set(MainOptions.FTSCORING, "default");
+    }
+  }
+
   /** Test method. */
   @Test public void thesaurus() {
     final Function func = _FT_THESAURUS;
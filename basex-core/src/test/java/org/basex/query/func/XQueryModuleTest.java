@@ -164,6 +164,22 @@ public final class XQueryModuleTest extends QueryPlanTest {
     error(func.args(" replicate(error#0, 100)"), FUNERR1);
   }
 
+  /** Test method. */
+  @Test public void forkJoinVirtual() {
+    final Function func = _XQUERY_FORK_JOIN;
+    context.soptions.set(StaticOptions.VIRTUALTHREADS, true);
+    try {
+      query(func.args(" (false#0, true#0)"), "false\ntrue");
+      query("count(" + func.args(" (1 to 100) ! false#0", " map { 'parallel': 4 }") + ')', 100);
+      query(func.args(" (function() { (1 to 10000000)[.=1] }, true#0)"), "1\ntrue");
+      query(func.args(" (1 to 2) ! function() { 1 }", " map { 'results': false() }"), "");
+      query(func.args(" (error#0, true#0)", " map { 'errors': false() }"), true);
+      error(func.args(" replicate(error#0, 100)"), FUNERR1);
+    } finally {
+      context.soptions.set(StaticOptions.VIRTUALTHREADS, false);
+    }
+  }
+
   /** Test method. */
   @Test public void parse() {
     final Function func = _XQUERY_PARSE;
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.*;
 
 import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.*;
 import org.basex.util.*;
 import org.junit.jupiter.api.*;
 
@@ -44,4 +46,65 @@ public class ClientSessionTest extends SessionTest {
       fail(Util.message(ex));
     }
   }
+
+  /**
+   * Streams results in chunks.
+   * @throws IOException I/O exception */
+  @Test public void queryStream() throws IOException {
+    for(final int chunk : new int[] { 1, 3, 1000 }) {
+      try(ClientQuery query = ((ClientSession) session).query("1 to 1000")) {
+        query.chunk(chunk);
+        int c = 0;
+        while(query.more()) assertEqual(Integer.toString(++c), query.next());
+        assertEquals(1000, c);
+      }
+    }
+  }
+
+  /**
+   * Cancels a streamed result.
+   * @throws IOException I/O exception */
+  @Test public void queryStreamCancel() throws IOException {
+    try(ClientQuery query = ((ClientSession) session).query("1 to 100000")) {
+      query.chunk(10);
+      for(int c = 1; c <= 25; c++) {
+        assertTrue(query.more());
+        assertEqual(Integer.toString(c), query.next());
+      }
+    }
+    assertEqual("2", session.execute("XQUERY 1 + 1"));
+  }
+
+  /**
+   * Cancels a streamed result after the server has sent the last chunk.
+   * @throws IOException I/O exception */
+  @Test public void queryStreamCancelLast() throws IOException {
+    final String result = session.execute("XQUERY 1 to 15");
+    for(final int chunk : new int[] { 10, 15 }) {
+      try(ClientQuery query = ((ClientSession) session).query("1 to 15")) {
+        query.chunk(chunk);
+        assertTrue(query.more());
+        assertEqual("1", query.next());
+        // wait until the server has sent the complete result
+        Performance.sleep(100);
+        assertEqual(result, query.execute());
+        assertFalse(query.info().isEmpty());
+      }
+      assertEqual("2", session.execute("XQUERY 1 + 1"));
+    }
+  }
+
+  /**
+   * Raises an error while streaming results.
+   * @throws IOException I/O exception */
+  @Test public void queryStreamError() throws IOException {
+    try(ClientQuery query = ((ClientSession) session).query(
+        "for $i in 1 to 100 return if($i = 50) then error() else $i")) {
+      query.chunk(10);
+      assertThrows(BaseXException.class, () -> {
+        while(query.more()) query.next();
+      });
+    }
+    assertEqual("2", session.execute("XQUERY 1 + 1"));
+  }
 }
@@ -1,9 +1,11 @@
 package org.basex.server;
 
+import static org.basex.core.Text.*;
 import static org.basex.query.func.Function.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.*;
+import java.net.*;
 import java.util.*;
 
 import org.basex.*;
@@ -109,6 +111,48 @@ public final class ConcurrencyTest extends SandboxTest {
     for(final Thread c : th) c.join();
   }
 
+  /**
+   * Opens more sessions than there are server threads, and runs queries on all of them.
+   * @throws Exception exception
+   */
+  @Test public void manySessions() throws Exception {
+    final int sl = server.context.soptions.get(StaticOptions.SERVERTHREADS) * 4;
+    final ArrayList<ClientSession> sessions = new ArrayList<>(sl);
+    try {
+      for(int s = 0; s < sl; s++) sessions.add(createClient());
+      // send queries in reverse order: idle sessions must not block new requests
+      for(int s = sl - 1; s >= 0; s--) {
+        assertEquals(Integer.toString(s), sessions.get(s).execute(new XQuery(Integer.toString(s))));
+      }
+      assertEquals(sl + 1, server.context.sessions.size());
+    } finally {
+      for(final ClientSession session : sessions) session.close();
+    }
+  }
+
+  /**
+   * Opens more connections than there are server threads, and sends incomplete logins.
+   * The server must still accept new sessions.
+   * @throws Exception exception
+   */
+  @Test public void incompleteLogins() throws Exception {
+    final int sl = server.context.soptions.get(StaticOptions.SERVERTHREADS) + 1;
+    final ArrayList<Socket> sockets = new ArrayList<>(sl);
+    try {
+      for(int s = 0; s < sl; s++) {
+        final Socket socket = new Socket(S_LOCALHOST, DB_PORT);
+        socket.getOutputStream().write('a');
+        socket.getOutputStream().flush();
+        sockets.add(socket);
+      }
+      try(ClientSession session = createClient()) {
+        assertEquals("1", session.execute(new XQuery("1")));
+      }
+    } finally {
+      for(final Socket socket : sockets) socket.close();
+    }
+  }
+
   /** Random counter. */
   private static final Random RANDOM = new Random();
 
@@ -0,0 +1,62 @@
+package org.basex.util;
+
+import static org.basex.util.Token.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Class for testing the {@link LZ4} methods.
+ *
+ * @author BaseX Team 2005-23, BSD License
+ * @author Christian Gruen
+ */
+public final class LZ4Test extends SandboxTest {
+  /** Short inputs. */
+  @Test public void small() {
+    run(EMPTY);
+    run(token("a"));
+    run(token("abcdefghijkl"));
+    run(token("abcdabcdabcdabcd"));
+  }
+
+  /** Repetitive inputs, including overlapping matches and long lengths. */
+  @Test public void repetitive() {
+    final byte[] bytes = new byte[70000];
+    run(bytes);
+    for(int b = 0; b < bytes.length; b++) bytes[b] = (byte) (b % 3);
+    run(bytes);
+    run(token("abc ".repeat(1000) + "xyz".repeat(2000)));
+  }
+
+  /** Random inputs. */
+  @Test public void random() {
+    final Random rnd = new Random(0);
+    for(final int size : new int[] { 13, 255, 4096, 65536 }) {
+      final byte[] bytes = new byte[size];
+      rnd.nextBytes(bytes);
+      run(bytes);
+      // mix random and repeated sequences
+      for(int b = 0; b < size; b++) bytes[b] = (byte) ('a' + rnd.nextInt(4));
+      run(bytes);
+    }
+  }
+
+  /**
+   * Compresses and decompresses the specified bytes.
+   * @param bytes bytes
+   */
+  private static void run(final byte[] bytes) {
+    final int bl = bytes.length;
+    final byte[] packed = new byte[LZ4.maxLength(bl)];
+    final int pl = LZ4.compress(bytes, bl, packed);
+    assertTrue(pl <= packed.length);
+
+    final byte[] unpacked = new byte[bl];
+    assertEquals(bl, LZ4.decompress(packed, 0, pl, unpacked));
+    assertArrayEquals(bytes, unpacked);
+  }
+}